@@ -21,6 +21,11 @@ public @interface AutoSerializable {
      */
     String FIELD_NAME = "_serializer";
 
+    /**
+     * The name used for the static method in the AutoSerialized class that creates the serializer on first use
+     */
+    String METHOD_NAME = "_serializer";
+
     /**
      * The class to bind the annotated {@code AutoSerializer} to
      *
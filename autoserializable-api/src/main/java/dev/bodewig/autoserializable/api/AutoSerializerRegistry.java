@@ -0,0 +1,58 @@
+package dev.bodewig.autoserializable.api;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds one shared instance per {@link AutoSerializer} type.
+ * <p>
+ * The classes transformed by the {@code AutoSerializablePlugin} request their serializer from this registry on first
+ * use, so all classes bound to the same serializer type share a single instance. Serializers therefore must not keep
+ * state per serialized class. The instances are held per serializer class, so they do not keep the class loaders of
+ * the serializers alive. Concurrent first requests may create more than one instance, but all of them return the same.
+ */
+public final class AutoSerializerRegistry {
+
+    private static final ClassValue<AtomicReference<AutoSerializer<?>>> serializers = new ClassValue<>() {
+        @Override
+        protected AtomicReference<AutoSerializer<?>> computeValue(Class<?> type) {
+            return new AtomicReference<>();
+        }
+    };
+
+    private AutoSerializerRegistry() {
+    }
+
+    /**
+     * Returns the shared instance of the serializer type and creates it with its no-arg constructor if there is none
+     *
+     * @param lookup a lookup with access to the constructor of the serializer, usually of the bound class
+     * @param type   the serializer type
+     * @return the shared serializer
+     * @throws IllegalStateException if the serializer can not be created
+     */
+    public static AutoSerializer<?> get(MethodHandles.Lookup lookup, Class<? extends AutoSerializer<?>> type) {
+        AtomicReference<AutoSerializer<?>> shared = serializers.get(type);
+        AutoSerializer<?> serializer = shared.get();
+        if (serializer == null) {
+            // created outside the registry, so the constructor may request other serializers
+            AutoSerializer<?> created = create(lookup, type);
+            serializer = shared.compareAndExchange(null, created);
+            if (serializer == null) {
+                serializer = created;
+            }
+        }
+        return serializer;
+    }
+
+    private static AutoSerializer<?> create(MethodHandles.Lookup lookup, Class<? extends AutoSerializer<?>> type) {
+        try {
+            return (AutoSerializer<?>) lookup.findConstructor(type, MethodType.methodType(void.class)).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create serializer " + type.getCanonicalName(), e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link InputStream} that reads directly from the remaining bytes of a {@link ByteBuffer}.
+ * <p>
+ * Wrapped in an {@link java.io.ObjectInputStream}, objects are deserialized from direct buffers or the
+ * {@code asByteBuffer()} view of a memory segment without copying them into a heap array first.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a new stream
+     *
+     * @param buffer the buffer to read from
+     */
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Getter for buffer
+     *
+     * @return the buffer, its position is the start of the unread bytes
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+}
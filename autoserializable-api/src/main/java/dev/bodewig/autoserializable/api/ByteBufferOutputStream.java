@@ -0,0 +1,45 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link OutputStream} that writes directly into a {@link ByteBuffer}, starting at its position.
+ * <p>
+ * Wrapped in an {@link java.io.ObjectOutputStream}, objects are serialized into direct buffers or the
+ * {@code asByteBuffer()} view of a memory segment without copying them through a heap array. The buffer does not
+ * grow, writing beyond its limit throws a {@link BufferOverflowException}.
+ */
+public class ByteBufferOutputStream extends OutputStream {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a new stream
+     *
+     * @param buffer the buffer to write to
+     */
+    public ByteBufferOutputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buffer.put(b, off, len);
+    }
+
+    /**
+     * Getter for buffer
+     *
+     * @return the buffer, its position is the end of the written bytes
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+}
@@ -0,0 +1,48 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Set;
+
+/**
+ * An {@link ObjectInputStream} that resolves classes with a fixed class loader and checks them with a given filter
+ */
+final class ClassLoaderObjectInputStream extends ObjectInputStream {
+
+    private static final Set<String> PRIMITIVES = Set.of("boolean", "byte", "char", "short", "int", "long", "float",
+            "double", "void");
+
+    private final ClassLoader classLoader;
+
+    /**
+     * Creates a new stream and reads its header
+     *
+     * @param in          the stream to read from
+     * @param classLoader the class loader to resolve classes with
+     * @param filter      the filter to check the stream with or {@code null} to keep the JVM-wide filter
+     * @throws IOException if the header can not be read
+     */
+    ClassLoaderObjectInputStream(InputStream in, ClassLoader classLoader, ObjectInputFilter filter)
+            throws IOException {
+        super(in);
+        this.classLoader = classLoader;
+        if (filter != null && getObjectInputFilter() != filter) {
+            setObjectInputFilter(filter);
+        }
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        try {
+            return Class.forName(desc.getName(), false, classLoader);
+        } catch (ClassNotFoundException e) {
+            if (PRIMITIVES.contains(desc.getName())) {
+                return super.resolveClass(desc);
+            }
+            throw e;
+        }
+    }
+}
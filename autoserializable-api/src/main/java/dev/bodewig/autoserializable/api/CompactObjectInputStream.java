@@ -0,0 +1,71 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+
+/**
+ * An {@link ObjectInputStream} that reads the class descriptors written by a {@link CompactObjectOutputStream}.
+ * <p>
+ * Registered types are resolved by their id and described by their local class descriptor. The layout digest written
+ * with the id must match the layout in the registry of the reader and the {@code serialVersionUID} must match the local
+ * class, so both sides have to use the same version of the transformed classes.
+ */
+public class CompactObjectInputStream extends ObjectInputStream {
+
+    private final TypeRegistry registry;
+
+    /**
+     * Creates a new stream with the {@link TypeRegistry#getDefault() default registry}
+     *
+     * @param in the input stream to read from
+     * @throws IOException if the stream header can not be read
+     */
+    public CompactObjectInputStream(InputStream in) throws IOException {
+        this(in, TypeRegistry.getDefault());
+    }
+
+    /**
+     * Creates a new stream
+     *
+     * @param in       the input stream to read from
+     * @param registry the registry of the type ids
+     * @throws IOException if the stream header can not be read
+     */
+    public CompactObjectInputStream(InputStream in, TypeRegistry registry) throws IOException {
+        super(in);
+        this.registry = registry;
+    }
+
+    @Override
+    protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+        int kind = read();
+        if (kind == CompactObjectOutputStream.FULL_DESCRIPTOR) {
+            return super.readClassDescriptor();
+        } else if (kind != CompactObjectOutputStream.REGISTERED_DESCRIPTOR) {
+            throw new StreamCorruptedException("Invalid class descriptor marker " + kind);
+        }
+        int id = readInt();
+        long layoutDigest = readLong();
+        long serialVersionUid = readLong();
+        TypeRegistry.Entry entry = registry.get(id);
+        if (entry == null) {
+            throw new InvalidClassException("Type id " + id + " is not registered");
+        }
+        if (registry.layoutDigest(entry) != layoutDigest) {
+            throw new InvalidClassException(entry.name(), "field layout differs from the layout of the writer");
+        }
+        ObjectStreamClass desc = ObjectStreamClass.lookup(Class.forName(entry.name(), false,
+                registry.getClassLoader()));
+        if (desc == null) {
+            throw new NotSerializableException(entry.name());
+        }
+        if (registry.lookup(desc) == null) {
+            throw new InvalidClassException(entry.name(), "field layout differs from the type registry");
+        }
+        if (desc.getSerialVersionUID() != serialVersionUid) {
+            throw new InvalidClassException(entry.name(), "local class incompatible: stream classdesc " +
+                    "serialVersionUID = " + serialVersionUid + ", local class serialVersionUID = " +
+                    desc.getSerialVersionUID());
+        }
+        return desc;
+    }
+}
@@ -0,0 +1,65 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+
+/**
+ * An {@link ObjectOutputStream} that writes the id, the layout digest and the {@code serialVersionUID} of types in the
+ * {@link TypeRegistry} instead of their full class descriptor. Other types, like those of the JDK, are written with
+ * their full class descriptor.
+ * <p>
+ * The stream can only be read by a {@link CompactObjectInputStream} with a registry that contains the same ids and
+ * layouts.
+ */
+public class CompactObjectOutputStream extends ObjectOutputStream {
+
+    /**
+     * Marks a full class descriptor
+     */
+    static final int FULL_DESCRIPTOR = 0;
+
+    /**
+     * Marks a class descriptor replaced by its id, layout digest and {@code serialVersionUID}
+     */
+    static final int REGISTERED_DESCRIPTOR = 1;
+
+    private final TypeRegistry registry;
+
+    /**
+     * Creates a new stream with the {@link TypeRegistry#getDefault() default registry}
+     *
+     * @param out the output stream to write to
+     * @throws IOException if the stream header can not be written
+     */
+    public CompactObjectOutputStream(OutputStream out) throws IOException {
+        this(out, TypeRegistry.getDefault());
+    }
+
+    /**
+     * Creates a new stream
+     *
+     * @param out      the output stream to write to
+     * @param registry the registry of the type ids
+     * @throws IOException if the stream header can not be written
+     */
+    public CompactObjectOutputStream(OutputStream out, TypeRegistry registry) throws IOException {
+        super(out);
+        this.registry = registry;
+    }
+
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+        TypeRegistry.Entry entry = registry.lookup(desc);
+        if (entry == null) {
+            write(FULL_DESCRIPTOR);
+            super.writeClassDescriptor(desc);
+        } else {
+            write(REGISTERED_DESCRIPTOR);
+            writeInt(entry.id());
+            writeLong(registry.layoutDigest(entry));
+            writeLong(desc.getSerialVersionUID());
+        }
+    }
+}
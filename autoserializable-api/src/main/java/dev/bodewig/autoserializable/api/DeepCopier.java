@@ -0,0 +1,259 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Copies object graphs without encoding them to bytes. The copy equals the result of serializing and deserializing
+ * the graph.
+ * <p>
+ * Instances are created like during deserialization, by the no-arg constructor of the first class that is not
+ * serializable. The serialized fields of each class are copied by the method generated by the
+ * {@code AutoSerializablePlugin} with {@code deepCopy=generate}, or by reflection. Shared references and cycles are
+ * preserved by an identity map. Objects whose classes are bound to a custom {@link AutoSerializer} or have own
+ * serialization methods, like {@code writeObject} or {@code writeReplace}, are copied by a serialization round trip
+ * through their serializer. References from such objects to the rest of the graph are therefore copied separately.
+ * <p>
+ * Strings, boxed primitives, enums and classes are immutable and not copied. The common collections of the JDK are
+ * copied element by element.
+ * <p>
+ * A copier keeps all copies in its identity map and is not thread-safe. Use {@link #deepCopy(Object)} to copy a
+ * single graph, or a new instance to copy several graphs that share references.
+ */
+public final class DeepCopier {
+
+    /**
+     * The name of the copy method generated by the {@code AutoSerializablePlugin}
+     */
+    public static final String METHOD_NAME = "_deepCopy";
+
+    private static final Logger logger = Logger.getLogger(DeepCopier.class.getCanonicalName());
+    private static final MethodType METHOD_TYPE =
+            MethodType.methodType(void.class, Object.class, Object.class, DeepCopier.class);
+    private static final Set<Class<?>> IMMUTABLE_TYPES =
+            Set.of(String.class, Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class,
+                    Float.class, Double.class, BigInteger.class, BigDecimal.class, Class.class);
+    private static final Map<Class<?>, Supplier<Collection<Object>>> COLLECTION_TYPES =
+            Map.of(ArrayList.class, ArrayList::new, LinkedList.class, LinkedList::new, ArrayDeque.class,
+                    ArrayDeque::new, HashSet.class, HashSet::new);
+    private static final ClassValue<Strategy> strategies = new ClassValue<>() {
+        @Override
+        protected Strategy computeValue(Class<?> type) {
+            return strategy(type);
+        }
+    };
+
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    /**
+     * Creates a new copier with an empty identity map
+     */
+    public DeepCopier() {
+    }
+
+    /**
+     * Copies a single object graph
+     *
+     * @param obj the object to copy
+     * @param <T> the type of the object
+     * @return the copy
+     * @throws UncheckedIOException if an object of the graph is not serializable or its serializer fails
+     */
+    @SuppressWarnings("unchecked") // the copy has the class of the original
+    public static <T> T deepCopy(T obj) {
+        return (T) new DeepCopier().copy(obj);
+    }
+
+    /**
+     * Copies an object and all objects reachable from it. Objects that were already copied by this copier are not
+     * copied again.
+     *
+     * @param obj the object to copy
+     * @return the copy
+     * @throws UncheckedIOException if an object of the graph is not serializable or its serializer fails
+     */
+    public Object copy(Object obj) {
+        if (obj == null) {
+            return null;
+        }
+        Object copy = copies.get(obj);
+        if (copy == null) {
+            copy = strategies.get(obj.getClass()).copy(obj, this);
+        }
+        return copy;
+    }
+
+    /**
+     * Registers the copy of an object before its fields are copied, so cycles resolve to the copy
+     */
+    private <T> T register(Object obj, T copy) {
+        copies.put(obj, copy);
+        return copy;
+    }
+
+    private static Strategy strategy(Class<?> type) {
+        if (IMMUTABLE_TYPES.contains(type) || Enum.class.isAssignableFrom(type)) {
+            return (obj, copier) -> obj;
+        } else if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? DeepCopier::copyPrimitiveArray : DeepCopier::copyArray;
+        } else if (COLLECTION_TYPES.containsKey(type)) {
+            Supplier<Collection<Object>> factory = COLLECTION_TYPES.get(type);
+            return (obj, copier) -> {
+                Collection<Object> copy = copier.register(obj, factory.get());
+                for (Object element : (Collection<?>) obj) {
+                    copy.add(copier.copy(element));
+                }
+                return copy;
+            };
+        } else if (type == HashMap.class) {
+            return (obj, copier) -> {
+                Map<Object, Object> copy = copier.register(obj, new HashMap<>());
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+                    copy.put(copier.copy(entry.getKey()), copier.copy(entry.getValue()));
+                }
+                return copy;
+            };
+        } else if (!Serializable.class.isAssignableFrom(type)) {
+            return (obj, copier) -> {
+                throw new UncheckedIOException(new NotSerializableException(type.getName()));
+            };
+        } else if (Externalizable.class.isAssignableFrom(type) || type.isRecord() || Proxy.isProxyClass(type) ||
+                SerialClass.hasMethod(type, "writeReplace") || SerialClass.hasMethod(type, "readResolve")) {
+            return DeepCopier::roundTrip;
+        }
+        List<FieldCopy> fieldCopies = new ArrayList<>();
+        Class<?> current = type;
+        while (Serializable.class.isAssignableFrom(current)) {
+            FieldCopy fieldCopy = fieldCopy(current);
+            if (fieldCopy == null) {
+                logger.fine("Copying " + type.getName() + " by serialization because of " + current.getName());
+                return DeepCopier::roundTrip;
+            }
+            fieldCopies.add(0, fieldCopy);
+            current = current.getSuperclass();
+        }
+        Constructor<?> constructor = SerialClass.constructor(type);
+        if (constructor == null) {
+            // the first class that is not serializable has no no-arg constructor, serialization reports the error
+            return DeepCopier::roundTrip;
+        }
+        FieldCopy[] steps = fieldCopies.toArray(new FieldCopy[0]);
+        return (obj, copier) -> {
+            Object copy;
+            try {
+                copy = copier.register(obj, constructor.newInstance());
+            } catch (ReflectiveOperationException e) {
+                throw new UncheckedIOException(new InvalidClassException(type.getName(), e.toString()));
+            }
+            for (FieldCopy step : steps) {
+                step.copy(obj, copy, copier);
+            }
+            return copy;
+        };
+    }
+
+    /**
+     * Resolves how the fields declared by a single class are copied
+     *
+     * @param type the class
+     * @return the copy of the fields or {@code null} if objects of the class have to be copied by serialization
+     */
+    private static FieldCopy fieldCopy(Class<?> type) {
+        MethodHandles.Lookup lookup = SerialClass.privateLookup(type);
+        if (lookup != null) {
+            try {
+                MethodHandle method = lookup.findStatic(type, METHOD_NAME, METHOD_TYPE);
+                return (from, to, copier) -> {
+                    try {
+                        method.invokeExact(from, to, copier);
+                    } catch (RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // not generated, fall back to reflection
+            }
+        }
+        if (SerialClass.isCustomSerialized(type)) {
+            return null;
+        }
+        ObjectStreamClass streamClass = ObjectStreamClass.lookup(type);
+        List<Field> fields = new ArrayList<>();
+        for (ObjectStreamField serialField : streamClass.getFields()) {
+            try {
+                Field field = type.getDeclaredField(serialField.getName());
+                field.setAccessible(true);
+                fields.add(field);
+            } catch (NoSuchFieldException | RuntimeException e) {
+                logger.log(Level.FINE, "Can not copy field " + serialField.getName() + " of " + type.getName(), e);
+                return null;
+            }
+        }
+        Field[] declared = fields.toArray(new Field[0]);
+        return (from, to, copier) -> {
+            try {
+                for (Field field : declared) {
+                    Object value = field.get(from);
+                    field.set(to, field.getType().isPrimitive() ? value : copier.copy(value));
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static Object copyPrimitiveArray(Object obj, DeepCopier copier) {
+        int length = Array.getLength(obj);
+        Object copy = Array.newInstance(obj.getClass().getComponentType(), length);
+        System.arraycopy(obj, 0, copy, 0, length);
+        return copier.register(obj, copy);
+    }
+
+    private static Object copyArray(Object obj, DeepCopier copier) {
+        Object[] array = (Object[]) obj;
+        Object[] copy = copier.register(obj, (Object[]) Array.newInstance(obj.getClass().getComponentType(),
+                array.length));
+        for (int i = 0; i < array.length; i++) {
+            copy[i] = copier.copy(array[i]);
+        }
+        return copy;
+    }
+
+    private static Object roundTrip(Object obj, DeepCopier copier) {
+        try {
+            ObjectCodec codec = ObjectCodec.getDefault();
+            return copier.register(obj, codec.decode(codec.encode(obj)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Copies an object
+     */
+    @FunctionalInterface
+    private interface Strategy {
+        Object copy(Object obj, DeepCopier copier);
+    }
+
+    /**
+     * Copies the fields declared by a single class
+     */
+    @FunctionalInterface
+    private interface FieldCopy {
+        void copy(Object from, Object to, DeepCopier copier);
+    }
+}
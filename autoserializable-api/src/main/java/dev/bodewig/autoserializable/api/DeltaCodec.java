@@ -0,0 +1,306 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes the fields of an object that changed since its last snapshot and applies them to another instance.
+ * <p>
+ * Classes transformed by the {@code AutoSerializablePlugin} with {@code dirtyTracking=fields} keep a transient bitmap
+ * of the serialized fields that were written since the last snapshot. A delta contains the values of these fields
+ * only, the fields of serializable classes that are not tracked are always contained. Referenced objects are written
+ * as a whole by {@link ObjectOutput#writeObject(Object)}, changes inside of them are not part of the delta of the
+ * referencing object. Final fields are never tracked.
+ * <p>
+ * Writing a delta takes a new snapshot by clearing the bitmaps, {@link #markClean(Object)} does so after a full
+ * serialization. Objects created by deserialization or the {@link DeepCopier} start clean, constructed objects with
+ * the fields assigned by their constructor dirty. Applying a delta does not mark the target dirty. The bitmaps are
+ * not synchronized, writes to an object while its delta is written may be lost.
+ */
+public final class DeltaCodec {
+
+    /**
+     * The name of the bitmap field generated by the {@code AutoSerializablePlugin}
+     */
+    public static final String FIELD_NAME = "_dirty";
+
+    /**
+     * The prefix of the generated methods that replace the writes of a tracked field
+     */
+    public static final String METHOD_PREFIX = "_write$";
+
+    /**
+     * The maximum number of serialized fields of a tracked class
+     */
+    public static final int MAX_FIELDS = Long.SIZE;
+
+    private static final ClassValue<Slot[]> slots = new ClassValue<>() {
+        @Override
+        protected Slot[] computeValue(Class<?> type) {
+            try {
+                return slotsOf(type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    };
+
+    private DeltaCodec() {
+    }
+
+    /**
+     * Checks if the changes of a class are tracked
+     *
+     * @param type the class
+     * @return {@code true} if the class or one of its super classes has a bitmap
+     */
+    public static boolean isTracked(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            if (bitmap(current) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if an object changed since its last snapshot
+     *
+     * @param object the object
+     * @return {@code true} if a tracked field was written or the object has serialized fields that are not tracked
+     * @throws UncheckedIOException if the object has no delta
+     */
+    public static boolean isDirty(Object object) {
+        try {
+            for (Slot slot : slots.get(object.getClass())) {
+                if (slot.dirty() == null ? slot.fields().length > 0 : slot.dirty().getLong(object) != 0L) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Takes a snapshot of an object by clearing its bitmaps, e.g. after it was serialized as a whole
+     *
+     * @param object the object
+     * @throws UncheckedIOException if the object has no delta
+     */
+    public static void markClean(Object object) {
+        try {
+            for (Slot slot : slots.get(object.getClass())) {
+                if (slot.dirty() != null) {
+                    slot.dirty().setLong(object, 0L);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the fields of an object that changed since its last snapshot and takes a new snapshot
+     *
+     * @param out    the output to write the delta to
+     * @param object the changed object
+     * @throws InvalidClassException if the serial form of a class of the object is not made of its fields
+     * @throws IOException           if the output fails
+     */
+    public static void writeDelta(ObjectOutput out, Object object) throws IOException {
+        Slot[] hierarchy = slots(object.getClass());
+        out.writeUTF(object.getClass().getName());
+        try {
+            for (Slot slot : hierarchy) {
+                long bits = slot.dirty() == null ? -1L : slot.dirty().getLong(object);
+                if (slot.dirty() != null) {
+                    out.writeLong(bits);
+                }
+                FieldAccessor[] fields = slot.fields();
+                for (int i = 0; i < fields.length; i++) {
+                    if ((bits & 1L << i) != 0) {
+                        writeValue(out, fields[i], object);
+                    }
+                }
+            }
+            // clear the bitmaps after the whole delta was written, so a failed write keeps the changes
+            for (Slot slot : hierarchy) {
+                if (slot.dirty() != null) {
+                    slot.dirty().setLong(object, 0L);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Applies a delta written by {@link #writeDelta(ObjectOutput, Object)} to an instance of the same class
+     *
+     * @param in     the input to read the delta from
+     * @param target the object to update
+     * @throws InvalidObjectException if the delta was written for another class or a value has the wrong type
+     * @throws InvalidClassException  if the serial form of a class of the target is not made of its fields
+     * @throws IOException            if the input fails or is corrupted
+     * @throws ClassNotFoundException if the class of a written value can not be found
+     */
+    public static void readDelta(ObjectInput in, Object target) throws IOException, ClassNotFoundException {
+        Slot[] hierarchy = slots(target.getClass());
+        String name = in.readUTF();
+        if (!name.equals(target.getClass().getName())) {
+            throw new InvalidObjectException(
+                    "Delta of " + name + " can not be applied to " + target.getClass().getName());
+        }
+        try {
+            for (Slot slot : hierarchy) {
+                FieldAccessor[] fields = slot.fields();
+                long bits = -1L;
+                if (slot.dirty() != null) {
+                    bits = in.readLong();
+                    if (fields.length < MAX_FIELDS && bits >>> fields.length != 0) {
+                        throw new StreamCorruptedException("Invalid bitmap for " + slot.type().getName());
+                    }
+                }
+                for (int i = 0; i < fields.length; i++) {
+                    if ((bits & 1L << i) != 0) {
+                        readValue(in, fields[i], target);
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Slot[] slots(Class<?> type) throws IOException {
+        try {
+            return slots.get(type);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Resolves the serialized fields of every serializable class of the hierarchy, from the topmost class down
+     *
+     * @param type the class of the objects
+     * @return the slots
+     * @throws IOException if the serial form of a class is not made of its fields
+     */
+    private static Slot[] slotsOf(Class<?> type) throws IOException {
+        if (!Serializable.class.isAssignableFrom(type)) {
+            throw new NotSerializableException(type.getName());
+        } else if (type.isArray() || type.isEnum() || type.isRecord() || Proxy.isProxyClass(type) ||
+                SerialClass.hasMethod(type, "writeReplace") || SerialClass.hasMethod(type, "readResolve")) {
+            throw new InvalidClassException(type.getName(), "objects are replaced or created as a whole");
+        }
+        List<Slot> result = new ArrayList<>();
+        for (Class<?> current = type; Serializable.class.isAssignableFrom(current);
+             current = current.getSuperclass()) {
+            Field bitmap = bitmap(current);
+            if (bitmap == null && (SerialClass.isCustomSerialized(current) ||
+                    Externalizable.class.isAssignableFrom(current) || declaresPersistentFields(current))) {
+                throw new InvalidClassException(current.getName(), "serial form is not made of the fields");
+            }
+            FieldLayout<?> layout = FieldLayout.of(current);
+            FieldAccessor[] fields = Arrays.stream(current.getDeclaredFields())
+                    .filter(field -> !Modifier.isStatic(field.getModifiers()) &&
+                            !Modifier.isTransient(field.getModifiers()))
+                    .sorted(Comparator.comparing((Field field) -> !field.getType().isPrimitive())
+                            .thenComparing(Field::getName))
+                    .map(field -> layout.accessor(field.getName())).toArray(FieldAccessor[]::new);
+            result.add(0, new Slot(current, bitmap == null ? null : layout.accessor(FIELD_NAME), fields));
+        }
+        return result.toArray(new Slot[0]);
+    }
+
+    private static Field bitmap(Class<?> type) {
+        try {
+            Field field = type.getDeclaredField(FIELD_NAME);
+            return field.getType() == long.class && Modifier.isTransient(field.getModifiers()) ? field : null;
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    private static boolean declaresPersistentFields(Class<?> type) {
+        try {
+            type.getDeclaredField(SerialPersistentFields.FIELD_NAME);
+            return true;
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+
+    private static void writeValue(ObjectOutput out, FieldAccessor field, Object object)
+            throws IOException, IllegalAccessException {
+        Class<?> type = field.field().getType();
+        if (type == boolean.class) {
+            out.writeBoolean(field.getBoolean(object));
+        } else if (type == byte.class) {
+            out.writeByte(field.getByte(object));
+        } else if (type == char.class) {
+            out.writeChar(field.getChar(object));
+        } else if (type == short.class) {
+            out.writeShort(field.getShort(object));
+        } else if (type == int.class) {
+            out.writeInt(field.getInt(object));
+        } else if (type == float.class) {
+            out.writeFloat(field.getFloat(object));
+        } else if (type == long.class) {
+            out.writeLong(field.getLong(object));
+        } else if (type == double.class) {
+            out.writeDouble(field.getDouble(object));
+        } else {
+            out.writeObject(field.get(object));
+        }
+    }
+
+    private static void readValue(ObjectInput in, FieldAccessor field, Object target)
+            throws IOException, ClassNotFoundException, IllegalAccessException {
+        Class<?> type = field.field().getType();
+        if (type == boolean.class) {
+            field.setBoolean(target, in.readBoolean());
+        } else if (type == byte.class) {
+            field.setByte(target, in.readByte());
+        } else if (type == char.class) {
+            field.setChar(target, in.readChar());
+        } else if (type == short.class) {
+            field.setShort(target, in.readShort());
+        } else if (type == int.class) {
+            field.setInt(target, in.readInt());
+        } else if (type == float.class) {
+            field.setFloat(target, in.readFloat());
+        } else if (type == long.class) {
+            field.setLong(target, in.readLong());
+        } else if (type == double.class) {
+            field.setDouble(target, in.readDouble());
+        } else {
+            Object value = in.readObject();
+            if (value != null && !type.isInstance(value)) {
+                throw new InvalidObjectException("Value of type " + value.getClass().getName() +
+                        " can not be assigned to field " + field.field().getName() + " of " +
+                        field.field().getDeclaringClass().getName());
+            }
+            field.set(target, value);
+        }
+    }
+
+    /**
+     * The serialized fields of a single class
+     *
+     * @param type   the class
+     * @param dirty  the accessor of the bitmap or {@code null} if the class is not tracked
+     * @param fields the serialized fields in the order of their bits
+     */
+    private record Slot(Class<?> type, FieldAccessor dirty, FieldAccessor[] fields) {
+    }
+}
@@ -0,0 +1,48 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+
+/**
+ * The serial form of classes transformed by the {@code AutoSerializablePlugin} with {@code codegen=direct}.
+ * <p>
+ * The generated {@code writeObject} method writes the version of the field layout of its class, followed by the
+ * values of the serialized fields with the typed methods of {@link java.io.ObjectOutputStream}, primitive fields first,
+ * then ordered by name. The generated {@code readObject} method checks the version and reads the values back. The
+ * values are not written as default serial form, so the streams can only be read by classes transformed the same way.
+ * The classes declare an empty {@code serialPersistentFields} array, so their class descriptors list no fields and
+ * readers that parse the stream, like the {@link ProjectionReader}, skip the values as block data.
+ * <p>
+ * The version is a digest of the names and types of the serialized fields. A class whose fields changed rejects the
+ * stream instead of misreading it, even if its {@code serialVersionUID} is pinned.
+ */
+public final class DirectSerialForm {
+
+    /**
+     * The name of the generated {@code private static final long} constant holding the version of the field layout
+     */
+    public static final String FIELD_NAME = "_directForm";
+
+    private DirectSerialForm() {
+    }
+
+    /**
+     * Reads the version of the field layout from the stream and compares it to the version of the local class. Called
+     * by the generated {@code readObject} methods.
+     *
+     * @param in      the stream to read from
+     * @param version the version of the local class
+     * @param type    the local class
+     * @throws InvalidClassException if the stream was written by a class with a different field layout
+     * @throws IOException           if the stream can not be read
+     */
+    public static void readVersion(ObjectInputStream in, long version, Class<?> type) throws IOException {
+        long streamVersion = in.readLong();
+        if (streamVersion != version) {
+            throw new InvalidClassException(type.getName(),
+                    "field layout " + Long.toHexString(streamVersion) + " of the stream does not match the local " +
+                            "field layout " + Long.toHexString(version));
+        }
+    }
+}
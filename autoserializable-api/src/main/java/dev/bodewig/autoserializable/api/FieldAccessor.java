@@ -0,0 +1,267 @@
+package dev.bodewig.autoserializable.api;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Reads and writes a single instance field.
+ * <p>
+ * Access goes through method handles if they can be created for the field. Their types are erased to {@code Object}
+ * receivers and the primitive type of the field, so they are invoked exactly and primitive values are not boxed.
+ * Final fields are written and fields of classes that are not accessible to this module are read and written by the
+ * typed methods of {@link Field}, as are values of other types than the field, which are widened like by reflection.
+ * <p>
+ * The accessor is a record, as the JIT trusts the final fields of records. The handles of an accessor that is a
+ * constant to the JIT, like one in a {@code static final} field, are folded into direct field accesses.
+ *
+ * @param field  the field to access
+ * @param type   the type of the field
+ * @param getter the erased getter or {@code null} to read by reflection
+ * @param setter the erased setter or {@code null} to write by reflection
+ */
+record FieldAccessor(Field field, Class<?> type, MethodHandle getter, MethodHandle setter) {
+
+    /**
+     * Resolves the handles of a field
+     *
+     * @param field  the field to access, already made accessible if possible
+     * @param lookup a private lookup in the declaring class of the field or {@code null} to use reflection only
+     * @return the accessor
+     */
+    static FieldAccessor of(Field field, MethodHandles.Lookup lookup) {
+        Class<?> type = field.getType();
+        Class<?> erased = type.isPrimitive() ? type : Object.class;
+        MethodHandle read = null;
+        MethodHandle write = null;
+        if (lookup != null && !Modifier.isStatic(field.getModifiers())) {
+            try {
+                read = lookup.unreflectGetter(field).asType(MethodType.methodType(erased, Object.class));
+                if (!Modifier.isFinal(field.getModifiers())) {
+                    write = lookup.unreflectSetter(field)
+                            .asType(MethodType.methodType(void.class, Object.class, erased));
+                }
+            } catch (IllegalAccessException e) {
+                // fall back to reflection
+            }
+        }
+        return new FieldAccessor(field, type, read, write);
+    }
+
+    Object get(Object object) throws IllegalAccessException {
+        if (getter == null || type.isPrimitive()) {
+            return field.get(object);
+        }
+        try {
+            return (Object) getter.invokeExact(object);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    boolean getBoolean(Object object) throws IllegalAccessException {
+        if (getter == null || type != boolean.class) {
+            return field.getBoolean(object);
+        }
+        try {
+            return (boolean) getter.invokeExact(object);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    byte getByte(Object object) throws IllegalAccessException {
+        if (getter == null || type != byte.class) {
+            return field.getByte(object);
+        }
+        try {
+            return (byte) getter.invokeExact(object);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    char getChar(Object object) throws IllegalAccessException {
+        if (getter == null || type != char.class) {
+            return field.getChar(object);
+        }
+        try {
+            return (char) getter.invokeExact(object);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    short getShort(Object object) throws IllegalAccessException {
+        if (getter == null || type != short.class) {
+            return field.getShort(object);
+        }
+        try {
+            return (short) getter.invokeExact(object);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    int getInt(Object object) throws IllegalAccessException {
+        if (getter == null || type != int.class) {
+            return field.getInt(object);
+        }
+        try {
+            return (int) getter.invokeExact(object);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    float getFloat(Object object) throws IllegalAccessException {
+        if (getter == null || type != float.class) {
+            return field.getFloat(object);
+        }
+        try {
+            return (float) getter.invokeExact(object);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    long getLong(Object object) throws IllegalAccessException {
+        if (getter == null || type != long.class) {
+            return field.getLong(object);
+        }
+        try {
+            return (long) getter.invokeExact(object);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    double getDouble(Object object) throws IllegalAccessException {
+        if (getter == null || type != double.class) {
+            return field.getDouble(object);
+        }
+        try {
+            return (double) getter.invokeExact(object);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    void set(Object object, Object value) throws IllegalAccessException {
+        if (setter == null || type.isPrimitive() || (value != null && !type.isInstance(value))) {
+            // reflection unboxes and widens primitive values and rejects values of other types
+            field.set(object, value);
+            return;
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    void setBoolean(Object object, boolean value) throws IllegalAccessException {
+        if (setter == null || type != boolean.class) {
+            field.setBoolean(object, value);
+            return;
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    void setByte(Object object, byte value) throws IllegalAccessException {
+        if (setter == null || type != byte.class) {
+            field.setByte(object, value);
+            return;
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    void setChar(Object object, char value) throws IllegalAccessException {
+        if (setter == null || type != char.class) {
+            field.setChar(object, value);
+            return;
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    void setShort(Object object, short value) throws IllegalAccessException {
+        if (setter == null || type != short.class) {
+            field.setShort(object, value);
+            return;
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    void setInt(Object object, int value) throws IllegalAccessException {
+        if (setter == null || type != int.class) {
+            field.setInt(object, value);
+            return;
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    void setFloat(Object object, float value) throws IllegalAccessException {
+        if (setter == null || type != float.class) {
+            field.setFloat(object, value);
+            return;
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    void setLong(Object object, long value) throws IllegalAccessException {
+        if (setter == null || type != long.class) {
+            field.setLong(object, value);
+            return;
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    void setDouble(Object object, double value) throws IllegalAccessException {
+        if (setter == null || type != double.class) {
+            field.setDouble(object, value);
+            return;
+        }
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable e) {
+            throw unchecked(e);
+        }
+    }
+
+    private static RuntimeException unchecked(Throwable e) {
+        if (e instanceof Error error) {
+            throw error;
+        }
+        return e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e);
+    }
+}
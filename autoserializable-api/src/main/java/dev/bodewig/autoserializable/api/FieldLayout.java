@@ -0,0 +1,154 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.NotSerializableException;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * The declared and serialized fields of a class, resolved once per class and shared by all {@link GetFieldBuilder}s
+ * and {@link PutFieldBuilder}s of that class.
+ *
+ * @param <T> the described type
+ */
+final class FieldLayout<T> {
+
+    private static final Logger logger = Logger.getLogger(FieldLayout.class.getCanonicalName());
+
+    private static final ClassValue<FieldLayout<?>> layouts = new ClassValue<>() {
+        @Override
+        protected FieldLayout<?> computeValue(Class<?> type) {
+            return new FieldLayout<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final Map<String, Field> declaredFields;
+    private final Map<String, ObjectStreamField> serializedFields;
+    private final Map<String, FieldAccessor> accessors;
+
+    private FieldLayout(Class<T> type) {
+        this.type = type;
+
+        ObjectStreamClass streamClass = ObjectStreamClass.lookup(type);
+        if (streamClass == null) {
+            throw new FieldBuilderException(new NotSerializableException(type.getCanonicalName()));
+        }
+        Field[] fields = type.getDeclaredFields();
+        for (Field field : fields) {
+            makeAccessible(field);
+        }
+        declaredFields =
+                Arrays.stream(fields).collect(Collectors.toUnmodifiableMap(Field::getName, Function.identity()));
+        serializedFields = Arrays.stream(streamClass.getFields())
+                .collect(Collectors.toMap(ObjectStreamField::getName, Function.identity(), (a, b) -> a, TreeMap::new));
+        MethodHandles.Lookup lookup = privateLookup(type);
+        accessors = Arrays.stream(fields)
+                .collect(Collectors.toUnmodifiableMap(Field::getName, field -> FieldAccessor.of(field, lookup)));
+    }
+
+    /**
+     * Returns the cached layout of the supplied type
+     *
+     * @param type the type to describe
+     * @param <T>  the described type
+     * @return the layout of the type
+     */
+    @SuppressWarnings("unchecked") // guaranteed by the ClassValue
+    static <T> FieldLayout<T> of(Class<T> type) {
+        return (FieldLayout<T>) layouts.get(type);
+    }
+
+    private static MethodHandles.Lookup privateLookup(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException | RuntimeException e) {
+            logger.log(Level.FINE, "Falling back to reflection for " + type.getCanonicalName(), e);
+            return null;
+        }
+    }
+
+    private static void makeAccessible(Field field) {
+        try {
+            field.setAccessible(true);
+        } catch (RuntimeException e) {
+            // inaccessible fields fail with an IllegalAccessException once they are used
+        }
+    }
+
+    /**
+     * Getter for type
+     *
+     * @return type
+     */
+    Class<T> type() {
+        return type;
+    }
+
+    /**
+     * Returns the declared field with the supplied name
+     *
+     * @param fieldName the name of the field
+     * @return the field
+     * @throws FieldBuilderException if the field is not declared by the type
+     */
+    Field declaredField(String fieldName) {
+        Field field = declaredFields.get(fieldName);
+        if (field == null) {
+            throw new FieldBuilderException(new NoSuchFieldException(fieldName));
+        }
+        return field;
+    }
+
+    /**
+     * Returns the accessor for the declared field with the supplied name
+     *
+     * @param fieldName the name of the field
+     * @return the accessor
+     * @throws FieldBuilderException if the field is not declared by the type
+     */
+    FieldAccessor accessor(String fieldName) {
+        FieldAccessor accessor = accessors.get(fieldName);
+        if (accessor == null) {
+            throw new FieldBuilderException(new NoSuchFieldException(fieldName));
+        }
+        return accessor;
+    }
+
+    /**
+     * Checks if the field with the supplied name is part of the serialization descriptor
+     *
+     * @param fieldName the name of the field
+     * @return {@code true} if the field is serialized
+     */
+    boolean isSerialized(String fieldName) {
+        return serializedFields.containsKey(fieldName);
+    }
+
+    /**
+     * Returns the field of the serialization descriptor with the supplied name
+     *
+     * @param fieldName the name of the field
+     * @return the serialized field or {@code null} if it is not part of the serialization descriptor
+     */
+    ObjectStreamField serializedField(String fieldName) {
+        return serializedFields.get(fieldName);
+    }
+
+    /**
+     * Returns the names of all fields in the serialization descriptor, ordered by name
+     *
+     * @return the names of the serialized fields
+     */
+    String[] serializedFieldNames() {
+        return serializedFields.keySet().toArray(new String[0]);
+    }
+}
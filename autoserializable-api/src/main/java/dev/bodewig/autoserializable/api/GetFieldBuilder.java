@@ -2,18 +2,11 @@ package dev.bodewig.autoserializable.api;
 
 import dev.bodewig.autoserializable.api.function.*;
 
-import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
-import java.io.ObjectStreamClass;
-import java.io.ObjectStreamField;
 import java.lang.reflect.Field;
-import java.util.Arrays;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.*;
-import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Immutable builder for {@link java.io.ObjectInputStream.GetField}
@@ -23,29 +16,31 @@ import java.util.stream.Collectors;
 @SuppressWarnings({"unused", "UnusedReturnValue"})
 public class GetFieldBuilder<T> {
 
-    private static final Logger logger = Logger.getLogger(GetFieldBuilder.class.getCanonicalName());
-    private final Map<String, ThrowingFunction<ObjectInputStream.GetField, Object, Exception>> getOperations;
+    private final Map<String, GetFieldPlan.Operation<T>> getOperations;
     private final T object;
-    private final Map<String, Field> declaredFields;
-    private final Set<String> serializedFields;
+    private final FieldLayout<T> layout;
+    private GetFieldPlan<T> plan;
 
     /**
      * Internal constructor to initialize the fields
      *
      * @param object the instance to deserialize
      */
+    @SuppressWarnings("unchecked") // the runtime type of the object is a T
     protected GetFieldBuilder(T object) {
+        this((Class<T>) object.getClass(), object);
+    }
+
+    /**
+     * Internal constructor to initialize the fields
+     *
+     * @param type   the type to deserialize
+     * @param object the instance to deserialize or {@code null} if the builder is used to create a plan
+     */
+    protected GetFieldBuilder(Class<T> type, T object) {
         this.getOperations = new TreeMap<>();
         this.object = object;
-
-        ObjectStreamClass streamClass = ObjectStreamClass.lookup(object.getClass());
-        if (streamClass == null) {
-            throw new FieldBuilderException(new NotSerializableException(object.getClass().getCanonicalName()));
-        }
-        declaredFields = Arrays.stream(object.getClass().getDeclaredFields())
-                .collect(Collectors.toMap(Field::getName, Function.identity()));
-        serializedFields =
-                Arrays.stream(streamClass.getFields()).map(ObjectStreamField::getName).collect(Collectors.toSet());
+        this.layout = FieldLayout.of(type);
     }
 
     /**
@@ -59,13 +54,26 @@ public class GetFieldBuilder<T> {
         return new GetFieldBuilder<>(object);
     }
 
+    /**
+     * Creates a new {@code GetFieldBuilder} for the supplied type that is not bound to an instance.
+     * <p>
+     * Use {@link #plan()} to create a reusable {@link GetFieldPlan} from the builder.
+     *
+     * @param type the type to deserialize
+     * @param <T>  the type to deserialize
+     * @return the builder instance
+     */
+    public static <T> GetFieldBuilder<T> forType(Class<T> type) {
+        return new GetFieldBuilder<>(type, null);
+    }
+
     /**
      * Reads all serialized fields from the stream
      *
      * @return the builder instance
      */
     public GetFieldBuilder<T> all() {
-        return with(serializedFields.toArray(new String[0]));
+        return with(layout.serializedFieldNames());
     }
 
     /**
@@ -76,10 +84,7 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> with(String... fieldNames) {
         for (String fieldName : fieldNames) {
-            if (!declaredFields.containsKey(fieldName)) {
-                throw new FieldBuilderException(new NoSuchFieldException(fieldName));
-            }
-            Field field = declaredFields.get(fieldName);
+            Field field = layout.declaredField(fieldName);
             if (field.getType().isPrimitive()) {
                 if (field.getType().equals(boolean.class)) {
                     readDefault(fieldName, false);
@@ -115,9 +120,7 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> without(String... fieldNames) {
         for (String name : fieldNames) {
-            if (!declaredFields.containsKey(name)) {
-                throw new FieldBuilderException(new NoSuchFieldException(name));
-            }
+            assertFieldInDeclaredFields(name);
             getOperations.remove(name);
         }
         return this;
@@ -131,7 +134,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> read(String fieldName, boolean value) {
-        return read(fieldName, (Object) value);
+        FieldAccessor accessor = typedAccessor(fieldName, boolean.class);
+        if (accessor == null) {
+            return read(fieldName, (Object) value);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setBoolean(o, value));
+        return this;
     }
 
     /**
@@ -142,7 +150,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> read(String fieldName, char value) {
-        return read(fieldName, (Object) value);
+        FieldAccessor accessor = typedAccessor(fieldName, char.class);
+        if (accessor == null) {
+            return read(fieldName, (Object) value);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setChar(o, value));
+        return this;
     }
 
     /**
@@ -153,7 +166,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> read(String fieldName, byte value) {
-        return read(fieldName, (Object) value);
+        FieldAccessor accessor = typedAccessor(fieldName, byte.class);
+        if (accessor == null) {
+            return read(fieldName, (Object) value);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setByte(o, value));
+        return this;
     }
 
     /**
@@ -164,7 +182,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> read(String fieldName, short value) {
-        return read(fieldName, (Object) value);
+        FieldAccessor accessor = typedAccessor(fieldName, short.class);
+        if (accessor == null) {
+            return read(fieldName, (Object) value);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setShort(o, value));
+        return this;
     }
 
     /**
@@ -175,7 +198,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> read(String fieldName, int value) {
-        return read(fieldName, (Object) value);
+        FieldAccessor accessor = typedAccessor(fieldName, int.class);
+        if (accessor == null) {
+            return read(fieldName, (Object) value);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setInt(o, value));
+        return this;
     }
 
     /**
@@ -186,7 +214,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> read(String fieldName, float value) {
-        return read(fieldName, (Object) value);
+        FieldAccessor accessor = typedAccessor(fieldName, float.class);
+        if (accessor == null) {
+            return read(fieldName, (Object) value);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setFloat(o, value));
+        return this;
     }
 
     /**
@@ -197,7 +230,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> read(String fieldName, long value) {
-        return read(fieldName, (Object) value);
+        FieldAccessor accessor = typedAccessor(fieldName, long.class);
+        if (accessor == null) {
+            return read(fieldName, (Object) value);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setLong(o, value));
+        return this;
     }
 
     /**
@@ -208,7 +246,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> read(String fieldName, double value) {
-        return read(fieldName, (Object) value);
+        FieldAccessor accessor = typedAccessor(fieldName, double.class);
+        if (accessor == null) {
+            return read(fieldName, (Object) value);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setDouble(o, value));
+        return this;
     }
 
     /**
@@ -219,12 +262,11 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> read(String fieldName, Object value) {
-        assertFieldInDeclaredFields(fieldName);
-        Field f = declaredFields.get(fieldName);
+        Field f = layout.declaredField(fieldName);
         if (f.getType().isPrimitive() && value == null) {
             throw new FieldBuilderException(new IllegalArgumentException("Cannot assign null to primitive property"));
         }
-        getOperations.put(fieldName, gf -> value);
+        getOperations.put(fieldName, boxed(fieldName, gf -> value));
         return this;
     }
 
@@ -237,10 +279,13 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readDefault(String fieldName, boolean defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        if (field.getType().isPrimitive()) {
-            getOperations.put(fieldName, gf -> gf.get(fieldName, defaultValue));
+        if (field.getType().equals(boolean.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setBoolean(o, gf.get(fieldName, defaultValue)));
+        } else if (field.getType().isPrimitive()) {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName, defaultValue)));
         } else {
-            getOperations.put(fieldName, gf -> gf.get(fieldName, Boolean.valueOf(defaultValue)));
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName, Boolean.valueOf(defaultValue))));
         }
         return this;
     }
@@ -265,10 +310,13 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readDefault(String fieldName, char defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        if (field.getType().isPrimitive()) {
-            getOperations.put(fieldName, gf -> gf.get(fieldName, defaultValue));
+        if (field.getType().equals(char.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setChar(o, gf.get(fieldName, defaultValue)));
+        } else if (field.getType().isPrimitive()) {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName, defaultValue)));
         } else {
-            getOperations.put(fieldName, gf -> gf.get(fieldName, Character.valueOf(defaultValue)));
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName, Character.valueOf(defaultValue))));
         }
         return this;
     }
@@ -337,42 +385,55 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readDefault(String fieldName, Object defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName,
-                gf -> gf.get(fieldName, defaultValue != null ? field.getType().cast(defaultValue) : null));
+        Object value = defaultValue != null ? field.getType().cast(defaultValue) : null;
+        getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName, value)));
         return this;
     }
 
     private GetFieldBuilder<T> readNumeric(String fieldName, Number defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
         if (field.getType().isPrimitive()) {
+            FieldAccessor accessor = layout.accessor(fieldName);
             if (field.getType().equals(byte.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, defaultValue.byteValue()));
+                byte value = defaultValue.byteValue();
+                getOperations.put(fieldName, (gf, o) -> accessor.setByte(o, gf.get(fieldName, value)));
             } else if (field.getType().equals(short.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, defaultValue.shortValue()));
+                short value = defaultValue.shortValue();
+                getOperations.put(fieldName, (gf, o) -> accessor.setShort(o, gf.get(fieldName, value)));
             } else if (field.getType().equals(int.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, defaultValue.intValue()));
+                int value = defaultValue.intValue();
+                getOperations.put(fieldName, (gf, o) -> accessor.setInt(o, gf.get(fieldName, value)));
             } else if (field.getType().equals(float.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, defaultValue.floatValue()));
+                float value = defaultValue.floatValue();
+                getOperations.put(fieldName, (gf, o) -> accessor.setFloat(o, gf.get(fieldName, value)));
             } else if (field.getType().equals(long.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, defaultValue.longValue()));
+                long value = defaultValue.longValue();
+                getOperations.put(fieldName, (gf, o) -> accessor.setLong(o, gf.get(fieldName, value)));
             } else if (field.getType().equals(double.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, defaultValue.doubleValue()));
+                double value = defaultValue.doubleValue();
+                getOperations.put(fieldName, (gf, o) -> accessor.setDouble(o, gf.get(fieldName, value)));
             } else {
                 throw new IllegalStateException("Class <" + field.getType() + "> is not numeric");
             }
         } else {
             if (field.getType().equals(Byte.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, Byte.valueOf(defaultValue.byteValue())));
+                getOperations.put(fieldName,
+                        boxed(fieldName, gf -> gf.get(fieldName, Byte.valueOf(defaultValue.byteValue()))));
             } else if (field.getType().equals(Short.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, Short.valueOf(defaultValue.shortValue())));
+                getOperations.put(fieldName,
+                        boxed(fieldName, gf -> gf.get(fieldName, Short.valueOf(defaultValue.shortValue()))));
             } else if (field.getType().equals(Integer.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, Integer.valueOf(defaultValue.intValue())));
+                getOperations.put(fieldName,
+                        boxed(fieldName, gf -> gf.get(fieldName, Integer.valueOf(defaultValue.intValue()))));
             } else if (field.getType().equals(Float.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, Float.valueOf(defaultValue.floatValue())));
+                getOperations.put(fieldName,
+                        boxed(fieldName, gf -> gf.get(fieldName, Float.valueOf(defaultValue.floatValue()))));
             } else if (field.getType().equals(Long.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, Long.valueOf(defaultValue.longValue())));
+                getOperations.put(fieldName,
+                        boxed(fieldName, gf -> gf.get(fieldName, Long.valueOf(defaultValue.longValue()))));
             } else if (field.getType().equals(Double.class)) {
-                getOperations.put(fieldName, gf -> gf.get(fieldName, Double.valueOf(defaultValue.doubleValue())));
+                getOperations.put(fieldName,
+                        boxed(fieldName, gf -> gf.get(fieldName, Double.valueOf(defaultValue.doubleValue()))));
             } else {
                 throw new IllegalStateException("Class <" + field.getType() + "> is not numeric");
             }
@@ -389,8 +450,14 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputedDefault(String fieldName, BooleanSupplier defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName,
-                gf -> gf.get(fieldName, field.getType().cast(gf.defaulted(fieldName) && defaultValue.getAsBoolean())));
+        if (field.getType().equals(boolean.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setBoolean(o,
+                    gf.defaulted(fieldName) ? defaultValue.getAsBoolean() : gf.get(fieldName, false)));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName,
+                    field.getType().cast(gf.defaulted(fieldName) && defaultValue.getAsBoolean()))));
+        }
         return this;
     }
 
@@ -403,8 +470,14 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputedDefault(String fieldName, ByteSupplier defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> gf.get(fieldName,
-                field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsByte() : (byte) 0)));
+        if (field.getType().equals(byte.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setByte(o,
+                    gf.defaulted(fieldName) ? defaultValue.getAsByte() : gf.get(fieldName, (byte) 0)));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName,
+                    field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsByte() : (byte) 0))));
+        }
         return this;
     }
 
@@ -417,8 +490,14 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputedDefault(String fieldName, CharSupplier defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> gf.get(fieldName,
-                field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsChar() : (char) 0)));
+        if (field.getType().equals(char.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setChar(o,
+                    gf.defaulted(fieldName) ? defaultValue.getAsChar() : gf.get(fieldName, (char) 0)));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName,
+                    field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsChar() : (char) 0))));
+        }
         return this;
     }
 
@@ -431,8 +510,14 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputedDefault(String fieldName, ShortSupplier defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> gf.get(fieldName,
-                field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsShort() : (short) 0)));
+        if (field.getType().equals(short.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setShort(o,
+                    gf.defaulted(fieldName) ? defaultValue.getAsShort() : gf.get(fieldName, (short) 0)));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName,
+                    field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsShort() : (short) 0))));
+        }
         return this;
     }
 
@@ -445,8 +530,14 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputedDefault(String fieldName, IntSupplier defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName,
-                gf -> gf.get(fieldName, field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsInt() : 0)));
+        if (field.getType().equals(int.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setInt(o,
+                    gf.defaulted(fieldName) ? defaultValue.getAsInt() : gf.get(fieldName, 0)));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName,
+                    field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsInt() : 0))));
+        }
         return this;
     }
 
@@ -459,8 +550,14 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputedDefault(String fieldName, FloatSupplier defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> gf.get(fieldName,
-                field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsFloat() : (float) 0)));
+        if (field.getType().equals(float.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setFloat(o,
+                    gf.defaulted(fieldName) ? defaultValue.getAsFloat() : gf.get(fieldName, (float) 0)));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName,
+                    field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsFloat() : (float) 0))));
+        }
         return this;
     }
 
@@ -473,8 +570,14 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputedDefault(String fieldName, LongSupplier defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> gf.get(fieldName,
-                field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsLong() : (long) 0)));
+        if (field.getType().equals(long.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setLong(o,
+                    gf.defaulted(fieldName) ? defaultValue.getAsLong() : gf.get(fieldName, (long) 0)));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName,
+                    field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsLong() : (long) 0))));
+        }
         return this;
     }
 
@@ -487,8 +590,14 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputedDefault(String fieldName, DoubleSupplier defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> gf.get(fieldName,
-                field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsDouble() : (double) 0)));
+        if (field.getType().equals(double.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setDouble(o,
+                    gf.defaulted(fieldName) ? defaultValue.getAsDouble() : gf.get(fieldName, (double) 0)));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName,
+                    field.getType().cast(gf.defaulted(fieldName) ? defaultValue.getAsDouble() : (double) 0))));
+        }
         return this;
     }
 
@@ -501,8 +610,8 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputedDefault(String fieldName, Supplier<?> defaultValue) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName,
-                gf -> gf.get(fieldName, field.getType().cast(gf.defaulted(fieldName) ? defaultValue.get() : null)));
+        getOperations.put(fieldName, boxed(fieldName, gf -> gf.get(fieldName,
+                field.getType().cast(gf.defaulted(fieldName) ? defaultValue.get() : null))));
         return this;
     }
 
@@ -515,7 +624,13 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readTransformed(String fieldName, BooleanUnaryOperator function) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> function.applyAsBoolean(gf.get(fieldName, false)));
+        if (field.getType().equals(boolean.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName,
+                    (gf, o) -> accessor.setBoolean(o, function.applyAsBoolean(gf.get(fieldName, false))));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> function.applyAsBoolean(gf.get(fieldName, false))));
+        }
         return this;
     }
 
@@ -528,7 +643,13 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readTransformed(String fieldName, ByteUnaryOperator function) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> function.applyAsByte(gf.get(fieldName, (byte) 0)));
+        if (field.getType().equals(byte.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName,
+                    (gf, o) -> accessor.setByte(o, function.applyAsByte(gf.get(fieldName, (byte) 0))));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> function.applyAsByte(gf.get(fieldName, (byte) 0))));
+        }
         return this;
     }
 
@@ -541,7 +662,13 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readTransformed(String fieldName, CharUnaryOperator function) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> function.applyAsChar(gf.get(fieldName, (char) 0)));
+        if (field.getType().equals(char.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName,
+                    (gf, o) -> accessor.setChar(o, function.applyAsChar(gf.get(fieldName, (char) 0))));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> function.applyAsChar(gf.get(fieldName, (char) 0))));
+        }
         return this;
     }
 
@@ -554,7 +681,13 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readTransformed(String fieldName, ShortUnaryOperator function) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> function.applyAsShort(gf.get(fieldName, (short) 0)));
+        if (field.getType().equals(short.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName,
+                    (gf, o) -> accessor.setShort(o, function.applyAsShort(gf.get(fieldName, (short) 0))));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> function.applyAsShort(gf.get(fieldName, (short) 0))));
+        }
         return this;
     }
 
@@ -567,7 +700,12 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readTransformed(String fieldName, IntUnaryOperator function) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> function.applyAsInt(gf.get(fieldName, (int) 0)));
+        if (field.getType().equals(int.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName, (gf, o) -> accessor.setInt(o, function.applyAsInt(gf.get(fieldName, 0))));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> function.applyAsInt(gf.get(fieldName, 0))));
+        }
         return this;
     }
 
@@ -580,7 +718,13 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readTransformed(String fieldName, FloatUnaryOperator function) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> function.applyAsFloat(gf.get(fieldName, (float) 0)));
+        if (field.getType().equals(float.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName,
+                    (gf, o) -> accessor.setFloat(o, function.applyAsFloat(gf.get(fieldName, (float) 0))));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> function.applyAsFloat(gf.get(fieldName, (float) 0))));
+        }
         return this;
     }
 
@@ -593,7 +737,13 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readTransformed(String fieldName, LongUnaryOperator function) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> function.applyAsLong(gf.get(fieldName, (long) 0)));
+        if (field.getType().equals(long.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName,
+                    (gf, o) -> accessor.setLong(o, function.applyAsLong(gf.get(fieldName, (long) 0))));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> function.applyAsLong(gf.get(fieldName, (long) 0))));
+        }
         return this;
     }
 
@@ -606,7 +756,13 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readTransformed(String fieldName, DoubleUnaryOperator function) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> function.applyAsDouble(gf.get(fieldName, (double) 0)));
+        if (field.getType().equals(double.class)) {
+            FieldAccessor accessor = layout.accessor(fieldName);
+            getOperations.put(fieldName,
+                    (gf, o) -> accessor.setDouble(o, function.applyAsDouble(gf.get(fieldName, (double) 0))));
+        } else {
+            getOperations.put(fieldName, boxed(fieldName, gf -> function.applyAsDouble(gf.get(fieldName, (double) 0))));
+        }
         return this;
     }
 
@@ -621,7 +777,7 @@ public class GetFieldBuilder<T> {
     @SuppressWarnings("unchecked") // unavoidable due to deserialization
     public <V> GetFieldBuilder<T> readTransformed(String fieldName, UnaryOperator<V> function) {
         Field field = assertFieldInDescriptor(fieldName);
-        getOperations.put(fieldName, gf -> function.apply((V) gf.get(fieldName, null)));
+        getOperations.put(fieldName, boxed(fieldName, gf -> function.apply((V) gf.get(fieldName, null))));
         return this;
     }
 
@@ -633,7 +789,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> readComputed(String fieldName, BooleanSupplier function) {
-        return readComputed(fieldName, (Supplier<Object>) function::getAsBoolean);
+        FieldAccessor accessor = typedAccessor(fieldName, boolean.class);
+        if (accessor == null) {
+            return readComputed(fieldName, (Supplier<Object>) function::getAsBoolean);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setBoolean(o, function.getAsBoolean()));
+        return this;
     }
 
     /**
@@ -644,7 +805,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> readComputed(String fieldName, CharSupplier function) {
-        return readComputed(fieldName, (Supplier<Object>) function::getAsChar);
+        FieldAccessor accessor = typedAccessor(fieldName, char.class);
+        if (accessor == null) {
+            return readComputed(fieldName, (Supplier<Object>) function::getAsChar);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setChar(o, function.getAsChar()));
+        return this;
     }
 
     /**
@@ -655,7 +821,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> readComputed(String fieldName, ByteSupplier function) {
-        return readComputed(fieldName, (Supplier<Object>) function::getAsByte);
+        FieldAccessor accessor = typedAccessor(fieldName, byte.class);
+        if (accessor == null) {
+            return readComputed(fieldName, (Supplier<Object>) function::getAsByte);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setByte(o, function.getAsByte()));
+        return this;
     }
 
     /**
@@ -666,7 +837,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> readComputed(String fieldName, ShortSupplier function) {
-        return readComputed(fieldName, (Supplier<Object>) function::getAsShort);
+        FieldAccessor accessor = typedAccessor(fieldName, short.class);
+        if (accessor == null) {
+            return readComputed(fieldName, (Supplier<Object>) function::getAsShort);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setShort(o, function.getAsShort()));
+        return this;
     }
 
     /**
@@ -677,7 +853,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> readComputed(String fieldName, IntSupplier function) {
-        return readComputed(fieldName, (Supplier<Object>) function::getAsInt);
+        FieldAccessor accessor = typedAccessor(fieldName, int.class);
+        if (accessor == null) {
+            return readComputed(fieldName, (Supplier<Object>) function::getAsInt);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setInt(o, function.getAsInt()));
+        return this;
     }
 
     /**
@@ -688,7 +869,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> readComputed(String fieldName, FloatSupplier function) {
-        return readComputed(fieldName, (Supplier<Object>) function::getAsFloat);
+        FieldAccessor accessor = typedAccessor(fieldName, float.class);
+        if (accessor == null) {
+            return readComputed(fieldName, (Supplier<Object>) function::getAsFloat);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setFloat(o, function.getAsFloat()));
+        return this;
     }
 
     /**
@@ -699,7 +885,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> readComputed(String fieldName, LongSupplier function) {
-        return readComputed(fieldName, (Supplier<Object>) function::getAsLong);
+        FieldAccessor accessor = typedAccessor(fieldName, long.class);
+        if (accessor == null) {
+            return readComputed(fieldName, (Supplier<Object>) function::getAsLong);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setLong(o, function.getAsLong()));
+        return this;
     }
 
     /**
@@ -710,7 +901,12 @@ public class GetFieldBuilder<T> {
      * @return the builder instance
      */
     public GetFieldBuilder<T> readComputed(String fieldName, DoubleSupplier function) {
-        return readComputed(fieldName, (Supplier<Object>) function::getAsDouble);
+        FieldAccessor accessor = typedAccessor(fieldName, double.class);
+        if (accessor == null) {
+            return readComputed(fieldName, (Supplier<Object>) function::getAsDouble);
+        }
+        getOperations.put(fieldName, (gf, o) -> accessor.setDouble(o, function.getAsDouble()));
+        return this;
     }
 
     /**
@@ -722,7 +918,7 @@ public class GetFieldBuilder<T> {
      */
     public GetFieldBuilder<T> readComputed(String fieldName, Supplier<Object> function) {
         assertFieldInDeclaredFields(fieldName);
-        getOperations.put(fieldName, gf -> function.get());
+        getOperations.put(fieldName, boxed(fieldName, gf -> function.get()));
         return this;
     }
 
@@ -736,60 +932,82 @@ public class GetFieldBuilder<T> {
     public GetFieldBuilder<T> readComputed(String fieldName,
                                            ThrowingFunction<ObjectInputStream.GetField, Object, Exception> function) {
         assertFieldInDeclaredFields(fieldName);
-        getOperations.put(fieldName, function);
+        getOperations.put(fieldName, boxed(fieldName, function));
         return this;
     }
 
+    /**
+     * Creates an immutable and reusable plan from the current state of the builder. The plan is cached until the
+     * builder changes.
+     *
+     * @return the plan
+     */
+    public GetFieldPlan<T> plan() {
+        if (plan == null || !plan.isPlanOf(getOperations)) {
+            plan = new GetFieldPlan<>(layout, getOperations);
+        }
+        return plan;
+    }
+
     /**
      * Applies the builder by reading the values from the stream into the object
      *
      * @param in the stream to read from
      */
     public void readFields(ObjectInputStream in) {
-        try {
-            logger.info("getFields: " + getOperations.keySet());
-            ObjectInputStream.GetField getField = in.readFields();
-            for (Map.Entry<String, ThrowingFunction<ObjectInputStream.GetField, Object, Exception>> op :
-                    getOperations.entrySet()) {
-                Object value = op.getValue().apply(getField);
-                Field f = declaredFields.get(op.getKey());
-                f.setAccessible(true);
-                if (f.getType().isPrimitive() && value instanceof Number number) {
-                    if (f.getType().equals(byte.class) || f.getType().equals(Byte.class)) {
-                        value = number.byteValue();
-                    } else if (f.getType().equals(short.class) || f.getType().equals(Short.class)) {
-                        value = number.shortValue();
-                    } else if (f.getType().equals(int.class) || f.getType().equals(Integer.class)) {
-                        value = number.intValue();
-                    } else if (f.getType().equals(long.class) || f.getType().equals(Long.class)) {
-                        value = number.longValue();
-                    } else if (f.getType().equals(float.class) || f.getType().equals(Float.class)) {
-                        value = number.floatValue();
-                    } else if (f.getType().equals(double.class) || f.getType().equals(Double.class)) {
-                        value = number.doubleValue();
-                    }
-                }
-                f.set(object, value);
+        if (object == null) {
+            throw new FieldBuilderException("The builder for " + layout.type().getCanonicalName() +
+                    " is not bound to an instance. Use plan().readFields(in, object) instead.");
+        }
+        plan().readFields(in, object);
+    }
+
+    private GetFieldPlan.Operation<T> boxed(String fieldName,
+                                            ThrowingFunction<ObjectInputStream.GetField, Object, Exception> function) {
+        FieldAccessor accessor = layout.accessor(fieldName);
+        Class<?> type = accessor.field().getType();
+        if (!type.isPrimitive()) {
+            return (gf, o) -> accessor.set(o, function.apply(gf));
+        }
+        return (gf, o) -> accessor.set(o, toPrimitive(type, function.apply(gf)));
+    }
+
+    private static Object toPrimitive(Class<?> type, Object value) {
+        if (value instanceof Number number) {
+            if (type.equals(byte.class)) {
+                return number.byteValue();
+            } else if (type.equals(short.class)) {
+                return number.shortValue();
+            } else if (type.equals(int.class)) {
+                return number.intValue();
+            } else if (type.equals(long.class)) {
+                return number.longValue();
+            } else if (type.equals(float.class)) {
+                return number.floatValue();
+            } else if (type.equals(double.class)) {
+                return number.doubleValue();
             }
-        } catch (Exception e) {
-            throw new FieldBuilderException(e);
         }
+        return value;
+    }
+
+    private FieldAccessor typedAccessor(String fieldName, Class<?> type) {
+        FieldAccessor accessor = layout.accessor(fieldName);
+        return accessor.field().getType().equals(type) ? accessor : null;
     }
 
     private void assertFieldInDeclaredFields(String fieldName) {
-        if (!declaredFields.containsKey(fieldName)) {
-            throw new FieldBuilderException(new NoSuchFieldException(fieldName));
-        }
+        layout.declaredField(fieldName);
     }
 
     private Field assertFieldInDescriptor(String fieldName) {
-        if (!serializedFields.contains(fieldName)) {
+        if (!layout.isSerialized(fieldName)) {
             throw new FieldBuilderException(
                     "Field '" + fieldName + "' is not part of the serialization descriptor for this version of " +
-                            this.object.getClass().getCanonicalName() +
+                            layout.type().getCanonicalName() +
                             ". If you want to set the value of a specific field, use read(fieldName, value) " +
                             "instead.");
         }
-        return declaredFields.get(fieldName);
+        return layout.declaredField(fieldName);
     }
 }
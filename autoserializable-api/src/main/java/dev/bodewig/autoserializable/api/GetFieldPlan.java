@@ -0,0 +1,128 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.ObjectInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Immutable and thread-safe plan to read the fields of a type from {@link java.io.ObjectInputStream.GetField}.
+ * <p>
+ * Plans are created by {@link GetFieldBuilder#plan()} and resolve all field names and accessors once. They are meant
+ * to be built once per type, e.g. in a static field of an {@link AutoSerializer}, and applied to every deserialized
+ * instance.
+ *
+ * @param <T> the type to deserialize
+ */
+public final class GetFieldPlan<T> {
+
+    private static final Logger logger = Logger.getLogger(GetFieldPlan.class.getCanonicalName());
+    private final Class<T> type;
+    private final List<String> fieldNames;
+    private final Operation<T>[] operations;
+
+    /**
+     * Internal constructor to resolve the operations
+     *
+     * @param layout     the fields of the type
+     * @param operations the operations by field name
+     */
+    @SuppressWarnings("unchecked") // generic array creation
+    GetFieldPlan(FieldLayout<T> layout, Map<String, Operation<T>> operations) {
+        this.type = layout.type();
+        this.fieldNames = List.copyOf(operations.keySet());
+        this.operations = operations.values().toArray(new Operation[0]);
+        logger.fine(() -> "getFields: " + fieldNames);
+    }
+
+    /**
+     * Applies the plan by reading the values from the stream into the object
+     *
+     * @param in     the stream to read from
+     * @param object the instance to deserialize
+     */
+    public void readFields(ObjectInputStream in, T object) {
+        try {
+            readFields(in.readFields(), object);
+        } catch (Exception e) {
+            throw new FieldBuilderException(e);
+        }
+    }
+
+    /**
+     * Applies the plan by reading the values from already read fields into the object
+     *
+     * @param getField the fields to read from
+     * @param object   the instance to deserialize
+     * @throws Exception if a value can not be read or set
+     */
+    void readFields(ObjectInputStream.GetField getField, T object) throws Exception {
+        for (Operation<T> operation : operations) {
+            operation.read(getField, object);
+        }
+    }
+
+    /**
+     * Getter for type
+     *
+     * @return type
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Getter for fieldNames
+     *
+     * @return the names of the fields read by the plan
+     */
+    List<String> fieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * Checks if the plan was created from the current operations of a builder, which replaces the operation of a field
+     * whenever the field is configured
+     *
+     * @param operations the operations by field name
+     * @return {@code true} if the plan applies the same operations
+     */
+    boolean isPlanOf(Map<String, Operation<T>> operations) {
+        if (operations.size() != this.operations.length) {
+            return false;
+        }
+        int i = 0;
+        for (Map.Entry<String, Operation<T>> entry : operations.entrySet()) {
+            if (!entry.getKey().equals(fieldNames.get(i)) || entry.getValue() != this.operations[i]) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "GetFieldPlan{" + "type=" + type.getName() + ", fields=" + fieldNames + '}';
+    }
+
+    /**
+     * A single read operation of the plan
+     * <p>
+     * Operations for primitive fields move the value from the {@code GetField} into the object without boxing it.
+     *
+     * @param <T> the type to deserialize
+     */
+    @FunctionalInterface
+    interface Operation<T> {
+
+        /**
+         * Reads a value from the {@code GetField} into the object
+         *
+         * @param getField the {@code GetField} to read from
+         * @param object   the instance to deserialize
+         * @throws Exception if the value can not be read or set
+         */
+        void read(ObjectInputStream.GetField getField, T object) throws Exception;
+    }
+}
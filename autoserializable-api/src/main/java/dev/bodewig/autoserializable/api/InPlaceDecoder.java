@@ -0,0 +1,525 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+import java.lang.reflect.Array;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+
+/**
+ * Decodes serialized objects into existing instances to reuse their allocations.
+ * <p>
+ * Decoding into a target reads the stream of a single object, like the messages of an {@link ObjectCodec}, and writes
+ * the serialized fields directly into the target instead of allocating a new object. Referenced objects are decoded
+ * into the current values of the fields if their class is the same, and arrays are reused if their class and length
+ * are the same. All other objects are newly allocated, so a pooled instance graph is reused as far as its shape
+ * matches the decoded one. Strings, boxed primitives and enum constants are never reused.
+ * <p>
+ * Only objects whose classes are serialized by their fields are decoded in place. That includes transformed classes
+ * with the default {@link AutoSerializer}, but not classes with a custom serializer, own {@code readObject} or
+ * {@code readResolve} methods or {@code Externalizable} classes. The whole stream is checked before the first field is
+ * written. If it contains such an object, the target is left unchanged and the stream is decoded with a new
+ * {@link ObjectInputStream} that uses the class loader and the filter of the decoder, and the new object is returned
+ * instead of the target. Serialized fields of the local classes that are missing in the stream are reset to their
+ * default values, transient fields keep their values.
+ * <p>
+ * The classes, array lengths, references and the depth of the graph are checked by the {@link ObjectInputFilter} of the
+ * decoder before the first write, like {@link ObjectInputStream} does. A rejected stream fails with an
+ * {@link InvalidClassException}.
+ * <p>
+ * A decoder keeps its handle table and the classes it resolved between calls and must not be used by multiple threads
+ * at the same time.
+ */
+public final class InPlaceDecoder extends StreamParser {
+
+    private static final Unsupported UNSUPPORTED = new Unsupported();
+
+    private final IdentityHashMap<Object, Boolean> reused = new IdentityHashMap<>();
+    private byte[] buf;
+    private int start;
+    private int pos;
+    private int end;
+    private boolean validating;
+    private long inPlaceCount;
+    private long fallbackCount;
+
+    /**
+     * Creates a new decoder that resolves classes with the context class loader of the current thread and checks them
+     * with the JVM-wide filter
+     */
+    public InPlaceDecoder() {
+        this(Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Creates a new decoder that checks the classes with the JVM-wide filter
+     *
+     * @param classLoader the class loader to resolve classes with or {@code null} to use the loader of this class
+     */
+    public InPlaceDecoder(ClassLoader classLoader) {
+        this(classLoader, null);
+    }
+
+    /**
+     * Creates a new decoder
+     *
+     * @param classLoader the class loader to resolve classes with or {@code null} to use the loader of this class
+     * @param filter      the filter to check the stream with or {@code null} to use the JVM-wide filter like a new
+     *                    {@link ObjectInputStream}
+     */
+    public InPlaceDecoder(ClassLoader classLoader, ObjectInputFilter filter) {
+        super(classLoader, filter);
+    }
+
+    /**
+     * Decodes an object into the target
+     *
+     * @param bytes  the serialized object
+     * @param target the instance to reuse or {@code null} to allocate a new graph
+     * @return the target or a new object if the stream could not be decoded into the target
+     * @throws InvalidClassException  if the filter rejects the stream
+     * @throws IOException            if the stream is invalid
+     * @throws ClassNotFoundException if a class of the stream can not be found
+     */
+    public Object decodeInto(byte[] bytes, Object target) throws IOException, ClassNotFoundException {
+        return decodeInto(bytes, 0, bytes.length, target);
+    }
+
+    /**
+     * Decodes an object into the target
+     *
+     * @param bytes  the array containing the serialized object
+     * @param offset the index of the first byte of the object
+     * @param length the number of bytes of the object
+     * @param target the instance to reuse or {@code null} to allocate a new graph
+     * @return the target or a new object if the stream could not be decoded into the target
+     * @throws InvalidClassException  if the filter rejects the stream
+     * @throws IOException            if the stream is invalid
+     * @throws ClassNotFoundException if a class of the stream can not be found
+     */
+    public Object decodeInto(byte[] bytes, int offset, int length, Object target)
+            throws IOException, ClassNotFoundException {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        try {
+            // checks the whole stream without writing, so the target stays unchanged if it can not be decoded
+            decode(bytes, offset, length, null, true);
+            Object result = decode(bytes, offset, length, target, false);
+            inPlaceCount++;
+            return result;
+        } catch (Rejected e) {
+            throw e;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // the stream is decoded again, which reports invalid streams with their usual exceptions
+            fallbackCount++;
+            return fallback(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Getter for inPlaceCount
+     *
+     * @return the number of objects decoded into existing or new instances by this decoder
+     */
+    public long getInPlaceCount() {
+        return inPlaceCount;
+    }
+
+    /**
+     * Getter for fallbackCount
+     *
+     * @return the number of objects decoded with a new {@link ObjectInputStream} because they could not be decoded in
+     * place
+     */
+    public long getFallbackCount() {
+        return fallbackCount;
+    }
+
+    /**
+     * Reads the stream once
+     *
+     * @param bytes      the array containing the serialized object
+     * @param offset     the index of the first byte of the object
+     * @param length     the number of bytes of the object
+     * @param target     the instance to reuse or {@code null} to allocate a new graph
+     * @param validating {@code true} to check the stream without writing, objects are then represented by their classes
+     * @return the decoded object or its class when validating
+     * @throws Unsupported            if the stream can not be decoded in place
+     * @throws InvalidClassException  if the filter rejects the stream
+     * @throws ClassNotFoundException if a class of the stream can not be found
+     */
+    private Object decode(byte[] bytes, int offset, int length, Object target, boolean validating)
+            throws IOException, ClassNotFoundException {
+        buf = bytes;
+        start = offset;
+        pos = offset;
+        end = offset + length;
+        this.validating = validating;
+        // the second pass reads the stream the filter already accepted
+        setFiltering(validating);
+        depth = 0;
+        references = 0;
+        try {
+            if (readShort() != ObjectStreamConstants.STREAM_MAGIC ||
+                    readShort() != ObjectStreamConstants.STREAM_VERSION) {
+                throw UNSUPPORTED;
+            }
+            while (peek() == ObjectStreamConstants.TC_RESET) {
+                pos++;
+                clearHandles();
+            }
+            return readContent(target);
+        } finally {
+            buf = null;
+            clearHandles();
+            reused.clear();
+        }
+    }
+
+    private Object fallback(byte[] bytes, int offset, int length) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ClassLoaderObjectInputStream(new ByteArrayInputStream(bytes, offset, length),
+                getClassLoader(), getFilter())) {
+            return in.readObject();
+        }
+    }
+
+    private Object readContent(Object candidate) throws IOException, ClassNotFoundException {
+        depth++;
+        try {
+            return readContent0(candidate);
+        } finally {
+            depth--;
+        }
+    }
+
+    private Object readContent0(Object candidate) throws IOException, ClassNotFoundException {
+        byte tc = readByte();
+        switch (tc) {
+            case ObjectStreamConstants.TC_NULL:
+                return null;
+            case ObjectStreamConstants.TC_REFERENCE: {
+                Object object = handle(readInt());
+                if (object instanceof Desc) {
+                    throw UNSUPPORTED;
+                }
+                references++;
+                filterCheck(null, -1);
+                return object;
+            }
+            case ObjectStreamConstants.TC_STRING, ObjectStreamConstants.TC_LONGSTRING:
+                return readString(tc);
+            case ObjectStreamConstants.TC_OBJECT:
+                return readOrdinaryObject(candidate);
+            case ObjectStreamConstants.TC_ARRAY:
+                return readArray(candidate);
+            case ObjectStreamConstants.TC_ENUM:
+                return readEnum();
+            case ObjectStreamConstants.TC_CLASS: {
+                Desc desc = readClassDesc();
+                if (desc == null) {
+                    throw UNSUPPORTED;
+                }
+                int handle = newHandle();
+                Class<?> type = desc.type();
+                return setHandle(handle, validating ? Class.class : type);
+            }
+            default:
+                throw UNSUPPORTED;
+        }
+    }
+
+    private Object readOrdinaryObject(Object candidate) throws IOException, ClassNotFoundException {
+        Desc desc = readClassDesc();
+        if (desc == null) {
+            throw UNSUPPORTED;
+        }
+        Class<?> type = desc.type();
+        if (type.isArray() || type.isEnum()) {
+            throw UNSUPPORTED;
+        }
+        int handle = newHandle();
+        if (BOXES.contains(type)) {
+            Object box = null;
+            for (Desc slot : desc.slots) {
+                for (char code : slot.codes) {
+                    box = readBoxed(code);
+                }
+                skipAnnotation(slot);
+            }
+            return setHandle(handle, validating ? type : box);
+        }
+        if (!desc.isDecodable()) {
+            throw UNSUPPORTED;
+        }
+        Object object;
+        if (validating) {
+            if (SerialClass.constructor(type) == null) {
+                throw UNSUPPORTED;
+            }
+            object = type;
+        } else {
+            object = reuse(candidate, type) ? candidate : allocate(type);
+        }
+        setHandle(handle, object);
+        try {
+            for (Desc slot : desc.slots) {
+                if (validating) {
+                    checkFields(slot);
+                } else {
+                    readFields(slot, object);
+                }
+                skipAnnotation(slot);
+            }
+        } catch (IllegalAccessException e) {
+            throw UNSUPPORTED;
+        }
+        return object;
+    }
+
+    /**
+     * Reads the fields of a class without writing them and checks that the values can be assigned
+     *
+     * @param slot the class descriptor
+     * @throws Unsupported if a value can not be assigned to its field
+     */
+    private void checkFields(Desc slot) throws IOException, ClassNotFoundException {
+        FieldAccessor[] accessors = slot.accessors();
+        slot.missing();
+        for (int i = 0; i < slot.codes.length; i++) {
+            if (skipPrimitive(slot.codes[i])) {
+                continue;
+            }
+            Object value = readContent(null);
+            if (value != null && accessors[i] != null &&
+                    !accessors[i].field().getType().isAssignableFrom(typeOf(value))) {
+                throw UNSUPPORTED;
+            }
+        }
+    }
+
+    private void readFields(Desc slot, Object object)
+            throws IOException, ClassNotFoundException, IllegalAccessException {
+        FieldAccessor[] accessors = slot.accessors();
+        for (int i = 0; i < slot.codes.length; i++) {
+            FieldAccessor accessor = accessors[i];
+            switch (slot.codes[i]) {
+                case 'Z' -> {
+                    boolean value = readByte() != 0;
+                    if (accessor != null) accessor.setBoolean(object, value);
+                }
+                case 'B' -> {
+                    byte value = readByte();
+                    if (accessor != null) accessor.setByte(object, value);
+                }
+                case 'C' -> {
+                    char value = (char) readUnsignedShort();
+                    if (accessor != null) accessor.setChar(object, value);
+                }
+                case 'S' -> {
+                    short value = readShort();
+                    if (accessor != null) accessor.setShort(object, value);
+                }
+                case 'I' -> {
+                    int value = readInt();
+                    if (accessor != null) accessor.setInt(object, value);
+                }
+                case 'F' -> {
+                    float value = Float.intBitsToFloat(readInt());
+                    if (accessor != null) accessor.setFloat(object, value);
+                }
+                case 'J' -> {
+                    long value = readLong();
+                    if (accessor != null) accessor.setLong(object, value);
+                }
+                case 'D' -> {
+                    double value = Double.longBitsToDouble(readLong());
+                    if (accessor != null) accessor.setDouble(object, value);
+                }
+                default -> {
+                    Object value = readContent(accessor != null ? accessor.get(object) : null);
+                    if (accessor != null) accessor.set(object, value);
+                }
+            }
+        }
+        for (FieldAccessor missing : slot.missing()) {
+            resetField(missing, object);
+        }
+    }
+
+    private static void resetField(FieldAccessor accessor, Object object) throws IllegalAccessException {
+        Class<?> type = accessor.field().getType();
+        if (type == boolean.class) {
+            accessor.setBoolean(object, false);
+        } else if (type == byte.class) {
+            accessor.setByte(object, (byte) 0);
+        } else if (type == char.class) {
+            accessor.setChar(object, (char) 0);
+        } else if (type == short.class) {
+            accessor.setShort(object, (short) 0);
+        } else if (type == int.class) {
+            accessor.setInt(object, 0);
+        } else if (type == float.class) {
+            accessor.setFloat(object, 0f);
+        } else if (type == long.class) {
+            accessor.setLong(object, 0L);
+        } else if (type == double.class) {
+            accessor.setDouble(object, 0d);
+        } else {
+            accessor.set(object, null);
+        }
+    }
+
+    /**
+     * Returns the class of a value read while validating, where objects are represented by their classes
+     *
+     * @param value the value
+     * @return the class of the value
+     */
+    private static Class<?> typeOf(Object value) {
+        return value instanceof Class<?> type ? type : value.getClass();
+    }
+
+    private Object readArray(Object candidate) throws IOException, ClassNotFoundException {
+        Desc desc = readClassDesc();
+        if (desc == null) {
+            throw UNSUPPORTED;
+        }
+        Class<?> type = desc.type();
+        if (!type.isArray()) {
+            throw UNSUPPORTED;
+        }
+        int handle = newHandle();
+        int length = readArrayLength();
+        filterCheck(type, length);
+        Class<?> componentType = type.getComponentType();
+        if (validating) {
+            setHandle(handle, type);
+            if (!skipPrimitives(desc.name.charAt(1), length)) {
+                for (int i = 0; i < length; i++) {
+                    Object value = readContent(null);
+                    if (value != null && !componentType.isAssignableFrom(typeOf(value))) {
+                        throw UNSUPPORTED;
+                    }
+                }
+            }
+            return type;
+        }
+        Object array = reuse(candidate, type) && Array.getLength(candidate) == length ? candidate :
+                Array.newInstance(componentType, length);
+        setHandle(handle, array);
+        if (componentType.isPrimitive()) {
+            readPrimitives(array);
+        } else {
+            Object[] objects = (Object[]) array;
+            try {
+                for (int i = 0; i < length; i++) {
+                    objects[i] = readContent(objects[i]);
+                }
+            } catch (ArrayStoreException e) {
+                throw UNSUPPORTED;
+            }
+        }
+        return array;
+    }
+
+    private Object readEnum() throws IOException, ClassNotFoundException {
+        Desc desc = readClassDesc();
+        if (desc == null) {
+            throw UNSUPPORTED;
+        }
+        int handle = newHandle();
+        // the constant is checked in the first pass, before the first write
+        Enum<?> constant = enumConstant(desc, readStringContent("Enum constant name"));
+        return setHandle(handle, validating ? constant.getDeclaringClass() : constant);
+    }
+
+    private boolean reuse(Object candidate, Class<?> type) {
+        // an instance shared by the old graph is only reused for the first object decoded into it
+        return candidate != null && candidate.getClass() == type && reused.put(candidate, Boolean.TRUE) == null;
+    }
+
+    @Override
+    void skipContent() throws Unsupported {
+        // objects written by writeObject methods or as class annotations
+        throw UNSUPPORTED;
+    }
+
+    private void require(long count) throws Unsupported {
+        if (end - pos < count) {
+            throw UNSUPPORTED;
+        }
+    }
+
+    @Override
+    int peek() throws Unsupported {
+        require(1);
+        return buf[pos] & 0xFF;
+    }
+
+    @Override
+    byte readByte() throws Unsupported {
+        require(1);
+        return buf[pos++];
+    }
+
+    @Override
+    short readShort() throws Unsupported {
+        require(2);
+        short value = (short) ((buf[pos] << 8) | (buf[pos + 1] & 0xFF));
+        pos += 2;
+        return value;
+    }
+
+    @Override
+    int readInt() throws Unsupported {
+        require(4);
+        int value = (buf[pos] << 24) | ((buf[pos + 1] & 0xFF) << 16) | ((buf[pos + 2] & 0xFF) << 8) |
+                (buf[pos + 3] & 0xFF);
+        pos += 4;
+        return value;
+    }
+
+    @Override
+    long readLong() throws Unsupported {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    void readFully(byte[] target, int offset, int length) throws Unsupported {
+        require(length);
+        System.arraycopy(buf, pos, target, offset, length);
+        pos += length;
+    }
+
+    @Override
+    void skipBytes(long count) throws Unsupported {
+        require(count);
+        pos += (int) count;
+    }
+
+    @Override
+    long position() {
+        return pos - start;
+    }
+
+    @Override
+    String readUTF(long length) throws IOException {
+        // decodes directly from the array instead of copying the bytes
+        require(length);
+        String value = decodeUTF(buf, pos, (int) length);
+        pos += (int) length;
+        return value;
+    }
+
+    /**
+     * Signals a stream that can not be decoded in place, without a stack trace
+     */
+    private static final class Unsupported extends IOException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package dev.bodewig.autoserializable.api;
+
+import java.lang.annotation.*;
+
+/**
+ * Defers the deserialization of a reference field until it is first read.
+ * <p>
+ * The {@code AutoSerializablePlugin} makes the annotated field transient and serializes its value as a separate
+ * message in a {@link LazyValue} instead. After deserialization, the message is kept undecoded until the field is read.
+ * Reads and writes of the field in all classes transformed by the plugin are replaced by calls to generated accessor
+ * methods. Classes that are not transformed, and reflection, only see the declared field, which is no longer used.
+ * <p>
+ * The value is serialized in its own stream, so objects it shares with other fields of the graph are decoded as
+ * copies. The annotation is ignored on classes bound to a custom serializer.
+ * <p>
+ * <b>The value is decoded outside of the stream that read the object.</b> It is checked by the
+ * {@link java.io.ObjectInputFilter} that stream had when the object was read, but its classes are resolved with the
+ * context class loader of the reading thread and not by an overridden
+ * {@link java.io.ObjectInputStream#resolveClass resolveClass} of the stream.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface LazyDeserialized {
+
+    /**
+     * The prefix of the name of the serialized {@link LazyValue} field added for each annotated field
+     */
+    String FIELD_PREFIX = "_lazy$";
+
+    /**
+     * The prefix of the name of the generated method that reads an annotated field
+     */
+    String GETTER_PREFIX = "_get$";
+
+    /**
+     * The prefix of the name of the generated method that writes an annotated field
+     */
+    String SETTER_PREFIX = "_set$";
+}
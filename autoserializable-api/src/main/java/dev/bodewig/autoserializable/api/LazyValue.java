@@ -0,0 +1,133 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+
+/**
+ * Holds the value of a {@link LazyDeserialized} field and decodes it on first access.
+ * <p>
+ * The value is written as a message of the {@link ObjectCodec}. A deserialized holder only keeps the bytes of the
+ * message until the value is read, so holders that are serialized again before their value was read pass the bytes on
+ * without decoding them. The value is decoded at most once, even if it is read by multiple threads.
+ * <p>
+ * The message is decoded with the {@link ObjectInputFilter} of the stream the holder was read from, and its classes are
+ * resolved with the context class loader of the thread that read the holder. A custom
+ * {@link ObjectInputStream#resolveClass} of that stream is not used for the value.
+ */
+public final class LazyValue implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private transient volatile Object value;
+    private transient volatile byte[] bytes;
+    private transient ObjectInputFilter filter;
+    private transient ClassLoader classLoader;
+
+    private LazyValue(Object value) {
+        this.value = value;
+    }
+
+    /**
+     * Reads the value of a holder, called by the generated getters
+     *
+     * @param lazy the holder or {@code null} if the field was never assigned
+     * @return the decoded value
+     * @throws UncheckedIOException  if the value can not be decoded
+     * @throws IllegalStateException if a class of the value can not be found
+     */
+    public static Object get(LazyValue lazy) {
+        return lazy == null ? null : lazy.get();
+    }
+
+    /**
+     * Assigns the value of a holder, called by the generated setters
+     *
+     * @param lazy  the holder or {@code null} if the field was never assigned
+     * @param value the new value
+     * @return the holder to store in the field
+     */
+    public static LazyValue set(LazyValue lazy, Object value) {
+        if (lazy == null) {
+            return value == null ? null : new LazyValue(value);
+        }
+        lazy.set(value);
+        return lazy;
+    }
+
+    /**
+     * Checks if the value was decoded or assigned
+     *
+     * @return {@code false} if the value is still kept as bytes
+     */
+    public boolean isDecoded() {
+        return bytes == null;
+    }
+
+    private Object get() {
+        if (bytes == null) {
+            return value;
+        }
+        synchronized (this) {
+            byte[] pending = bytes;
+            if (pending != null) {
+                try (ObjectInputStream in = new ClassLoaderObjectInputStream(new ByteArrayInputStream(pending),
+                        classLoader, filter)) {
+                    value = in.readObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException("Can not decode lazy value", e);
+                }
+                bytes = null;
+                filter = null;
+                classLoader = null;
+            }
+            return value;
+        }
+    }
+
+    private synchronized void set(Object value) {
+        this.value = value;
+        this.bytes = null;
+        this.filter = null;
+        this.classLoader = null;
+    }
+
+    /**
+     * Writes the message of the value, the kept bytes if it was not decoded yet
+     *
+     * @param out the stream to write to
+     * @throws IOException if the value can not be encoded
+     * @serialData the message of the value as {@code byte[]}
+     */
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        byte[] pending;
+        Object current;
+        synchronized (this) {
+            pending = bytes;
+            current = value;
+        }
+        out.writeObject(pending != null ? pending : ObjectCodec.getDefault().encode(current));
+    }
+
+    /**
+     * Reads the message of the value and keeps it with the filter of the stream until the value is read
+     *
+     * @param in the stream to read from
+     * @throws IOException            if the message can not be read
+     * @throws ClassNotFoundException if a class of the stream can not be found
+     */
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (!(in.readObject() instanceof byte[] message)) {
+            throw new InvalidObjectException("Lazy value without message");
+        }
+        filter = in.getObjectInputFilter();
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        classLoader = contextLoader != null ? contextLoader : LazyValue.class.getClassLoader();
+        bytes = message;
+    }
+}
@@ -0,0 +1,320 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+
+/**
+ * An {@link ObjectOutput} for long-running streams that resets the handle table of the underlying
+ * {@link ObjectOutputStream} according to a {@link ResetPolicy}, so the memory of the stream stays flat.
+ * <p>
+ * The stream counts the objects and bytes written and the handles assigned since the last reset. A handle is counted
+ * for every object, string, array, enum constant and class descriptor that is written for the first time since the
+ * last reset. The policy is checked after every call to {@link #writeObject(Object)} and {@link #writeUnshared(Object)}.
+ * <p>
+ * By default, the stream can be read by a plain {@link ObjectInputStream}. A session stream keeps its class descriptors
+ * across resets and has to be read by a {@link SessionObjectInputStream}.
+ */
+public class ManagedObjectOutputStream implements ObjectOutput {
+
+    private final CountingOutputStream counter;
+    private final ResetPolicy policy;
+    private final ObjectOutputStream out;
+    private long objects;
+    private long objectsSinceReset;
+    private long handles;
+    private long totalHandles;
+    private long maxHandles;
+    private long bytesAtReset;
+    private long resets;
+
+    /**
+     * Creates a new stream that can be read by a plain {@link ObjectInputStream}
+     *
+     * @param out    the output stream to write to
+     * @param policy the policy to reset the handle table with
+     * @throws IOException if the stream header can not be written
+     */
+    public ManagedObjectOutputStream(OutputStream out, ResetPolicy policy) throws IOException {
+        this(out, policy, false);
+    }
+
+    /**
+     * Creates a new stream
+     *
+     * @param out     the output stream to write to
+     * @param policy  the policy to reset the handle table with
+     * @param session {@code true} to write a {@link SessionObjectOutputStream} that keeps class descriptors across
+     *                resets, using the {@link TypeRegistry#getDefault() default registry}
+     * @throws IOException if the stream header can not be written
+     */
+    public ManagedObjectOutputStream(OutputStream out, ResetPolicy policy, boolean session) throws IOException {
+        this.counter = new CountingOutputStream(out);
+        this.policy = policy;
+        this.out = session ? new CountingSessionStream(counter) : new CountingStream(counter);
+    }
+
+    @Override
+    public void writeObject(Object obj) throws IOException {
+        out.writeObject(obj);
+        afterObject();
+    }
+
+    /**
+     * Writes an unshared object and resets the stream if the policy requests it
+     *
+     * @param obj the object to write
+     * @throws IOException if the object can not be written
+     * @see ObjectOutputStream#writeUnshared(Object)
+     */
+    public void writeUnshared(Object obj) throws IOException {
+        out.writeUnshared(obj);
+        afterObject();
+    }
+
+    private void afterObject() throws IOException {
+        objects++;
+        objectsSinceReset++;
+        maxHandles = Math.max(maxHandles, handles);
+        if (policy.shouldReset(this)) {
+            reset();
+        }
+    }
+
+    /**
+     * Resets the handle table of the stream
+     *
+     * @throws IOException if the reset can not be written
+     * @see ObjectOutputStream#reset()
+     */
+    public void reset() throws IOException {
+        out.reset();
+        handles = 0;
+        objectsSinceReset = 0;
+        bytesAtReset = counter.count;
+        resets++;
+    }
+
+    /**
+     * Getter for the number of objects written
+     *
+     * @return the number of objects
+     */
+    public long getObjectCount() {
+        return objects;
+    }
+
+    /**
+     * Getter for the number of objects written since the last reset
+     *
+     * @return the number of objects
+     */
+    public long getObjectsSinceReset() {
+        return objectsSinceReset;
+    }
+
+    /**
+     * Getter for the number of handles in the handle table
+     *
+     * @return the number of handles assigned since the last reset
+     */
+    public long getHandleCount() {
+        return handles;
+    }
+
+    /**
+     * Getter for the number of handles assigned over the whole stream
+     *
+     * @return the number of handles
+     */
+    public long getTotalHandleCount() {
+        return totalHandles;
+    }
+
+    /**
+     * Getter for the largest size of the handle table after an object was written
+     *
+     * @return the maximum number of handles
+     */
+    public long getMaxHandleCount() {
+        return maxHandles;
+    }
+
+    /**
+     * Getter for the number of bytes written to the underlying stream
+     *
+     * @return the number of bytes
+     */
+    public long getByteCount() {
+        return counter.count;
+    }
+
+    /**
+     * Getter for the number of bytes written to the underlying stream since the last reset
+     *
+     * @return the number of bytes
+     */
+    public long getBytesSinceReset() {
+        return counter.count - bytesAtReset;
+    }
+
+    /**
+     * Getter for the number of resets
+     *
+     * @return the number of resets
+     */
+    public long getResetCount() {
+        return resets;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        out.writeBoolean(v);
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        out.writeByte(v);
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        out.writeShort(v);
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        out.writeChar(v);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        out.writeInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        out.writeLong(v);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        out.writeFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        out.writeDouble(v);
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+        out.writeBytes(s);
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        out.writeChars(s);
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+        out.writeUTF(s);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void onHandle() {
+        handles++;
+        totalHandles++;
+    }
+
+    /**
+     * Counts the bytes written to the underlying stream
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Counts the handles of a plain stream
+     */
+    private class CountingStream extends ObjectOutputStream {
+
+        CountingStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            onHandle();
+            return obj;
+        }
+
+        @Override
+        protected void annotateClass(Class<?> cl) {
+            onHandle();
+        }
+    }
+
+    /**
+     * Counts the handles of a session stream
+     */
+    private class CountingSessionStream extends SessionObjectOutputStream {
+
+        CountingSessionStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            onHandle();
+            return obj;
+        }
+
+        @Override
+        protected void annotateClass(Class<?> cl) {
+            onHandle();
+        }
+    }
+}
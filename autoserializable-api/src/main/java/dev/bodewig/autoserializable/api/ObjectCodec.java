@@ -0,0 +1,325 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Encodes single objects to byte arrays and decodes them with pooled streams.
+ * <p>
+ * Every encoded message is a complete serialization stream that can also be read by a new {@link ObjectInputStream}.
+ * Instead of creating a new {@link ObjectOutputStream} with its buffers and handle table per message, the codec keeps
+ * a pool of streams with growable buffers and resets them between messages. A stream is only used by one caller at a
+ * time and is taken from the pool without holding a lock during serialization, so the codec can be shared between
+ * platform and virtual threads. Streams that failed or whose buffer grew beyond {@value #MAX_RETAINED_BYTES} bytes are
+ * not returned to the pool.
+ * <p>
+ * Objects encoded into and decoded from a {@link ByteBuffer} are written and read directly, without an intermediate
+ * array, so messages can be exchanged through direct buffers or the {@code asByteBuffer()} view of a memory segment.
+ */
+public final class ObjectCodec {
+
+    /**
+     * The largest buffer kept in the pool
+     */
+    public static final int MAX_RETAINED_BYTES = 1 << 20;
+
+    private static final byte[] HEADER = {(byte) (ObjectStreamConstants.STREAM_MAGIC >>> 8),
+            (byte) ObjectStreamConstants.STREAM_MAGIC, (byte) (ObjectStreamConstants.STREAM_VERSION >>> 8),
+            (byte) ObjectStreamConstants.STREAM_VERSION};
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final ObjectCodec defaultCodec = new ObjectCodec();
+
+    private final BlockingQueue<Encoder> encoders;
+    private final BlockingQueue<Decoder> decoders;
+
+    /**
+     * Creates a new codec that pools two streams per available processor
+     */
+    public ObjectCodec() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new codec
+     *
+     * @param poolSize the maximum number of idle encoders and decoders each
+     * @throws IllegalArgumentException if the pool size is not positive
+     */
+    public ObjectCodec(int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive but is " + poolSize);
+        }
+        this.encoders = new ArrayBlockingQueue<>(poolSize);
+        this.decoders = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Returns a shared codec with the default pool size
+     *
+     * @return the default codec
+     */
+    public static ObjectCodec getDefault() {
+        return defaultCodec;
+    }
+
+    /**
+     * Encodes an object
+     *
+     * @param obj the object to encode
+     * @return the serialization stream of the object
+     * @throws IOException if the object can not be serialized
+     */
+    public byte[] encode(Object obj) throws IOException {
+        Encoder encoder = encoder();
+        encoder.write(obj);
+        byte[] bytes = Arrays.copyOf(encoder.buffer.bytes, encoder.buffer.count);
+        release(encoder);
+        return bytes;
+    }
+
+    /**
+     * Encodes an object directly into a buffer, starting at its position. The position is advanced by the number of
+     * bytes written. The position is kept if the remaining space is too small.
+     *
+     * @param obj    the object to encode
+     * @param target the buffer to write to
+     * @return the number of bytes written
+     * @throws IOException             if the object can not be serialized
+     * @throws BufferOverflowException if the object does not fit into the remaining space of the buffer
+     */
+    public int encode(Object obj, ByteBuffer target) throws IOException {
+        int position = target.position();
+        Encoder encoder = encoder();
+        encoder.buffer.target = target;
+        try {
+            encoder.write(obj);
+        } catch (IOException | RuntimeException e) {
+            target.position(position);
+            throw e;
+        } finally {
+            encoder.buffer.target = null;
+        }
+        release(encoder);
+        return target.position() - position;
+    }
+
+    /**
+     * Decodes an object
+     *
+     * @param bytes the serialization stream of the object
+     * @return the decoded object
+     * @throws IOException            if the object can not be deserialized
+     * @throws ClassNotFoundException if the class of a serialized object can not be found
+     */
+    public Object decode(byte[] bytes) throws IOException, ClassNotFoundException {
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decodes an object from a range of an array
+     *
+     * @param bytes  the array containing the serialization stream of the object
+     * @param offset the start of the stream
+     * @param length the length of the stream
+     * @return the decoded object
+     * @throws IOException            if the object can not be deserialized
+     * @throws ClassNotFoundException if the class of a serialized object can not be found
+     */
+    public Object decode(byte[] bytes, int offset, int length) throws IOException, ClassNotFoundException {
+        return decode(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * Decodes an object directly from a buffer, starting at its position. The position is advanced past the
+     * serialization stream of the object, so consecutive messages can be decoded from the same buffer.
+     *
+     * @param source the buffer containing the serialization stream of the object
+     * @return the decoded object
+     * @throws IOException            if the object can not be deserialized
+     * @throws ClassNotFoundException if the class of a serialized object can not be found
+     */
+    public Object decode(ByteBuffer source) throws IOException, ClassNotFoundException {
+        int position = source.position();
+        if (source.remaining() < HEADER.length) {
+            throw new StreamCorruptedException("Invalid stream header");
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (source.get(position + i) != HEADER[i]) {
+                throw new StreamCorruptedException("Invalid stream header");
+            }
+        }
+        source.position(position + HEADER.length);
+        Decoder decoder = decoder();
+        try {
+            Object obj = decoder.read(source);
+            decoders.offer(decoder);
+            return obj;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            source.position(position);
+            throw e;
+        }
+    }
+
+    private Encoder encoder() throws IOException {
+        Encoder encoder = encoders.poll();
+        return encoder != null ? encoder : new Encoder();
+    }
+
+    private void release(Encoder encoder) throws IOException {
+        if (encoder.buffer.bytes.length <= MAX_RETAINED_BYTES) {
+            encoder.clear();
+            encoders.offer(encoder);
+        }
+    }
+
+    private Decoder decoder() throws IOException {
+        Decoder decoder = decoders.poll();
+        return decoder != null ? decoder : new Decoder();
+    }
+
+    /**
+     * A growable output buffer whose content can be discarded, or a target buffer to write to directly
+     */
+    private static class Buffer extends OutputStream {
+
+        private byte[] bytes = new byte[256];
+        private int count;
+        private ByteBuffer target;
+
+        @Override
+        public void write(int b) {
+            if (target != null) {
+                target.put((byte) b);
+                return;
+            }
+            ensureCapacity(count + 1);
+            bytes[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (target != null) {
+                target.put(b, off, len);
+                return;
+            }
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, bytes, count, len);
+            count += len;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, 2 * bytes.length));
+            }
+        }
+    }
+
+    /**
+     * An object stream that writes each object as a new serialization stream into its buffer
+     */
+    private static class Encoder {
+
+        private final Buffer buffer = new Buffer();
+        private final ObjectOutputStream out;
+
+        Encoder() throws IOException {
+            out = new ObjectOutputStream(buffer);
+            buffer.count = 0;
+        }
+
+        /**
+         * Writes the stream header and the object to the empty buffer or the target. The encoder is not reused if this
+         * fails.
+         */
+        void write(Object obj) throws IOException {
+            buffer.write(HEADER, 0, HEADER.length);
+            out.writeObject(obj);
+            out.flush();
+        }
+
+        /**
+         * Clears the handle table of the stream and empties the buffer
+         */
+        void clear() throws IOException {
+            out.reset();
+            buffer.count = 0;
+        }
+    }
+
+    /**
+     * An input that starts each message with a reset of the handle table
+     */
+    private static class Source extends InputStream {
+
+        private ByteBuffer buffer = ByteBuffer.wrap(HEADER);
+        private boolean reset;
+
+        void set(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.reset = true;
+        }
+
+        void clear() {
+            set(EMPTY);
+        }
+
+        @Override
+        public int read() {
+            if (reset) {
+                reset = false;
+                return ObjectStreamConstants.TC_RESET;
+            }
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (reset) {
+                b[off] = (byte) read();
+                return 1;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return (reset ? 1 : 0) + buffer.remaining();
+        }
+    }
+
+    /**
+     * An object stream that reads each message after resetting its handle table
+     */
+    private static class Decoder {
+
+        private final Source source = new Source();
+        private final ObjectInputStream in;
+
+        Decoder() throws IOException {
+            in = new ObjectInputStream(source);
+        }
+
+        /**
+         * Reads the object of a message without its stream header. The decoder is not reused if this fails.
+         */
+        Object read(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+            source.set(buffer);
+            Object obj = in.readObject();
+            // do not keep the message reachable from the pool
+            source.clear();
+            return obj;
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads objects from a serialization stream, but only decodes selected fields of selected types.
+ * <p>
+ * The fields to decode are selected per type with a {@link GetFieldPlan}, e.g.
+ * {@code GetFieldBuilder.forType(Trade.class).with("price").plan()} or
+ * {@code GetFieldBuilder.forType(Trade.class).all().without("payload").plan()}. Objects of a class with a plan are
+ * allocated and only the fields of the plan are decoded and applied by the plan. The values of all other fields, the
+ * data written by {@code writeObject} methods and classes of the hierarchy without a plan are skipped without creating
+ * objects for them. Objects without a plan in their hierarchy, like the values of selected fields, are decoded
+ * completely, which is only supported for classes that are serialized by their fields, strings, boxed primitives,
+ * enums and arrays.
+ * <p>
+ * The stream may contain any number of objects written by an {@link ObjectOutputStream}, like an archive of
+ * serialized records. Strings are always decoded, as later objects may refer to them. A selected field that refers to
+ * an object that was skipped before can not be read and fails with an {@link InvalidObjectException}, so a plan has
+ * to include all fields that share objects with selected fields.
+ * <p>
+ * Classes are only resolved once an object of them is decoded. They are then checked by the {@link ObjectInputFilter}
+ * of the reader and must have the {@code serialVersionUID} of the stream, like {@link ObjectInputStream} requires.
+ * Skipped objects and their classes are not checked.
+ */
+public final class ProjectionReader extends StreamParser implements Closeable {
+
+    private static final Object SKIPPED = new Object();
+
+    private final Counter counter;
+    private final DataInputStream in;
+    private final Map<Class<?>, GetFieldPlan<?>> plans = new HashMap<>();
+    private long skippedObjects;
+
+    /**
+     * Creates a new reader and reads the stream header. Classes are resolved with the context class loader of the
+     * current thread and checked with the JVM-wide filter.
+     *
+     * @param in    the stream to read from
+     * @param plans the fields to decode, at most one plan per type
+     * @throws IOException              if the stream header can not be read
+     * @throws IllegalArgumentException if there are multiple plans for a type
+     */
+    public ProjectionReader(InputStream in, GetFieldPlan<?>... plans) throws IOException {
+        this(in, Thread.currentThread().getContextClassLoader(), plans);
+    }
+
+    /**
+     * Creates a new reader and reads the stream header. Classes are checked with the JVM-wide filter.
+     *
+     * @param in          the stream to read from
+     * @param classLoader the class loader to resolve classes with or {@code null} to use the loader of this class
+     * @param plans       the fields to decode, at most one plan per type
+     * @throws IOException              if the stream header can not be read
+     * @throws IllegalArgumentException if there are multiple plans for a type
+     */
+    public ProjectionReader(InputStream in, ClassLoader classLoader, GetFieldPlan<?>... plans) throws IOException {
+        this(in, classLoader, null, plans);
+    }
+
+    /**
+     * Creates a new reader and reads the stream header
+     *
+     * @param in          the stream to read from
+     * @param classLoader the class loader to resolve classes with or {@code null} to use the loader of this class
+     * @param filter      the filter to check the decoded objects with or {@code null} to use the JVM-wide filter like a
+     *                    new {@link ObjectInputStream}
+     * @param plans       the fields to decode, at most one plan per type
+     * @throws IOException              if the stream header can not be read
+     * @throws IllegalArgumentException if there are multiple plans for a type
+     */
+    public ProjectionReader(InputStream in, ClassLoader classLoader, ObjectInputFilter filter,
+                            GetFieldPlan<?>... plans) throws IOException {
+        super(classLoader, filter);
+        this.counter = new Counter(in instanceof BufferedInputStream ? in : new BufferedInputStream(in));
+        this.in = new DataInputStream(counter);
+        for (GetFieldPlan<?> plan : plans) {
+            if (this.plans.put(plan.getType(), plan) != null) {
+                throw new IllegalArgumentException("Multiple plans for " + plan.getType().getName());
+            }
+        }
+        if (this.in.readShort() != ObjectStreamConstants.STREAM_MAGIC ||
+                this.in.readShort() != ObjectStreamConstants.STREAM_VERSION) {
+            throw new StreamCorruptedException("Invalid stream header");
+        }
+    }
+
+    /**
+     * Reads the next object of the stream
+     *
+     * @return the object with the fields selected by the plans of its classes
+     * @throws EOFException           if the end of the stream is reached
+     * @throws InvalidClassException  if the filter rejects a class of a decoded object or its
+     *                                {@code serialVersionUID} does not match the local class
+     * @throws IOException            if the stream is invalid or contains objects that can not be decoded
+     * @throws ClassNotFoundException if a class of a decoded object can not be found
+     */
+    public Object readObject() throws IOException, ClassNotFoundException {
+        while (peek() == ObjectStreamConstants.TC_RESET) {
+            in.readByte();
+            clearHandles();
+        }
+        return readContent(true);
+    }
+
+    /**
+     * Getter for skippedObjects
+     *
+     * @return the number of objects and arrays skipped by this reader
+     */
+    public long getSkippedObjects() {
+        return skippedObjects;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Object readContent(boolean decode) throws IOException, ClassNotFoundException {
+        depth++;
+        try {
+            return readContent0(decode);
+        } finally {
+            depth--;
+        }
+    }
+
+    private Object readContent0(boolean decode) throws IOException, ClassNotFoundException {
+        byte tc = in.readByte();
+        switch (tc) {
+            case ObjectStreamConstants.TC_NULL:
+                return null;
+            case ObjectStreamConstants.TC_REFERENCE: {
+                Object object = handle(in.readInt());
+                if (object instanceof Desc) {
+                    throw new StreamCorruptedException("Reference to a class descriptor instead of an object");
+                }
+                if (decode && object == SKIPPED) {
+                    throw new InvalidObjectException("A selected field refers to a skipped object");
+                }
+                references++;
+                filterCheck(null, -1);
+                return object;
+            }
+            case ObjectStreamConstants.TC_STRING, ObjectStreamConstants.TC_LONGSTRING:
+                return readString(tc);
+            case ObjectStreamConstants.TC_OBJECT:
+                return readOrdinaryObject(decode);
+            case ObjectStreamConstants.TC_ARRAY:
+                return readArray(decode);
+            case ObjectStreamConstants.TC_ENUM:
+                return readEnum(decode);
+            case ObjectStreamConstants.TC_CLASS: {
+                Desc desc = readClassDesc();
+                if (desc == null) {
+                    throw new StreamCorruptedException("Class without class descriptor");
+                }
+                int handle = newHandle();
+                return setHandle(handle, decode ? desc.type() : SKIPPED);
+            }
+            default:
+                throw new StreamCorruptedException(String.format("Invalid type code: %02X", tc));
+        }
+    }
+
+    private Object readOrdinaryObject(boolean decode) throws IOException, ClassNotFoundException {
+        Desc desc = readClassDesc();
+        if (desc == null) {
+            throw new StreamCorruptedException("Object without class descriptor");
+        }
+        int handle = newHandle();
+        if (!decode) {
+            for (Desc slot : desc.slots) {
+                skipSlot(slot);
+            }
+            skippedObjects++;
+            return setHandle(handle, SKIPPED);
+        }
+        // checks the filter, Serializable and the serialVersionUID before the object is allocated
+        Class<?> type = desc.type();
+        if (BOXES.contains(type)) {
+            Object box = null;
+            for (Desc slot : desc.slots) {
+                for (char code : slot.codes) {
+                    box = readBoxed(code);
+                }
+                skipAnnotation(slot);
+            }
+            return setHandle(handle, box);
+        }
+        boolean projected = isProjected(desc);
+        if (!projected && !desc.isDecodable()) {
+            throw new InvalidClassException(type.getName(), "can not be decoded without a plan");
+        }
+        Object object = allocate(type);
+        setHandle(handle, object);
+        if (projected) {
+            for (Desc slot : desc.slots) {
+                GetFieldPlan<?> plan = plans.get(slot.type());
+                if (plan == null) {
+                    skipSlot(slot);
+                } else {
+                    readProjectedSlot(slot, plan, object);
+                }
+            }
+        } else {
+            for (Desc slot : desc.slots) {
+                readSlot(slot, object);
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Checks if a class of the hierarchy has a plan
+     */
+    private boolean isProjected(Desc desc) throws ClassNotFoundException, InvalidClassException {
+        for (Desc slot : desc.slots) {
+            if (plans.containsKey(slot.type())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void readSlot(Desc slot, Object object) throws IOException, ClassNotFoundException {
+        FieldAccessor[] accessors = slot.accessors();
+        try {
+            for (int i = 0; i < slot.codes.length; i++) {
+                FieldAccessor accessor = accessors[i];
+                if (accessor == null) {
+                    skipValue(slot.codes[i]);
+                    continue;
+                }
+                switch (slot.codes[i]) {
+                    case 'Z' -> accessor.setBoolean(object, in.readBoolean());
+                    case 'B' -> accessor.setByte(object, in.readByte());
+                    case 'C' -> accessor.setChar(object, in.readChar());
+                    case 'S' -> accessor.setShort(object, in.readShort());
+                    case 'I' -> accessor.setInt(object, in.readInt());
+                    case 'F' -> accessor.setFloat(object, in.readFloat());
+                    case 'J' -> accessor.setLong(object, in.readLong());
+                    case 'D' -> accessor.setDouble(object, in.readDouble());
+                    default -> accessor.set(object, readContent(true));
+                }
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            InvalidClassException exception = new InvalidClassException(slot.name, "can not set field");
+            exception.initCause(e);
+            throw exception;
+        }
+        skipAnnotation(slot);
+    }
+
+    @SuppressWarnings("unchecked") // the plan belongs to the class of the slot
+    private void readProjectedSlot(Desc slot, GetFieldPlan<?> plan, Object object)
+            throws IOException, ClassNotFoundException {
+        if ((slot.flags & ObjectStreamConstants.SC_EXTERNALIZABLE) != 0) {
+            throw new InvalidClassException(slot.name, "Externalizable classes can not be projected");
+        }
+        if (!hasFieldData(slot)) {
+            throw new InvalidClassException(slot.name, "writeObject wrote no field data to project");
+        }
+        Fields fields = fields(slot, plan);
+        for (int i = 0; i < slot.codes.length; i++) {
+            if (!fields.selected[i]) {
+                skipValue(slot.codes[i]);
+                continue;
+            }
+            switch (slot.codes[i]) {
+                case 'Z' -> fields.primitives[i] = in.readBoolean() ? 1 : 0;
+                case 'B' -> fields.primitives[i] = in.readByte();
+                case 'C' -> fields.primitives[i] = in.readChar();
+                case 'S' -> fields.primitives[i] = in.readShort();
+                case 'I', 'F' -> fields.primitives[i] = in.readInt();
+                case 'J', 'D' -> fields.primitives[i] = in.readLong();
+                default -> fields.objects[i] = readContent(true);
+            }
+        }
+        skipAnnotation(slot);
+        try {
+            ((GetFieldPlan<Object>) plan).readFields(fields, object);
+        } catch (Exception e) {
+            throw new FieldBuilderException(e);
+        } finally {
+            Arrays.fill(fields.objects, null);
+        }
+    }
+
+    /**
+     * Returns the reusable fields of a slot for its plan
+     */
+    private static Fields fields(Desc slot, GetFieldPlan<?> plan) throws ClassNotFoundException, InvalidClassException {
+        if (slot.state == null) {
+            boolean[] selected = new boolean[slot.codes.length];
+            for (int i = 0; i < slot.codes.length; i++) {
+                selected[i] = plan.fieldNames().contains(slot.names[i]);
+            }
+            if ((slot.flags & ObjectStreamConstants.SC_WRITE_METHOD) != 0 && slot.codes.length == 0 &&
+                    !plan.fieldNames().isEmpty()) {
+                // the writeObject method writes the fields in its own form, like codegen=direct does
+                throw new InvalidClassException(slot.name,
+                        "fields " + plan.fieldNames() + " are not written as field data and can not be projected");
+            }
+            slot.state = new Fields(ObjectStreamClass.lookup(slot.type()), slot.names, selected);
+        }
+        return (Fields) slot.state;
+    }
+
+    private void skipSlot(Desc slot) throws IOException, ClassNotFoundException {
+        if ((slot.flags & ObjectStreamConstants.SC_EXTERNALIZABLE) != 0) {
+            if ((slot.flags & ObjectStreamConstants.SC_BLOCK_DATA) == 0) {
+                throw new InvalidClassException(slot.name, "Externalizable data without block data can not be skipped");
+            }
+            skipBlockData();
+            return;
+        }
+        if (!hasFieldData(slot)) {
+            skipBlockData();
+            return;
+        }
+        for (char code : slot.codes) {
+            skipValue(code);
+        }
+        skipAnnotation(slot);
+    }
+
+    private void skipValue(char code) throws IOException, ClassNotFoundException {
+        if (!skipPrimitive(code)) {
+            readContent(false);
+        }
+    }
+
+    private Object readArray(boolean decode) throws IOException, ClassNotFoundException {
+        Desc desc = readClassDesc();
+        if (desc == null || desc.name == null || desc.name.length() < 2 || desc.name.charAt(0) != '[') {
+            throw new StreamCorruptedException("Array without array class descriptor");
+        }
+        int handle = newHandle();
+        int length = readArrayLength();
+        if (!decode) {
+            if (!skipPrimitives(desc.name.charAt(1), length)) {
+                for (int i = 0; i < length; i++) {
+                    readContent(false);
+                }
+            }
+            skippedObjects++;
+            return setHandle(handle, SKIPPED);
+        }
+        Class<?> type = desc.type();
+        filterCheck(type, length);
+        Class<?> componentType = type.getComponentType();
+        Object array = Array.newInstance(componentType, length);
+        setHandle(handle, array);
+        if (componentType.isPrimitive()) {
+            readPrimitives(array);
+        } else {
+            Object[] values = (Object[]) array;
+            try {
+                for (int i = 0; i < length; i++) {
+                    values[i] = readContent(true);
+                }
+            } catch (ArrayStoreException e) {
+                InvalidClassException exception = new InvalidClassException(desc.name, "invalid element");
+                exception.initCause(e);
+                throw exception;
+            }
+        }
+        return array;
+    }
+
+    private Object readEnum(boolean decode) throws IOException, ClassNotFoundException {
+        Desc desc = readClassDesc();
+        if (desc == null) {
+            throw new StreamCorruptedException("Enum without class descriptor");
+        }
+        int handle = newHandle();
+        String name = readStringContent("Enum constant name");
+        return setHandle(handle, decode ? enumConstant(desc, name) : SKIPPED);
+    }
+
+    @Override
+    void skipContent() throws IOException, ClassNotFoundException {
+        readContent(false);
+    }
+
+    @Override
+    int peek() throws IOException {
+        in.mark(1);
+        int tc = in.read();
+        if (tc < 0) {
+            throw new EOFException();
+        }
+        in.reset();
+        return tc;
+    }
+
+    @Override
+    byte readByte() throws IOException {
+        return in.readByte();
+    }
+
+    @Override
+    short readShort() throws IOException {
+        return in.readShort();
+    }
+
+    @Override
+    int readInt() throws IOException {
+        return in.readInt();
+    }
+
+    @Override
+    long readLong() throws IOException {
+        return in.readLong();
+    }
+
+    @Override
+    void readFully(byte[] target, int offset, int length) throws IOException {
+        in.readFully(target, offset, length);
+    }
+
+    @Override
+    void skipBytes(long count) throws IOException {
+        in.skipNBytes(count);
+    }
+
+    @Override
+    long position() {
+        return counter.count;
+    }
+
+    /**
+     * Counts the bytes read from the stream for the filter
+     */
+    private static final class Counter extends FilterInputStream {
+
+        long count;
+        private long mark;
+
+        Counter(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+            super.mark(readlimit);
+            mark = count;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            count = mark;
+        }
+    }
+
+    /**
+     * The selected fields of a class as read from the stream, passed to the plan of the class
+     */
+    private static final class Fields extends ObjectInputStream.GetField {
+
+        final ObjectStreamClass streamClass;
+        final String[] names;
+        final boolean[] selected;
+        final long[] primitives;
+        final Object[] objects;
+
+        Fields(ObjectStreamClass streamClass, String[] names, boolean[] selected) {
+            this.streamClass = streamClass;
+            this.names = names;
+            this.selected = selected;
+            this.primitives = new long[names.length];
+            this.objects = new Object[names.length];
+        }
+
+        private int index(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (selected[i] && names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public ObjectStreamClass getObjectStreamClass() {
+            return streamClass;
+        }
+
+        @Override
+        public boolean defaulted(String name) {
+            return index(name) < 0;
+        }
+
+        @Override
+        public boolean get(String name, boolean val) {
+            int index = index(name);
+            return index < 0 ? val : primitives[index] != 0;
+        }
+
+        @Override
+        public byte get(String name, byte val) {
+            int index = index(name);
+            return index < 0 ? val : (byte) primitives[index];
+        }
+
+        @Override
+        public char get(String name, char val) {
+            int index = index(name);
+            return index < 0 ? val : (char) primitives[index];
+        }
+
+        @Override
+        public short get(String name, short val) {
+            int index = index(name);
+            return index < 0 ? val : (short) primitives[index];
+        }
+
+        @Override
+        public int get(String name, int val) {
+            int index = index(name);
+            return index < 0 ? val : (int) primitives[index];
+        }
+
+        @Override
+        public long get(String name, long val) {
+            int index = index(name);
+            return index < 0 ? val : primitives[index];
+        }
+
+        @Override
+        public float get(String name, float val) {
+            int index = index(name);
+            return index < 0 ? val : Float.intBitsToFloat((int) primitives[index]);
+        }
+
+        @Override
+        public double get(String name, double val) {
+            int index = index(name);
+            return index < 0 ? val : Double.longBitsToDouble(primitives[index]);
+        }
+
+        @Override
+        public Object get(String name, Object val) {
+            int index = index(name);
+            return index < 0 ? val : objects[index];
+        }
+    }
+}
@@ -2,14 +2,10 @@ package dev.bodewig.autoserializable.api;
 
 import dev.bodewig.autoserializable.api.function.*;
 
-import java.io.*;
-import java.lang.reflect.Field;
-import java.util.Arrays;
+import java.io.ObjectOutputStream;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.function.*;
-import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 /**
  * Immutable builder for {@link java.io.ObjectOutputStream.PutField}
@@ -19,26 +15,31 @@ import java.util.stream.Collectors;
 @SuppressWarnings("unused")
 public class PutFieldBuilder<T> {
 
-    private static final Logger logger = Logger.getLogger(PutFieldBuilder.class.getCanonicalName());
-    private final Map<String, Consumer<ObjectOutputStream.PutField>> putOperations;
+    private final Map<String, PutFieldPlan.Operation<T>> putOperations;
     private final T object;
-    private final Map<String, ObjectStreamField> serializedFields;
+    private final FieldLayout<T> layout;
+    private PutFieldPlan<T> plan;
 
     /**
      * Internal constructor to initialize the fields
      *
      * @param object the instance to serialize
      */
+    @SuppressWarnings("unchecked") // the runtime type of the object is a T
     protected PutFieldBuilder(T object) {
+        this((Class<T>) object.getClass(), object);
+    }
+
+    /**
+     * Internal constructor to initialize the fields
+     *
+     * @param type   the type to serialize
+     * @param object the instance to serialize or {@code null} if the builder is used to create a plan
+     */
+    protected PutFieldBuilder(Class<T> type, T object) {
         this.putOperations = new TreeMap<>();
         this.object = object;
-
-        ObjectStreamClass streamClass = ObjectStreamClass.lookup(object.getClass());
-        if (streamClass == null) {
-            throw new FieldBuilderException(new NotSerializableException(object.getClass().getCanonicalName()));
-        }
-        serializedFields = Arrays.stream(streamClass.getFields())
-                .collect(Collectors.toMap(ObjectStreamField::getName, Function.identity()));
+        this.layout = FieldLayout.of(type);
     }
 
     /**
@@ -52,57 +53,103 @@ public class PutFieldBuilder<T> {
         return new PutFieldBuilder<>(object);
     }
 
+    /**
+     * Creates a new {@code PutFieldBuilder} for the supplied type that is not bound to an instance.
+     * <p>
+     * Use {@link #plan()} to create a reusable {@link PutFieldPlan} from the builder.
+     *
+     * @param type the type to serialize
+     * @param <T>  the type to serialize
+     * @return the builder instance
+     */
+    public static <T> PutFieldBuilder<T> forType(Class<T> type) {
+        return new PutFieldBuilder<>(type, null);
+    }
+
     /**
      * Writes all fields from the object descriptor to the stream
      *
      * @return the builder instance
      */
     public PutFieldBuilder<T> all() {
-        return with(serializedFields.keySet().toArray(new String[0]));
+        return with(layout.serializedFieldNames());
     }
 
     /**
-     * Writes the fields to the stream
+     * Writes the fields to the stream. The values of a builder bound to an instance are read when the fields are
+     * added, the values of a plan when it is applied.
      *
      * @param fieldNames the fields to write
      * @return the builder instance
      */
     public PutFieldBuilder<T> with(String... fieldNames) {
         for (String fieldName : fieldNames) {
+            assertFieldInDescriptor(fieldName);
+            FieldAccessor accessor = layout.accessor(fieldName);
             try {
-                Field f = object.getClass().getDeclaredField(fieldName);
-                f.setAccessible(true);
-                Object value = f.get(object);
-                if (f.getType().isPrimitive()) {
-                    if (f.getType().equals(boolean.class)) {
-                        putOperations.put(fieldName, pf -> pf.put(fieldName, (boolean) value));
-                    } else if (f.getType().equals(byte.class)) {
-                        putOperations.put(fieldName, pf -> pf.put(fieldName, (byte) value));
-                    } else if (f.getType().equals(char.class)) {
-                        putOperations.put(fieldName, pf -> pf.put(fieldName, (char) value));
-                    } else if (f.getType().equals(short.class)) {
-                        putOperations.put(fieldName, pf -> pf.put(fieldName, (short) value));
-                    } else if (f.getType().equals(int.class)) {
-                        putOperations.put(fieldName, pf -> pf.put(fieldName, (int) value));
-                    } else if (f.getType().equals(float.class)) {
-                        putOperations.put(fieldName, pf -> pf.put(fieldName, (float) value));
-                    } else if (f.getType().equals(long.class)) {
-                        putOperations.put(fieldName, pf -> pf.put(fieldName, (long) value));
-                    } else if (f.getType().equals(double.class)) {
-                        putOperations.put(fieldName, pf -> pf.put(fieldName, (double) value));
-                    } else {
-                        throw new IllegalStateException("Class <" + value.getClass() + "> is not primitive");
-                    }
-                } else {
-                    putOperations.put(fieldName, pf -> pf.put(fieldName, value));
-                }
-            } catch (IllegalStateException | IllegalAccessException | NoSuchFieldException e) {
+                putOperations.put(fieldName, object == null ? operation(fieldName, accessor) :
+                        capture(fieldName, accessor, object));
+            } catch (IllegalAccessException e) {
                 throw new FieldBuilderException(e);
             }
         }
         return this;
     }
 
+    private static <T> PutFieldPlan.Operation<T> operation(String fieldName, FieldAccessor a) {
+        Class<?> type = a.field().getType();
+        if (type == boolean.class) {
+            return (pf, o) -> pf.put(fieldName, a.getBoolean(o));
+        } else if (type == byte.class) {
+            return (pf, o) -> pf.put(fieldName, a.getByte(o));
+        } else if (type == char.class) {
+            return (pf, o) -> pf.put(fieldName, a.getChar(o));
+        } else if (type == short.class) {
+            return (pf, o) -> pf.put(fieldName, a.getShort(o));
+        } else if (type == int.class) {
+            return (pf, o) -> pf.put(fieldName, a.getInt(o));
+        } else if (type == float.class) {
+            return (pf, o) -> pf.put(fieldName, a.getFloat(o));
+        } else if (type == long.class) {
+            return (pf, o) -> pf.put(fieldName, a.getLong(o));
+        } else if (type == double.class) {
+            return (pf, o) -> pf.put(fieldName, a.getDouble(o));
+        }
+        return (pf, o) -> pf.put(fieldName, a.get(o));
+    }
+
+    private static <T> PutFieldPlan.Operation<T> capture(String fieldName, FieldAccessor a, T object)
+            throws IllegalAccessException {
+        Class<?> type = a.field().getType();
+        if (type == boolean.class) {
+            boolean value = a.getBoolean(object);
+            return (pf, o) -> pf.put(fieldName, value);
+        } else if (type == byte.class) {
+            byte value = a.getByte(object);
+            return (pf, o) -> pf.put(fieldName, value);
+        } else if (type == char.class) {
+            char value = a.getChar(object);
+            return (pf, o) -> pf.put(fieldName, value);
+        } else if (type == short.class) {
+            short value = a.getShort(object);
+            return (pf, o) -> pf.put(fieldName, value);
+        } else if (type == int.class) {
+            int value = a.getInt(object);
+            return (pf, o) -> pf.put(fieldName, value);
+        } else if (type == float.class) {
+            float value = a.getFloat(object);
+            return (pf, o) -> pf.put(fieldName, value);
+        } else if (type == long.class) {
+            long value = a.getLong(object);
+            return (pf, o) -> pf.put(fieldName, value);
+        } else if (type == double.class) {
+            double value = a.getDouble(object);
+            return (pf, o) -> pf.put(fieldName, value);
+        }
+        Object value = a.get(object);
+        return (pf, o) -> pf.put(fieldName, value);
+    }
+
     /**
      * Skips the fields from being written
      *
@@ -111,7 +158,7 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> without(String... fieldNames) {
         for (String name : fieldNames) {
-            if (!serializedFields.containsKey(name)) {
+            if (!layout.isSerialized(name)) {
                 throw new FieldBuilderException(new NoSuchFieldException(name));
             }
             putOperations.remove(name);
@@ -128,10 +175,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> put(String fieldName, boolean value) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return put(fieldName, (Object) value);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, value));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, value));
         return this;
     }
 
@@ -144,10 +191,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> put(String fieldName, byte value) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return put(fieldName, (Object) value);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, value));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, value));
         return this;
     }
 
@@ -160,10 +207,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> put(String fieldName, char value) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return put(fieldName, (Object) value);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, value));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, value));
         return this;
     }
 
@@ -176,10 +223,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> put(String fieldName, short value) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return put(fieldName, (Object) value);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, value));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, value));
         return this;
     }
 
@@ -192,10 +239,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> put(String fieldName, int value) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return put(fieldName, (Object) value);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, value));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, value));
         return this;
     }
 
@@ -208,10 +255,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> put(String fieldName, float value) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return put(fieldName, (Object) value);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, value));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, value));
         return this;
     }
 
@@ -224,10 +271,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> put(String fieldName, long value) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return put(fieldName, (Object) value);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, value));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, value));
         return this;
     }
 
@@ -240,10 +287,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> put(String fieldName, double value) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return put(fieldName, (Object) value);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, value));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, value));
         return this;
     }
 
@@ -256,7 +303,7 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> put(String fieldName, Object value) {
         assertFieldInDescriptor(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, value));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, value));
         return this;
     }
 
@@ -269,10 +316,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, BooleanSupplier function) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return putComputed(fieldName, (Supplier<Object>) function::getAsBoolean);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.getAsBoolean()));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.getAsBoolean()));
         return this;
     }
 
@@ -285,10 +332,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, CharSupplier function) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return putComputed(fieldName, (Supplier<Object>) function::getAsChar);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.getAsChar()));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.getAsChar()));
         return this;
     }
 
@@ -301,10 +348,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, ByteSupplier function) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return putComputed(fieldName, (Supplier<Object>) function::getAsByte);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.getAsByte()));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.getAsByte()));
         return this;
     }
 
@@ -317,10 +364,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, ShortSupplier function) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return putComputed(fieldName, (Supplier<Object>) function::getAsShort);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.getAsShort()));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.getAsShort()));
         return this;
     }
 
@@ -333,10 +380,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, IntSupplier function) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return putComputed(fieldName, (Supplier<Object>) function::getAsInt);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.getAsInt()));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.getAsInt()));
         return this;
     }
 
@@ -349,10 +396,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, FloatSupplier function) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return putComputed(fieldName, (Supplier<Object>) function::getAsFloat);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.getAsFloat()));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.getAsFloat()));
         return this;
     }
 
@@ -365,10 +412,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, LongSupplier function) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return putComputed(fieldName, (Supplier<Object>) function::getAsLong);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.getAsLong()));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.getAsLong()));
         return this;
     }
 
@@ -381,10 +428,10 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, DoubleSupplier function) {
         assertFieldInDescriptor(fieldName);
-        if (!serializedFields.get(fieldName).getType().isPrimitive()) {
+        if (!layout.serializedField(fieldName).getType().isPrimitive()) {
             return putComputed(fieldName, (Supplier<Object>) function::getAsDouble);
         }
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.getAsDouble()));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.getAsDouble()));
         return this;
     }
 
@@ -397,7 +444,7 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, Supplier<?> function) {
         assertFieldInDescriptor(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.get()));
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.get()));
         return this;
     }
 
@@ -410,7 +457,7 @@ public class PutFieldBuilder<T> {
      */
     public PutFieldBuilder<T> putComputed(String fieldName, Consumer<ObjectOutputStream.PutField> function) {
         assertFieldInDescriptor(fieldName);
-        putOperations.put(fieldName, function);
+        putOperations.put(fieldName, (pf, o) -> function.accept(pf));
         return this;
     }
 
@@ -422,8 +469,8 @@ public class PutFieldBuilder<T> {
      * @return the builder instance
      */
     public PutFieldBuilder<T> putTransformed(String fieldName, BooleanUnaryOperator function) {
-        boolean value = getFieldValue(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.applyAsBoolean(value)));
+        FieldAccessor a = layout.accessor(fieldName);
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.applyAsBoolean(a.getBoolean(o))));
         return this;
     }
 
@@ -435,8 +482,8 @@ public class PutFieldBuilder<T> {
      * @return the builder instance
      */
     public PutFieldBuilder<T> putTransformed(String fieldName, CharUnaryOperator function) {
-        char value = getFieldValue(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.applyAsChar(value)));
+        FieldAccessor a = layout.accessor(fieldName);
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.applyAsChar(a.getChar(o))));
         return this;
     }
 
@@ -448,8 +495,8 @@ public class PutFieldBuilder<T> {
      * @return the builder instance
      */
     public PutFieldBuilder<T> putTransformed(String fieldName, ByteUnaryOperator function) {
-        byte value = getFieldValue(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.applyAsByte(value)));
+        FieldAccessor a = layout.accessor(fieldName);
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.applyAsByte(a.getByte(o))));
         return this;
     }
 
@@ -461,8 +508,8 @@ public class PutFieldBuilder<T> {
      * @return the builder instance
      */
     public PutFieldBuilder<T> putTransformed(String fieldName, ShortUnaryOperator function) {
-        short value = getFieldValue(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.applyAsShort(value)));
+        FieldAccessor a = layout.accessor(fieldName);
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.applyAsShort(a.getShort(o))));
         return this;
     }
 
@@ -474,8 +521,8 @@ public class PutFieldBuilder<T> {
      * @return the builder instance
      */
     public PutFieldBuilder<T> putTransformed(String fieldName, IntUnaryOperator function) {
-        int value = getFieldValue(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.applyAsInt(value)));
+        FieldAccessor a = layout.accessor(fieldName);
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.applyAsInt(a.getInt(o))));
         return this;
     }
 
@@ -487,8 +534,8 @@ public class PutFieldBuilder<T> {
      * @return the builder instance
      */
     public PutFieldBuilder<T> putTransformed(String fieldName, FloatUnaryOperator function) {
-        float value = getFieldValue(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.applyAsFloat(value)));
+        FieldAccessor a = layout.accessor(fieldName);
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.applyAsFloat(a.getFloat(o))));
         return this;
     }
 
@@ -500,8 +547,8 @@ public class PutFieldBuilder<T> {
      * @return the builder instance
      */
     public PutFieldBuilder<T> putTransformed(String fieldName, LongUnaryOperator function) {
-        long value = getFieldValue(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.applyAsLong(value)));
+        FieldAccessor a = layout.accessor(fieldName);
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.applyAsLong(a.getLong(o))));
         return this;
     }
 
@@ -513,8 +560,8 @@ public class PutFieldBuilder<T> {
      * @return the builder instance
      */
     public PutFieldBuilder<T> putTransformed(String fieldName, DoubleUnaryOperator function) {
-        double value = getFieldValue(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.applyAsDouble(value)));
+        FieldAccessor a = layout.accessor(fieldName);
+        putOperations.put(fieldName, (pf, o) -> pf.put(fieldName, function.applyAsDouble(a.getDouble(o))));
         return this;
     }
 
@@ -527,43 +574,48 @@ public class PutFieldBuilder<T> {
      * @return the builder instance
      */
     public <V> PutFieldBuilder<T> putTransformed(String fieldName, UnaryOperator<V> function) {
-        V value = getFieldValue(fieldName);
-        putOperations.put(fieldName, pf -> pf.put(fieldName, function.apply(value)));
+        FieldAccessor a = layout.accessor(fieldName);
+        putOperations.put(fieldName,
+                (pf, o) -> pf.put(fieldName, function.apply(PutFieldBuilder.<V>getFieldValue(a, o))));
         return this;
     }
 
+    /**
+     * Creates an immutable and reusable plan from the current state of the builder. The plan is cached until the
+     * builder changes.
+     *
+     * @return the plan
+     */
+    public PutFieldPlan<T> plan() {
+        if (plan == null || !plan.isPlanOf(putOperations)) {
+            plan = new PutFieldPlan<>(layout, putOperations);
+        }
+        return plan;
+    }
+
     /**
      * Applies the builder by writing the values to the stream
      *
      * @param out the stream to write to
      */
     public void writeFields(ObjectOutputStream out) {
-        try {
-            ObjectOutputStream.PutField putField = out.putFields();
-            logger.info("putFields: " + putOperations.keySet());
-            putOperations.values().forEach(op -> op.accept(putField));
-            out.writeFields();
-        } catch (IOException e) {
-            throw new FieldBuilderException(e);
+        if (object == null) {
+            throw new FieldBuilderException("The builder for " + layout.type().getCanonicalName() +
+                    " is not bound to an instance. Use plan().writeFields(out, object) instead.");
         }
+        plan().writeFields(out, object);
     }
 
     @SuppressWarnings("unchecked") // responsibility of the caller
-    private <V> V getFieldValue(String fieldName) {
-        try {
-            Field f = object.getClass().getDeclaredField(fieldName);
-            f.setAccessible(true);
-            return (V) f.get(object);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new FieldBuilderException(e);
-        }
+    private static <V> V getFieldValue(FieldAccessor accessor, Object object) throws IllegalAccessException {
+        return (V) accessor.get(object);
     }
 
     private void assertFieldInDescriptor(String fieldName) {
-        if (!serializedFields.containsKey(fieldName)) {
+        if (!layout.isSerialized(fieldName)) {
             throw new FieldBuilderException(
                     "Field '" + fieldName + "' is not part of the serialization descriptor for this version of " +
-                            this.object.getClass().getCanonicalName() +
+                            layout.type().getCanonicalName() +
                             ". Did you exclude it by setting @SerialPersistenFields?");
         }
     }
@@ -0,0 +1,109 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Immutable and thread-safe plan to write the fields of a type to {@link java.io.ObjectOutputStream.PutField}.
+ * <p>
+ * Plans are created by {@link PutFieldBuilder#plan()} and resolve all field names and accessors once. They are meant
+ * to be built once per type, e.g. in a static field of an {@link AutoSerializer}, and applied to every serialized
+ * instance.
+ *
+ * @param <T> the type to serialize
+ */
+public final class PutFieldPlan<T> {
+
+    private static final Logger logger = Logger.getLogger(PutFieldPlan.class.getCanonicalName());
+    private final Class<T> type;
+    private final List<String> fieldNames;
+    private final Operation<T>[] operations;
+
+    /**
+     * Internal constructor to resolve the operations
+     *
+     * @param layout     the fields of the type
+     * @param operations the operations by field name
+     */
+    @SuppressWarnings("unchecked") // generic array creation
+    PutFieldPlan(FieldLayout<T> layout, Map<String, Operation<T>> operations) {
+        this.type = layout.type();
+        this.fieldNames = List.copyOf(operations.keySet());
+        this.operations = operations.values().toArray(new Operation[0]);
+        logger.fine(() -> "putFields: " + fieldNames);
+    }
+
+    /**
+     * Applies the plan by writing the values of the object to the stream
+     *
+     * @param out    the stream to write to
+     * @param object the instance to serialize
+     */
+    public void writeFields(ObjectOutputStream out, T object) {
+        try {
+            ObjectOutputStream.PutField putField = out.putFields();
+            for (Operation<T> operation : operations) {
+                operation.put(putField, object);
+            }
+            out.writeFields();
+        } catch (IOException | ReflectiveOperationException e) {
+            throw new FieldBuilderException(e);
+        }
+    }
+
+    /**
+     * Getter for type
+     *
+     * @return type
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Checks if the plan was created from the current operations of a builder, which replaces the operation of a field
+     * whenever the field is configured
+     *
+     * @param operations the operations by field name
+     * @return {@code true} if the plan applies the same operations
+     */
+    boolean isPlanOf(Map<String, Operation<T>> operations) {
+        if (operations.size() != this.operations.length) {
+            return false;
+        }
+        int i = 0;
+        for (Map.Entry<String, Operation<T>> entry : operations.entrySet()) {
+            if (!entry.getKey().equals(fieldNames.get(i)) || entry.getValue() != this.operations[i]) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "PutFieldPlan{" + "type=" + type.getName() + ", fields=" + fieldNames + '}';
+    }
+
+    /**
+     * A single write operation of the plan
+     *
+     * @param <T> the type to serialize
+     */
+    @FunctionalInterface
+    interface Operation<T> {
+
+        /**
+         * Puts a value of the object into the {@code PutField}
+         *
+         * @param putField the {@code PutField} to write to
+         * @param object   the instance to serialize
+         * @throws ReflectiveOperationException if the value of the object can not be read
+         */
+        void put(ObjectOutputStream.PutField putField, T object) throws ReflectiveOperationException;
+    }
+}
@@ -0,0 +1,80 @@
+package dev.bodewig.autoserializable.api;
+
+/**
+ * Decides when a {@link ManagedObjectOutputStream} resets its handle table.
+ * <p>
+ * The policy is checked after every object written to the stream, so an object graph is never split by a reset.
+ * Policies are stateless and can be shared between streams.
+ */
+@FunctionalInterface
+public interface ResetPolicy {
+
+    /**
+     * The minimum number of handles the {@link #adaptive() adaptive} policy keeps before resetting
+     */
+    int ADAPTIVE_MIN_HANDLES = 1024;
+
+    /**
+     * The number of average objects the {@link #adaptive() adaptive} policy keeps in the handle table
+     */
+    int ADAPTIVE_OBJECTS = 8;
+
+    /**
+     * Checks if the stream should reset its handle table
+     *
+     * @param stream the stream that wrote an object
+     * @return {@code true} to reset the stream
+     */
+    boolean shouldReset(ManagedObjectOutputStream stream);
+
+    /**
+     * Never resets the stream
+     *
+     * @return the policy
+     */
+    static ResetPolicy never() {
+        return stream -> false;
+    }
+
+    /**
+     * Resets the stream after every {@code n} objects
+     *
+     * @param n the number of objects between resets
+     * @return the policy
+     * @throws IllegalArgumentException if {@code n} is not positive
+     */
+    static ResetPolicy everyObjects(long n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Number of objects must be positive but is " + n);
+        }
+        return stream -> stream.getObjectsSinceReset() >= n;
+    }
+
+    /**
+     * Resets the stream as soon as {@code n} bytes were written since the last reset
+     *
+     * @param n the number of bytes between resets
+     * @return the policy
+     * @throws IllegalArgumentException if {@code n} is not positive
+     */
+    static ResetPolicy everyBytes(long n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Number of bytes must be positive but is " + n);
+        }
+        return stream -> stream.getBytesSinceReset() >= n;
+    }
+
+    /**
+     * Resets the stream as soon as the handle table holds more than {@value #ADAPTIVE_OBJECTS} times the handles an
+     * object added on average, but at least {@value #ADAPTIVE_MIN_HANDLES} handles. Streams of small objects reset
+     * rarely and reuse their class descriptors, while streams of large object graphs reset after few objects.
+     *
+     * @return the policy
+     */
+    static ResetPolicy adaptive() {
+        return stream -> {
+            long average = stream.getTotalHandleCount() / Math.max(1, stream.getObjectCount());
+            return stream.getHandleCount() > Math.max(ADAPTIVE_MIN_HANDLES, ADAPTIVE_OBJECTS * average);
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package dev.bodewig.autoserializable.api;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Describes how the JDK serializes and instantiates a class, shared by the readers and copiers that work on the
+ * fields of objects directly.
+ */
+final class SerialClass {
+
+    private static final ClassValue<Boolean> customSerialized = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return computeCustomSerialized(type);
+        }
+    };
+    private static final ClassValue<Constructor<?>> constructors = new ClassValue<>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            return SerializationConstructors.of(type);
+        }
+    };
+
+    private SerialClass() {
+    }
+
+    /**
+     * Checks if a single class is serialized by its own methods or a custom {@link AutoSerializer} instead of its
+     * fields. Transformed classes are only custom serialized if their injected serializer is not the default one or
+     * they are written in the {@link DirectSerialForm}.
+     *
+     * @param type the class
+     * @return {@code true} if the fields of the class are not read and written by the default serialization
+     */
+    static boolean isCustomSerialized(Class<?> type) {
+        return customSerialized.get(type);
+    }
+
+    private static boolean computeCustomSerialized(Class<?> type) {
+        if (!type.isAnnotationPresent(AutoSerialized.class)) {
+            return declaresMethod(type, "writeObject") || declaresMethod(type, "readObject") ||
+                    declaresMethod(type, "readObjectNoData");
+        }
+        if (declaresStaticField(type, DirectSerialForm.FIELD_NAME)) {
+            // the fields are written in the direct serial form
+            return true;
+        }
+        MethodHandles.Lookup lookup = privateLookup(type);
+        if (lookup == null) {
+            return true;
+        }
+        try {
+            MethodHandle serializer = lookup.findStatic(type, AutoSerializable.METHOD_NAME,
+                    MethodType.methodType(AutoSerializer.class));
+            return ((AutoSerializer<?>) serializer.invokeExact()).getClass() != AutoSerializer.class;
+        } catch (NoSuchMethodException e) {
+            // no serializer injected, the class uses the default serialization
+            return false;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the constructor that creates instances like during deserialization, by calling the no-arg constructor
+     * of the first class that is not serializable
+     *
+     * @param type the serializable class
+     * @return the constructor or {@code null} if the first class that is not serializable has no no-arg constructor
+     * @see SerializationConstructors
+     */
+    static Constructor<?> constructor(Class<?> type) {
+        return constructors.get(type);
+    }
+
+    /**
+     * Checks if the class or one of its super classes declares an instance method
+     *
+     * @param type the class
+     * @param name the name of the method
+     * @return {@code true} if the method is declared
+     */
+    static boolean hasMethod(Class<?> type, String name) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            if (declaresMethod(current, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean declaresStaticField(Class<?> type, String name) {
+        try {
+            return Modifier.isStatic(type.getDeclaredField(name).getModifiers());
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+
+    private static boolean declaresMethod(Class<?> type, String name) {
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.getName().equals(name) && !Modifier.isStatic(method.getModifiers())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a lookup with private access to the class
+     *
+     * @param type the class
+     * @return the lookup or {@code null} if the class is not accessible
+     */
+    static MethodHandles.Lookup privateLookup(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+}
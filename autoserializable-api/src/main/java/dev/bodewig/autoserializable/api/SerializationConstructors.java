@@ -0,0 +1,63 @@
+package dev.bodewig.autoserializable.api;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
+/**
+ * Creates the constructors that instantiate classes like the deserialization does.
+ * <p>
+ * The JDK has no public API for these constructors, they are created by {@code sun.reflect.ReflectionFactory} of the
+ * {@code jdk.unsupported} module. This class is the only access to it. The factory is looked up reflectively, so the
+ * code compiles without warnings about internal API and fails with an {@link IllegalStateException} on a JDK without
+ * it once a constructor is needed.
+ */
+final class SerializationConstructors {
+
+    private static final String FACTORY = "sun.reflect.ReflectionFactory";
+    private static final MethodHandle newConstructorForSerialization = findFactory();
+
+    private SerializationConstructors() {
+    }
+
+    /**
+     * Creates the constructor that calls the no-arg constructor of the first class that is not serializable
+     *
+     * @param type the serializable class
+     * @return the constructor or {@code null} if the first class that is not serializable has no no-arg constructor
+     * @throws IllegalStateException if the JDK does not provide the factory
+     */
+    static Constructor<?> of(Class<?> type) {
+        if (newConstructorForSerialization == null) {
+            throw new IllegalStateException(FACTORY + " is not available");
+        }
+        try {
+            return (Constructor<?>) newConstructorForSerialization.invoke(type);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Binds {@code newConstructorForSerialization} to the factory instance
+     *
+     * @return the method handle or {@code null} if the factory is not available
+     */
+    private static MethodHandle findFactory() {
+        try {
+            Class<?> factoryClass = Class.forName(FACTORY);
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Object factory = lookup.findStatic(factoryClass, "getReflectionFactory", MethodType.methodType(factoryClass))
+                    .invoke();
+            return lookup.findVirtual(factoryClass, "newConstructorForSerialization",
+                    MethodType.methodType(Constructor.class, Class.class)).bindTo(factory);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link CompactObjectInputStream} that reads the class descriptors written by a {@link SessionObjectOutputStream}.
+ * <p>
+ * Each class descriptor is read and its class resolved once per session, later references use the descriptor of the
+ * first occurrence. The session has to read all messages of the connection in the order they were written.
+ */
+public class SessionObjectInputStream extends CompactObjectInputStream {
+
+    private final List<ObjectStreamClass> descriptors = new ArrayList<>();
+    private final Map<ObjectStreamClass, Class<?>> classes = new IdentityHashMap<>();
+
+    /**
+     * Creates a new session with the {@link TypeRegistry#getDefault() default registry}
+     *
+     * @param in the input stream of the connection
+     * @throws IOException if the stream header can not be read
+     */
+    public SessionObjectInputStream(InputStream in) throws IOException {
+        this(in, TypeRegistry.getDefault());
+    }
+
+    /**
+     * Creates a new session
+     *
+     * @param in       the input stream of the connection
+     * @param registry the registry of the type ids
+     * @throws IOException if the stream header can not be read
+     */
+    public SessionObjectInputStream(InputStream in, TypeRegistry registry) throws IOException {
+        super(in, registry);
+    }
+
+    @Override
+    protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+        int handle = readHandle();
+        if (handle == 0) {
+            ObjectStreamClass desc = super.readClassDescriptor();
+            descriptors.add(desc);
+            return desc;
+        }
+        if (handle > descriptors.size()) {
+            throw new StreamCorruptedException("Invalid class descriptor handle " + (handle - 1));
+        }
+        return descriptors.get(handle - 1);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        Class<?> clazz = classes.get(desc);
+        if (clazz == null) {
+            clazz = super.resolveClass(desc);
+            classes.put(desc, clazz);
+        }
+        return clazz;
+    }
+
+    /**
+     * Getter for the number of class descriptors read in this session
+     *
+     * @return the number of descriptors
+     */
+    public int getDescriptorCount() {
+        return descriptors.size();
+    }
+
+    private int readHandle() throws IOException {
+        int handle = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            handle |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return handle;
+            }
+        }
+        throw new StreamCorruptedException("Invalid class descriptor handle");
+    }
+}
@@ -0,0 +1,80 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.IOException;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link CompactObjectOutputStream} for long-lived connections that writes each class descriptor only once per
+ * session and refers to it by a short handle afterwards.
+ * <p>
+ * The handles are kept across {@link #reset()} calls, which only clear the object handles. Writers can reset after
+ * every message to bound the memory of the stream without writing the class descriptors again. The stream can only be
+ * read by a single {@link SessionObjectInputStream} that reads all messages in order.
+ */
+public class SessionObjectOutputStream extends CompactObjectOutputStream {
+
+    private final Map<ObjectStreamClass, Integer> handles = new HashMap<>();
+
+    /**
+     * Creates a new session with the {@link TypeRegistry#getDefault() default registry}
+     *
+     * @param out the output stream of the connection
+     * @throws IOException if the stream header can not be written
+     */
+    public SessionObjectOutputStream(OutputStream out) throws IOException {
+        this(out, TypeRegistry.getDefault());
+    }
+
+    /**
+     * Creates a new session
+     *
+     * @param out      the output stream of the connection
+     * @param registry the registry of the type ids
+     * @throws IOException if the stream header can not be written
+     */
+    public SessionObjectOutputStream(OutputStream out, TypeRegistry registry) throws IOException {
+        super(out, registry);
+    }
+
+    /**
+     * Writes the handle of a class descriptor that was already written in this session, or a new handle followed by
+     * the descriptor
+     *
+     * @param desc the class descriptor
+     * @throws IOException if the descriptor can not be written
+     */
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+        Integer handle = handles.get(desc);
+        if (handle != null) {
+            writeHandle(handle + 1);
+            return;
+        }
+        handles.put(desc, handles.size());
+        writeHandle(0);
+        super.writeClassDescriptor(desc);
+    }
+
+    /**
+     * Getter for the number of class descriptors written in this session
+     *
+     * @return the number of descriptors
+     */
+    public int getDescriptorCount() {
+        return handles.size();
+    }
+
+    /**
+     * Writes a handle as unsigned variable-length integer, so the first 127 handles take a single byte
+     */
+    private void writeHandle(int handle) throws IOException {
+        while ((handle & ~0x7F) != 0) {
+            write((handle & 0x7F) | 0x80);
+            handle >>>= 7;
+        }
+        write(handle);
+    }
+}
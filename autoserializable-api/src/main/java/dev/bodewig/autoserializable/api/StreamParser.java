@@ -0,0 +1,769 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+
+/**
+ * Parses the stream format of {@link ObjectOutputStream} for the readers that decode it without an
+ * {@link ObjectInputStream}.
+ * <p>
+ * The parser keeps the handle table, reads class descriptors, strings, boxed primitives, primitive arrays and enum
+ * constants and leaves the objects to its subclasses, which also provide the bytes of the stream. Class descriptors
+ * are resolved to local classes only once an object of them is decoded. A resolved class is checked by the
+ * {@link ObjectInputFilter} and must have the {@code serialVersionUID} of the stream, like {@link ObjectInputStream}
+ * requires.
+ */
+abstract class StreamParser {
+
+    /**
+     * The classes of boxed primitives, which are decoded from their single field
+     */
+    static final Set<Class<?>> BOXES = Set.of(Boolean.class, Byte.class, Character.class, Short.class, Integer.class,
+            Float.class, Long.class, Double.class);
+    private static final ClassValue<Boolean> decodable = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            if (Externalizable.class.isAssignableFrom(type) || SerialClass.hasMethod(type, "writeReplace") ||
+                    SerialClass.hasMethod(type, "readResolve")) {
+                return false;
+            }
+            for (Class<?> current = type; Serializable.class.isAssignableFrom(current);
+                 current = current.getSuperclass()) {
+                if (SerialClass.isCustomSerialized(current)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    };
+
+    private final ClassLoader classLoader;
+    private final ObjectInputFilter filter;
+    private final Map<String, Class<?>> classes = new HashMap<>();
+    private Object[] handles = new Object[64];
+    private int handleCount;
+    private byte[] bytes = new byte[64];
+    private char[] chars = new char[64];
+    private boolean filtering = true;
+    /**
+     * The depth of the object that is currently read, maintained by the subclasses
+     */
+    int depth;
+    /**
+     * The number of handles and references read
+     */
+    long references;
+
+    /**
+     * Creates a new parser
+     *
+     * @param classLoader the class loader to resolve classes with or {@code null} to use the loader of this class
+     * @param filter      the filter to check the stream with or {@code null} to use the JVM-wide filter like a new
+     *                    {@link ObjectInputStream}
+     */
+    StreamParser(ClassLoader classLoader, ObjectInputFilter filter) {
+        this.classLoader = classLoader == null ? StreamParser.class.getClassLoader() : classLoader;
+        this.filter = filter != null ? filter : ObjectInputFilter.Config.getSerialFilterFactory()
+                .apply(null, ObjectInputFilter.Config.getSerialFilter());
+    }
+
+    /**
+     * Getter for classLoader
+     *
+     * @return the class loader classes are resolved with
+     */
+    final ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Getter for filter
+     *
+     * @return the filter the stream is checked with or {@code null}
+     */
+    final ObjectInputFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Enables or disables the checks of the filter, e.g. for a stream that was checked before
+     *
+     * @param filtering {@code false} to skip the checks
+     */
+    final void setFiltering(boolean filtering) {
+        this.filtering = filtering;
+    }
+
+    /**
+     * Reads the next byte without consuming it
+     *
+     * @return the next byte as unsigned value
+     * @throws IOException if the end of the stream is reached
+     */
+    abstract int peek() throws IOException;
+
+    /**
+     * Reads a byte
+     *
+     * @return the byte
+     * @throws IOException if the end of the stream is reached
+     */
+    abstract byte readByte() throws IOException;
+
+    /**
+     * Reads a big-endian short
+     *
+     * @return the short
+     * @throws IOException if the end of the stream is reached
+     */
+    abstract short readShort() throws IOException;
+
+    /**
+     * Reads a big-endian int
+     *
+     * @return the int
+     * @throws IOException if the end of the stream is reached
+     */
+    abstract int readInt() throws IOException;
+
+    /**
+     * Reads a big-endian long
+     *
+     * @return the long
+     * @throws IOException if the end of the stream is reached
+     */
+    abstract long readLong() throws IOException;
+
+    /**
+     * Reads bytes into an array
+     *
+     * @param target the array to read into
+     * @param offset the index of the first byte to read into
+     * @param length the number of bytes to read
+     * @throws IOException if the end of the stream is reached
+     */
+    abstract void readFully(byte[] target, int offset, int length) throws IOException;
+
+    /**
+     * Skips bytes
+     *
+     * @param count the number of bytes to skip
+     * @throws IOException if the end of the stream is reached
+     */
+    abstract void skipBytes(long count) throws IOException;
+
+    /**
+     * Returns the number of bytes read, reported to the filter
+     *
+     * @return the number of bytes read from the stream
+     */
+    abstract long position();
+
+    /**
+     * Skips an object inside of block data, e.g. the objects written by a {@code writeObject} method
+     *
+     * @throws IOException            if the object can not be skipped
+     * @throws ClassNotFoundException if a class of the object can not be found
+     */
+    abstract void skipContent() throws IOException, ClassNotFoundException;
+
+    final int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    /**
+     * Reads a string in the modified UTF-8 format of {@link DataInput#readUTF()}
+     *
+     * @param length the number of bytes of the string
+     * @return the string
+     * @throws IOException if the string is malformed
+     */
+    String readUTF(long length) throws IOException {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new StreamCorruptedException("String of " + length + " bytes");
+        }
+        int size = (int) length;
+        if (bytes.length < size) {
+            bytes = new byte[Math.max(size, bytes.length * 2)];
+        }
+        readFully(bytes, 0, size);
+        return decodeUTF(bytes, 0, size);
+    }
+
+    /**
+     * Decodes a string in the modified UTF-8 format of {@link DataInput#readUTF()} with the buffer of this parser
+     *
+     * @param source the array containing the string
+     * @param offset the index of the first byte of the string
+     * @param length the number of bytes of the string
+     * @return the string
+     * @throws UTFDataFormatException if the bytes are malformed
+     */
+    final String decodeUTF(byte[] source, int offset, int length) throws UTFDataFormatException {
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        int pos = offset;
+        int limit = offset + length;
+        int count = 0;
+        while (pos < limit) {
+            int b = source[pos++] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0 && pos < limit) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (source[pos++] & 0x3F));
+            } else if ((b & 0xF0) == 0xE0 && pos + 1 < limit) {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((source[pos] & 0x3F) << 6) | (source[pos + 1] & 0x3F));
+                pos += 2;
+            } else {
+                throw new UTFDataFormatException();
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Reads a string after its type code and assigns it a handle
+     *
+     * @param tc {@link ObjectStreamConstants#TC_STRING} or {@link ObjectStreamConstants#TC_LONGSTRING}
+     * @return the string
+     * @throws IOException if the string is malformed
+     */
+    final String readString(byte tc) throws IOException {
+        long length = tc == ObjectStreamConstants.TC_STRING ? readUnsignedShort() : readLong();
+        int handle = newHandle();
+        return setHandle(handle, readUTF(length));
+    }
+
+    /**
+     * Reads a string or a reference to a string, like the type of a field or the name of an enum constant
+     *
+     * @param what the description of the string for the exception
+     * @return the string
+     * @throws IOException if the stream does not contain a string
+     */
+    final String readStringContent(String what) throws IOException {
+        byte tc = readByte();
+        switch (tc) {
+            case ObjectStreamConstants.TC_STRING, ObjectStreamConstants.TC_LONGSTRING:
+                return readString(tc);
+            case ObjectStreamConstants.TC_REFERENCE:
+                if (handle(readInt()) instanceof String value) {
+                    references++;
+                    filterCheck(null, -1);
+                    return value;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new StreamCorruptedException(what + " is not a string");
+    }
+
+    /**
+     * Reads a boxed primitive from its field
+     *
+     * @param code the type code of the field
+     * @return the boxed value
+     * @throws IOException if the field is not primitive
+     */
+    final Object readBoxed(char code) throws IOException {
+        return switch (code) {
+            case 'Z' -> readByte() != 0;
+            case 'B' -> readByte();
+            case 'C' -> (char) readUnsignedShort();
+            case 'S' -> readShort();
+            case 'I' -> readInt();
+            case 'F' -> Float.intBitsToFloat(readInt());
+            case 'J' -> readLong();
+            case 'D' -> Double.longBitsToDouble(readLong());
+            default -> throw new StreamCorruptedException("Boxed value without primitive field");
+        };
+    }
+
+    /**
+     * Skips the value of a field
+     *
+     * @param code the type code of the field
+     * @return {@code false} if the field is a reference that still has to be skipped
+     * @throws IOException if the end of the stream is reached
+     */
+    final boolean skipPrimitive(char code) throws IOException {
+        switch (code) {
+            case 'Z', 'B' -> skipBytes(1);
+            case 'C', 'S' -> skipBytes(2);
+            case 'I', 'F' -> skipBytes(4);
+            case 'J', 'D' -> skipBytes(8);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the length of an array after its class descriptor
+     *
+     * @return the length
+     * @throws IOException if the length is negative
+     */
+    final int readArrayLength() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("Negative array length " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Skips the elements of a primitive array
+     *
+     * @param code   the type code of the elements
+     * @param length the length of the array
+     * @return {@code false} if the elements are references that still have to be skipped
+     * @throws IOException if the end of the stream is reached
+     */
+    final boolean skipPrimitives(char code, int length) throws IOException {
+        switch (code) {
+            case 'Z', 'B' -> skipBytes(length);
+            case 'C', 'S' -> skipBytes(2L * length);
+            case 'I', 'F' -> skipBytes(4L * length);
+            case 'J', 'D' -> skipBytes(8L * length);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the elements of a primitive array
+     *
+     * @param array the array to read into
+     * @throws IOException if the end of the stream is reached
+     */
+    final void readPrimitives(Object array) throws IOException {
+        if (array instanceof int[] values) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readInt();
+            }
+        } else if (array instanceof byte[] values) {
+            readFully(values, 0, values.length);
+        } else if (array instanceof long[] values) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readLong();
+            }
+        } else if (array instanceof float[] values) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Float.intBitsToFloat(readInt());
+            }
+        } else if (array instanceof double[] values) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Double.longBitsToDouble(readLong());
+            }
+        } else if (array instanceof short[] values) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readShort();
+            }
+        } else if (array instanceof char[] values) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (char) readUnsignedShort();
+            }
+        } else {
+            boolean[] values = (boolean[]) array;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = readByte() != 0;
+            }
+        }
+    }
+
+    /**
+     * Finds an enum constant of the stream
+     *
+     * @param desc the class descriptor of the enum
+     * @param name the name of the constant
+     * @return the constant
+     * @throws InvalidClassException  if the class is not an enum
+     * @throws InvalidObjectException if the enum has no such constant
+     * @throws ClassNotFoundException if the enum can not be found
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // the type is checked to be an enum
+    final Enum<?> enumConstant(Desc desc, String name) throws IOException, ClassNotFoundException {
+        Class<?> type = desc.type();
+        if (!type.isEnum()) {
+            throw new InvalidClassException(desc.name, "not an enum");
+        }
+        try {
+            return Enum.valueOf((Class) type, name);
+        } catch (IllegalArgumentException e) {
+            InvalidObjectException exception = new InvalidObjectException("No enum constant " + desc.name + "." + name);
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    /**
+     * Reads a class descriptor without resolving its class
+     *
+     * @return the descriptor or {@code null}
+     * @throws IOException            if the stream does not contain a class descriptor
+     * @throws ClassNotFoundException if a class of an annotation can not be found
+     */
+    final Desc readClassDesc() throws IOException, ClassNotFoundException {
+        byte tc = readByte();
+        switch (tc) {
+            case ObjectStreamConstants.TC_NULL:
+                return null;
+            case ObjectStreamConstants.TC_REFERENCE:
+                if (handle(readInt()) instanceof Desc desc) {
+                    references++;
+                    filterCheck(null, -1);
+                    return desc;
+                }
+                throw new StreamCorruptedException("Reference to an object instead of a class descriptor");
+            case ObjectStreamConstants.TC_PROXYCLASSDESC: {
+                int handle = newHandle();
+                int count = readInt();
+                for (int i = 0; i < count; i++) {
+                    readUTF(readUnsignedShort());
+                }
+                skipBlockData();
+                return setHandle(handle, new Desc(null, 0L, (byte) 0, new char[0], new String[0], readClassDesc()));
+            }
+            case ObjectStreamConstants.TC_CLASSDESC:
+                break;
+            default:
+                throw new StreamCorruptedException(String.format("Invalid class descriptor type code: %02X", tc));
+        }
+        String name = readUTF(readUnsignedShort());
+        long serialVersionUID = readLong();
+        int handle = newHandle();
+        byte flags = readByte();
+        int count = readUnsignedShort();
+        char[] codes = new char[count];
+        String[] names = new String[count];
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            codes[i] = (char) readByte();
+            names[i] = readUTF(readUnsignedShort());
+            if (!distinct.add(names[i])) {
+                throw new InvalidClassException(name, "duplicate serialized field " + names[i]);
+            }
+            if (codes[i] == 'L' || codes[i] == '[') {
+                readStringContent("Type of field " + names[i] + " of " + name);
+            }
+        }
+        skipBlockData();
+        return setHandle(handle, new Desc(name, serialVersionUID, flags, codes, names, readClassDesc()));
+    }
+
+    /**
+     * Checks if the fields of a class precede the data written by its {@code writeObject} method. A method that does
+     * not call {@code defaultWriteObject} or {@code writeFields} writes only block data and objects, which must not be
+     * read as the fields of the descriptor. The check is only possible if the first field is an object, as the value
+     * of a primitive field can not be told apart from block data.
+     *
+     * @param slot the class of the data
+     * @return {@code false} if the class is known to have written no field data
+     * @throws IOException if the stream can not be read
+     */
+    final boolean hasFieldData(Desc slot) throws IOException {
+        if ((slot.flags & ObjectStreamConstants.SC_WRITE_METHOD) == 0 || slot.codes.length == 0 ||
+                (slot.codes[0] != 'L' && slot.codes[0] != '[')) {
+            return true;
+        }
+        int tc = peek();
+        return tc != ObjectStreamConstants.TC_BLOCKDATA && tc != ObjectStreamConstants.TC_BLOCKDATALONG &&
+                tc != ObjectStreamConstants.TC_ENDBLOCKDATA;
+    }
+
+    /**
+     * Skips the data written by a {@code writeObject} method after the fields of its class
+     *
+     * @param slot the class of the data
+     * @throws IOException            if the data can not be skipped
+     * @throws ClassNotFoundException if a class of the data can not be found
+     */
+    final void skipAnnotation(Desc slot) throws IOException, ClassNotFoundException {
+        if ((slot.flags & ObjectStreamConstants.SC_WRITE_METHOD) != 0) {
+            skipBlockData();
+        }
+    }
+
+    /**
+     * Skips block data and objects up to the end of the block data
+     *
+     * @throws IOException            if the data can not be skipped
+     * @throws ClassNotFoundException if a class of the data can not be found
+     */
+    final void skipBlockData() throws IOException, ClassNotFoundException {
+        while (true) {
+            switch (peek()) {
+                case ObjectStreamConstants.TC_ENDBLOCKDATA -> {
+                    readByte();
+                    return;
+                }
+                case ObjectStreamConstants.TC_BLOCKDATA -> {
+                    readByte();
+                    skipBytes(readByte() & 0xFF);
+                }
+                case ObjectStreamConstants.TC_BLOCKDATALONG -> {
+                    readByte();
+                    skipBytes(readInt() & 0xFFFFFFFFL);
+                }
+                default -> skipContent();
+            }
+        }
+    }
+
+    /**
+     * Checks a class, an array length or the graph size with the filter
+     *
+     * @param type        the class or {@code null} to only check the graph size
+     * @param arrayLength the length of an array or {@code -1}
+     * @throws Rejected if the filter rejects the stream
+     */
+    final void filterCheck(Class<?> type, long arrayLength) throws Rejected {
+        if (!filtering || filter == null) {
+            return;
+        }
+        ObjectInputFilter.Status status;
+        RuntimeException failure = null;
+        try {
+            status = filter.checkInput(new FilterCheck(type, arrayLength, depth, references, position()));
+        } catch (RuntimeException e) {
+            status = ObjectInputFilter.Status.REJECTED;
+            failure = e;
+        }
+        if (status == null || status == ObjectInputFilter.Status.REJECTED) {
+            Rejected e = new Rejected(status);
+            e.initCause(failure);
+            throw e;
+        }
+    }
+
+    /**
+     * Allocates an object like the deserialization does
+     *
+     * @param type the class of the object
+     * @return the new object
+     * @throws InvalidClassException if the class can not be instantiated
+     */
+    static Object allocate(Class<?> type) throws InvalidClassException {
+        Constructor<?> constructor = SerialClass.constructor(type);
+        if (constructor == null) {
+            throw new InvalidClassException(type.getName(), "no valid constructor");
+        }
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            InvalidClassException exception = new InvalidClassException(type.getName(), "can not be instantiated");
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    /**
+     * Reserves a handle for the next object
+     *
+     * @return the index of the handle
+     */
+    final int newHandle() {
+        references++;
+        if (handleCount == handles.length) {
+            handles = Arrays.copyOf(handles, handleCount * 2);
+        }
+        return handleCount++;
+    }
+
+    final <T> T setHandle(int handle, T object) {
+        handles[handle] = object;
+        return object;
+    }
+
+    /**
+     * Looks up a handle of the stream
+     *
+     * @param wireHandle the handle as written to the stream
+     * @return the object of the handle
+     * @throws StreamCorruptedException if the handle was not assigned
+     */
+    final Object handle(int wireHandle) throws StreamCorruptedException {
+        int handle = wireHandle - ObjectStreamConstants.baseWireHandle;
+        if (handle < 0 || handle >= handleCount) {
+            throw new StreamCorruptedException("Invalid handle " + Integer.toHexString(wireHandle));
+        }
+        return handles[handle];
+    }
+
+    final void clearHandles() {
+        Arrays.fill(handles, 0, handleCount, null);
+        handleCount = 0;
+    }
+
+    private Class<?> resolveClass(String name) throws ClassNotFoundException {
+        Class<?> type = classes.get(name);
+        if (type == null) {
+            type = Class.forName(name, false, classLoader);
+            classes.put(name, type);
+        }
+        return type;
+    }
+
+    /**
+     * A class descriptor of the stream, resolved to the local class once an object of it is decoded
+     */
+    final class Desc {
+
+        final String name; // null for proxy classes
+        final long serialVersionUID;
+        final byte flags;
+        final char[] codes;
+        final String[] names;
+        final Desc[] slots;
+        /**
+         * The state of the reader for the class, like the reusable fields of a projection
+         */
+        Object state;
+        private Class<?> type;
+        private FieldAccessor[] accessors;
+        private FieldAccessor[] missing;
+
+        Desc(String name, long serialVersionUID, byte flags, char[] codes, String[] names, Desc superDesc) {
+            this.name = name;
+            this.serialVersionUID = serialVersionUID;
+            this.flags = flags;
+            this.codes = codes;
+            this.names = names;
+            if (superDesc == null) {
+                this.slots = new Desc[]{this};
+            } else {
+                this.slots = Arrays.copyOf(superDesc.slots, superDesc.slots.length + 1);
+                this.slots[superDesc.slots.length] = this;
+            }
+        }
+
+        /**
+         * Resolves the local class, checks it with the filter and compares its {@code serialVersionUID}
+         *
+         * @return the local class
+         * @throws InvalidClassException  if the class is rejected, not serializable or has another
+         *                                {@code serialVersionUID}
+         * @throws ClassNotFoundException if the class can not be found
+         */
+        Class<?> type() throws InvalidClassException, ClassNotFoundException {
+            if (type == null) {
+                if (name == null) {
+                    throw new InvalidClassException("Proxy classes can not be decoded");
+                }
+                Class<?> resolved = resolveClass(name);
+                filterCheck(resolved, -1);
+                // like ObjectInputStream, arrays, enums and records are matched by name only
+                if (!resolved.isArray() && !resolved.isEnum() && !resolved.isRecord()) {
+                    ObjectStreamClass local = ObjectStreamClass.lookup(resolved);
+                    if (local == null) {
+                        throw new InvalidClassException(name, "class invalid for deserialization");
+                    }
+                    if (local.getSerialVersionUID() != serialVersionUID) {
+                        throw new InvalidClassException(name, "local class incompatible: stream classdesc " +
+                                "serialVersionUID = " + serialVersionUID + ", local class serialVersionUID = " +
+                                local.getSerialVersionUID());
+                    }
+                }
+                type = resolved;
+            }
+            return type;
+        }
+
+        /**
+         * Checks if the fields of all classes of the object can be written directly
+         *
+         * @return {@code true} if the stream and the local class hierarchy match and no class reads its fields itself
+         * @throws InvalidClassException  if a class is rejected
+         * @throws ClassNotFoundException if a class can not be found
+         */
+        boolean isDecodable() throws InvalidClassException, ClassNotFoundException {
+            Class<?> current = type();
+            for (int i = slots.length - 1; i >= 0; i--) {
+                if (slots[i].type() != current || (slots[i].flags & ObjectStreamConstants.SC_SERIALIZABLE) == 0) {
+                    return false;
+                }
+                current = current.getSuperclass();
+            }
+            return (current == null || !Serializable.class.isAssignableFrom(current)) && decodable.get(type);
+        }
+
+        /**
+         * Returns the accessors of the local fields by stream field
+         *
+         * @return the accessors, {@code null} for fields that are not declared
+         * @throws InvalidClassException  if the types of the stream and the local fields do not match
+         * @throws ClassNotFoundException if the class can not be found
+         */
+        FieldAccessor[] accessors() throws InvalidClassException, ClassNotFoundException {
+            if (accessors == null) {
+                FieldLayout<?> layout = FieldLayout.of(type());
+                FieldAccessor[] result = new FieldAccessor[codes.length];
+                for (int i = 0; i < codes.length; i++) {
+                    ObjectStreamField field = layout.serializedField(names[i]);
+                    if (field == null) {
+                        continue;
+                    }
+                    boolean primitive = codes[i] != 'L' && codes[i] != '[';
+                    if (primitive ? field.getTypeCode() != codes[i] : field.isPrimitive()) {
+                        throw new InvalidClassException(name, "incompatible types for field " + names[i]);
+                    }
+                    result[i] = layout.accessor(names[i]);
+                }
+                accessors = result;
+            }
+            return accessors;
+        }
+
+        /**
+         * Returns the accessors of the serialized local fields that are not part of the stream
+         *
+         * @return the accessors
+         * @throws InvalidClassException  if the class is rejected
+         * @throws ClassNotFoundException if the class can not be found
+         */
+        FieldAccessor[] missing() throws InvalidClassException, ClassNotFoundException {
+            if (missing == null) {
+                // local fields the writer did not know, a new object would have their default values
+                FieldLayout<?> layout = FieldLayout.of(type());
+                Set<String> streamFields = Set.of(names);
+                missing = Arrays.stream(layout.serializedFieldNames()).filter(name -> !streamFields.contains(name))
+                        .map(layout::accessor).toArray(FieldAccessor[]::new);
+            }
+            return missing;
+        }
+    }
+
+    /**
+     * The check of the filter
+     *
+     * @param serialClass the class or {@code null}
+     * @param arrayLength the length of an array or {@code -1}
+     * @param depth       the depth of the graph
+     * @param references  the number of objects and references read
+     * @param streamBytes the number of bytes read
+     */
+    private record FilterCheck(Class<?> serialClass, long arrayLength, long depth, long references, long streamBytes)
+            implements ObjectInputFilter.FilterInfo {
+    }
+
+    /**
+     * Signals a stream rejected by the filter
+     */
+    static final class Rejected extends InvalidClassException {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        Rejected(ObjectInputFilter.Status status) {
+            super("filter status: " + status);
+        }
+    }
+}
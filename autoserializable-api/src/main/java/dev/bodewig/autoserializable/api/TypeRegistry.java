@@ -0,0 +1,240 @@
+package dev.bodewig.autoserializable.api;
+
+import java.io.*;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * The stable numeric ids and field layouts of the types transformed by the {@code AutoSerializablePlugin}.
+ * <p>
+ * The plugin writes the registry if it is configured with the {@code typeRegistry} option, usually to
+ * {@value #RESOURCE} in the output directory. Each line contains the id, the name and the field layout of a type
+ * separated by tabs. The layout lists the serialized fields as {@code name:descriptor} sorted by name, or is
+ * {@code *} if the fields are declared by {@code serialPersistentFields}.
+ * <p>
+ * The {@link CompactObjectOutputStream} and {@link CompactObjectInputStream} exchange the ids instead of full class
+ * descriptors. A registry does not keep its class loader reachable, the default registries are kept per class loader
+ * until it is garbage collected.
+ */
+public final class TypeRegistry {
+
+    /**
+     * The name of the registry resource
+     */
+    public static final String RESOURCE = "META-INF/autoserializable/types";
+
+    /**
+     * The layout of types whose serialized fields are not checked
+     */
+    public static final String ANY_LAYOUT = "*";
+
+    private static final Map<ClassLoader, TypeRegistry> defaults = new WeakHashMap<>();
+
+    private final Map<String, Entry> byName;
+    private final Map<Integer, Entry> byId;
+    private final Map<String, Long> layoutDigests;
+    private final WeakReference<ClassLoader> classLoader;
+    private final Map<String, Boolean> matchingLayouts = new ConcurrentHashMap<>();
+
+    private TypeRegistry(Collection<Entry> entries, ClassLoader classLoader) {
+        Map<String, Entry> names = new HashMap<>();
+        Map<Integer, Entry> ids = new HashMap<>();
+        Map<String, Long> digests = new HashMap<>();
+        for (Entry entry : entries) {
+            Entry previous = ids.putIfAbsent(entry.id(), entry);
+            if (previous != null && !previous.name().equals(entry.name())) {
+                throw new IllegalStateException(
+                        "Type id " + entry.id() + " is used by " + previous.name() + " and " + entry.name());
+            }
+            names.put(entry.name(), entry);
+            digests.put(entry.name(), digest(entry.layout()));
+        }
+        this.byName = Map.copyOf(names);
+        this.byId = Map.copyOf(ids);
+        this.layoutDigests = Map.copyOf(digests);
+        this.classLoader = new WeakReference<>(classLoader);
+    }
+
+    /**
+     * Returns the default registry of the context class loader of the current thread, or of the class loader of this
+     * class if there is none
+     *
+     * @return the default registry
+     * @see #getDefault(ClassLoader)
+     */
+    public static TypeRegistry getDefault() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return getDefault(classLoader == null ? TypeRegistry.class.getClassLoader() : classLoader);
+    }
+
+    /**
+     * Returns the registry of a class loader, which is {@link #load(ClassLoader) loaded} on the first call for it
+     *
+     * @param classLoader the class loader to find the resources and load the registered types with
+     * @return the default registry of the class loader
+     */
+    public static TypeRegistry getDefault(ClassLoader classLoader) {
+        synchronized (defaults) {
+            return defaults.computeIfAbsent(classLoader, TypeRegistry::load);
+        }
+    }
+
+    /**
+     * Merges all registry resources visible to the class loader
+     *
+     * @param classLoader the class loader to find the resources and load the registered types with
+     * @return the registry
+     * @throws UncheckedIOException  if a resource can not be read
+     * @throws IllegalStateException if two types share an id
+     */
+    public static TypeRegistry load(ClassLoader classLoader) {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            for (URL resource : Collections.list(classLoader.getResources(RESOURCE))) {
+                try (InputStream in = resource.openStream()) {
+                    entries.addAll(parse(in));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new TypeRegistry(entries, classLoader);
+    }
+
+    /**
+     * Reads a single registry
+     *
+     * @param in the registry in the format written by the plugin
+     * @return the registry
+     * @throws IOException           if the registry can not be read
+     * @throws IllegalStateException if two types share an id
+     */
+    public static TypeRegistry read(InputStream in) throws IOException {
+        return new TypeRegistry(parse(in), TypeRegistry.class.getClassLoader());
+    }
+
+    private static List<Entry> parse(InputStream in) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] values = line.split("\t", -1);
+            if (values.length != 3) {
+                throw new StreamCorruptedException("Invalid type registry entry '" + line + "'");
+            }
+            try {
+                entries.add(new Entry(Integer.parseInt(values[0]), values[1], values[2]));
+            } catch (NumberFormatException e) {
+                throw new StreamCorruptedException("Invalid type id in entry '" + line + "'");
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Computes the field layout of a class descriptor in the format of the registry
+     *
+     * @param desc the class descriptor
+     * @return the serialized fields as {@code name:descriptor} sorted by name
+     */
+    public static String layoutOf(ObjectStreamClass desc) {
+        return Arrays.stream(desc.getFields()).map(field -> field.getName() + ":" +
+                        (field.isPrimitive() ? String.valueOf(field.getTypeCode()) : field.getTypeString())).sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * Returns the entry of a type
+     *
+     * @param name the name of the type
+     * @return the entry or {@code null} if the type is not registered
+     */
+    public Entry get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * Returns the entry of an id
+     *
+     * @param id the id of the type
+     * @return the entry or {@code null} if the id is not registered
+     */
+    public Entry get(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Returns the digest of the layout of a registered type, which the compact streams exchange with its id
+     *
+     * @param entry the entry of the type
+     * @return the first 64 bits of the SHA-256 hash of the layout
+     */
+    public long layoutDigest(Entry entry) {
+        Long digest = layoutDigests.get(entry.name());
+        return digest == null ? digest(entry.layout()) : digest;
+    }
+
+    /**
+     * Returns the entry of the class of a descriptor if the layout of the registry matches the class
+     *
+     * @param desc the local class descriptor
+     * @return the entry or {@code null} if the type is not registered or the registry is out of date
+     */
+    public Entry lookup(ObjectStreamClass desc) {
+        Entry entry = byName.get(desc.getName());
+        if (entry == null) {
+            return null;
+        }
+        boolean matches = matchingLayouts.computeIfAbsent(entry.name(),
+                name -> entry.layout().equals(ANY_LAYOUT) || entry.layout().equals(layoutOf(desc)));
+        return matches ? entry : null;
+    }
+
+    /**
+     * Returns all entries
+     *
+     * @return the entries
+     */
+    public Collection<Entry> entries() {
+        return byName.values();
+    }
+
+    /**
+     * Getter for classLoader
+     *
+     * @return the class loader to load the registered types with or {@code null} if it was garbage collected
+     */
+    public ClassLoader getClassLoader() {
+        return classLoader.get();
+    }
+
+    private static long digest(String layout) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(layout.getBytes(StandardCharsets.UTF_8)))
+                    .getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A registered type
+     *
+     * @param id     the stable id of the type
+     * @param name   the binary name of the type
+     * @param layout the serialized fields as {@code name:descriptor} sorted by name or
+     *               {@value TypeRegistry#ANY_LAYOUT}
+     */
+    public record Entry(int id, String name, String layout) {
+    }
+}
@@ -2,6 +2,7 @@ package dev.bodewig.autoserializable.gradle.plugin.task;
 
 import dev.bodewig.autoserializable.AutoSerializablePlugin;
 import net.bytebuddy.build.gradle.ByteBuddySimpleTask;
+import net.bytebuddy.build.gradle.PluginArgument;
 import org.gradle.api.file.Directory;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.*;
@@ -25,17 +26,23 @@ public class AutoSerializableClassesTask extends ByteBuddySimpleTask {
      */
     public static final String MOVED_CLASSES_DIR_NAME = "movedClasses";
 
+    private final PluginArgument optionsArgument = new PluginArgument(1, "");
     private final Provider<Directory> movedDir;
     private Provider<Directory> inPlace;
 
     /**
      * Initializes the output directory with the default value, sets a dummy value for the source and adds the
-     * AutoSerializablePlugin
+     * AutoSerializablePlugin. Transforms with one thread per available processor by default, set {@code threads} to
+     * {@code 0} to transform on the calling thread.
      */
     public AutoSerializableClassesTask() {
         movedDir = getProject().getLayout().getBuildDirectory().dir(MOVED_CLASSES_DIR_NAME);
         setSource(getProject().getLayout().getBuildDirectory().get().getAsFile());
-        transformation(tf -> tf.setPlugin(AutoSerializablePlugin.class));
+        transformation(tf -> {
+            tf.setPlugin(AutoSerializablePlugin.class);
+            tf.getArguments().add(optionsArgument);
+        });
+        setThreads(Runtime.getRuntime().availableProcessors());
     }
 
     @Override
@@ -44,6 +51,25 @@ public class AutoSerializableClassesTask extends ByteBuddySimpleTask {
         return super.getDiscoverySet();
     }
 
+    /**
+     * Getter for options
+     *
+     * @return options
+     */
+    @Input
+    public String getOptions() {
+        return (String) optionsArgument.getValue();
+    }
+
+    /**
+     * Sets the options of the AutoSerializablePlugin, e.g. {@code codegen=direct}
+     *
+     * @param options The options as key-value pairs separated by {@code ;}
+     */
+    public void setOptions(String options) {
+        optionsArgument.setValue(options);
+    }
+
     /**
      * Getter for inPlace
      *
@@ -2,8 +2,10 @@ package dev.bodewig.autoserializable.gradle.plugin.task;
 
 import dev.bodewig.autoserializable.AutoSerializablePlugin;
 import net.bytebuddy.build.gradle.ByteBuddyJarsTask;
+import net.bytebuddy.build.gradle.PluginArgument;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
 
 import java.io.File;
 
@@ -23,12 +25,19 @@ public class AutoSerializableJarsTask extends ByteBuddyJarsTask {
      */
     public static final String AUTO_SERIALIZABLE_DIR_NAME = "autoSerializableJars";
 
+    private final PluginArgument optionsArgument = new PluginArgument(1, "");
+
     /**
-     * Initializes the output directory with the default value and adds the AutoSerializablePlugin
+     * Initializes the output directory with the default value and adds the AutoSerializablePlugin. Transforms with one
+     * thread per available processor by default, set {@code threads} to {@code 0} to transform on the calling thread.
      */
     public AutoSerializableJarsTask() {
         setTarget(getProject().getLayout().getBuildDirectory().dir(AUTO_SERIALIZABLE_DIR_NAME).get().getAsFile());
-        transformation(tf -> tf.setPlugin(AutoSerializablePlugin.class));
+        transformation(tf -> {
+            tf.setPlugin(AutoSerializablePlugin.class);
+            tf.getArguments().add(optionsArgument);
+        });
+        setThreads(Runtime.getRuntime().availableProcessors());
     }
 
     @Override
@@ -36,4 +45,23 @@ public class AutoSerializableJarsTask extends ByteBuddyJarsTask {
     public Iterable<File> getDiscoverySet() {
         return super.getDiscoverySet();
     }
+
+    /**
+     * Getter for options
+     *
+     * @return options
+     */
+    @Input
+    public String getOptions() {
+        return (String) optionsArgument.getValue();
+    }
+
+    /**
+     * Sets the options of the AutoSerializablePlugin, e.g. {@code codegen=direct}
+     *
+     * @param options The options as key-value pairs separated by {@code ;}
+     */
+    public void setOptions(String options) {
+        optionsArgument.setValue(options);
+    }
 }
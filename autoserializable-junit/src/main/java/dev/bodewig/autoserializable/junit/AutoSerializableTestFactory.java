@@ -4,6 +4,7 @@ import dev.bodewig.autoserializable.api.AutoSerializable;
 import dev.bodewig.autoserializable.api.AutoSerializableAll;
 import dev.bodewig.autoserializable.api.AutoSerialized;
 import dev.bodewig.autoserializable.api.AutoSerializer;
+import dev.bodewig.autoserializable.api.ObjectCodec;
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.TestFactory;
 import org.junit.jupiter.api.function.ThrowingConsumer;
@@ -13,12 +14,15 @@ import org.junit.platform.commons.util.ReflectionUtils;
 
 import java.io.*;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.net.URI;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -117,17 +121,8 @@ public class AutoSerializableTestFactory {
     public static <T> T testSerialization(T instance) {
         AtomicReference<T> result = new AtomicReference<>();
         assertDoesNotThrow(() -> {
-            byte[] data;
-            try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                 ObjectOutputStream oos = new ObjectOutputStream(baos)) {
-                oos.writeObject(instance);
-                oos.flush();
-                data = baos.toByteArray();
-            }
-            try (ByteArrayInputStream bais = new ByteArrayInputStream(data);
-                 ObjectInputStream ois = new ObjectInputStream(bais)) {
-                result.set((T) ois.readObject());
-            }
+            byte[] data = ObjectCodec.getDefault().encode(instance);
+            result.set((T) ObjectCodec.getDefault().decode(data));
         }, "testSerialization failed on " +
                 Optional.ofNullable(instance.getClass().getCanonicalName()).orElse("(anonymous class)"));
         return result.get();
@@ -233,15 +228,24 @@ public class AutoSerializableTestFactory {
     }
 
     /**
-     * Adds tests for all classes except {@link AutoSerializer}s to have an initialized serializer field to the
-     * factory instance.
+     * Adds tests for all classes with an injected serializer field to initialize it to the factory instance.
+     * Classes targeted by a custom serializer must have the field and it must hold that serializer, classes without a
+     * custom serializer may not have the field if they were transformed with another {@code codegen} mode.
      *
      * @return the factory instance
      */
     public AutoSerializableTestFactory testAutoSerializablesInitialized() {
+        Map<Class<?>, List<Class<?>>> boundSerializers = serializers.stream()
+                .flatMap(serializer -> AnnotationUtils.findRepeatableAnnotations(serializer, AutoSerializable.class)
+                        .stream().map(annotation -> Map.entry(annotation.value(), serializer)))
+                .collect(Collectors.groupingBy(Map.Entry::getKey,
+                        Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
         return test(classes.stream()
                 .filter(clazz -> !clazz.isAnnotation() && !clazz.isInterface() && !serializers.contains(clazz))
                 .filter(clazz -> {
+                    if (boundSerializers.containsKey(clazz)) {
+                        return true;
+                    }
                     try {
                         clazz.getDeclaredField("_serializer");
                     } catch (NoSuchFieldException e) {
@@ -249,14 +253,40 @@ public class AutoSerializableTestFactory {
                     }
                     return true;
                 }), "testAutoSerializablesInitialized", clazz -> {
-            Field field = clazz.getDeclaredField("_serializer");
-            field.setAccessible(true);
-            assertNotNull(field.get(null), // null for static field
-                    "Generated constant '_serializer' of " + clazz.getCanonicalName() +
-                            " was not initialized. The byte code is defect.");
+            Object serializer = serializer(clazz);
+            assertNotNull(serializer, "Generated constant '_serializer' of " + clazz.getCanonicalName() +
+                    " was not initialized. The byte code is defect.");
+            if (boundSerializers.containsKey(clazz)) {
+                assertTrue(boundSerializers.get(clazz).contains(serializer.getClass()),
+                        "Generated constant '_serializer' of " + clazz.getCanonicalName() + " holds " +
+                                serializer.getClass().getCanonicalName() + " instead of its custom serializer");
+            }
         });
     }
 
+    /**
+     * Returns the injected serializer of a class, creating it if the class initializes it on first use
+     *
+     * @param clazz the {@link AutoSerialized} class
+     * @return the serializer
+     * @throws ReflectiveOperationException if the serializer is not injected or can not be accessed
+     */
+    protected static Object serializer(Class<?> clazz) throws ReflectiveOperationException {
+        Field field = clazz.getDeclaredField(AutoSerializable.FIELD_NAME);
+        field.setAccessible(true);
+        Method method;
+        try {
+            method = clazz.getDeclaredMethod(AutoSerializable.METHOD_NAME);
+        } catch (NoSuchMethodException e) {
+            return field.get(null); // null for static field, initialized with the class
+        }
+        method.setAccessible(true);
+        Object serializer = method.invoke(null);
+        assertSame(serializer, field.get(null), "Generated method '" + AutoSerializable.METHOD_NAME + "' of " +
+                clazz.getCanonicalName() + " did not store the serializer. The byte code is defect.");
+        return serializer;
+    }
+
     /**
      * Adds tests for all classes except {@link AutoSerializer}s to be annotated with {@link AutoSerialized} to the
      * factory instance.
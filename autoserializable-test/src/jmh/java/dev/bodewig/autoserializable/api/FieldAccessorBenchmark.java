@@ -0,0 +1,65 @@
+package dev.bodewig.autoserializable.api;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading an {@code int} field by reflection with reading it by a {@link FieldAccessor}, both from an instance
+ * field, like the library keeps them in its layouts and plans, and from a {@code static final} field, whose handles the
+ * JIT can fold.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessorBenchmark {
+
+    private static final Field CONSTANT_FIELD = FieldLayout.of(Point.class).accessor("x").field();
+    private static final FieldAccessor CONSTANT_ACCESSOR = FieldLayout.of(Point.class).accessor("x");
+
+    private Field field;
+    private FieldAccessor accessor;
+    private Point point;
+
+    @Setup
+    public void setup() {
+        field = CONSTANT_FIELD;
+        accessor = CONSTANT_ACCESSOR;
+        point = new Point();
+    }
+
+    @Benchmark
+    public int field() throws IllegalAccessException {
+        return field.getInt(point);
+    }
+
+    @Benchmark
+    public int accessor() throws IllegalAccessException {
+        return accessor.getInt(point);
+    }
+
+    @Benchmark
+    public int constantField() throws IllegalAccessException {
+        return CONSTANT_FIELD.getInt(point);
+    }
+
+    @Benchmark
+    public int constantAccessor() throws IllegalAccessException {
+        return CONSTANT_ACCESSOR.getInt(point);
+    }
+
+    /**
+     * The fixture, not transformed by the build
+     */
+    public static class Point implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        int x = 1;
+    }
+}
@@ -0,0 +1,82 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.ByteBufferInputStream;
+import dev.bodewig.autoserializable.api.ByteBufferOutputStream;
+import dev.bodewig.autoserializable.api.ObjectCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serializing a transformed object into a direct buffer through a {@link ByteArrayOutputStream} with writing
+ * it into the buffer directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteBufferBenchmark {
+
+    private final ObjectCodec codec = new ObjectCodec();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final TestBean bean = new TestBean(42);
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        codec.encode(bean, buffer);
+        encoded = buffer.flip().slice();
+        buffer.clear();
+    }
+
+    @Benchmark
+    public ByteBuffer writeByteArray() throws IOException {
+        buffer.clear();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(bean);
+        }
+        return buffer.put(bytes.toByteArray());
+    }
+
+    @Benchmark
+    public ByteBuffer writeByteBuffer() throws IOException {
+        buffer.clear();
+        try (ObjectOutputStream out = new ObjectOutputStream(new ByteBufferOutputStream(buffer))) {
+            out.writeObject(bean);
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer writeCodec() throws IOException {
+        buffer.clear();
+        codec.encode(bean, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Object readByteArray() throws IOException, ClassNotFoundException {
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.duplicate().get(bytes);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public Object readByteBuffer() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteBufferInputStream(encoded.duplicate()))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public Object readCodec() throws IOException, ClassNotFoundException {
+        return codec.decode(encoded.duplicate());
+    }
+}
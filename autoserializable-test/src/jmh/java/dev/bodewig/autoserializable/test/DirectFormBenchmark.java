@@ -0,0 +1,85 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.AutoSerializablePlugin;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default serial form of a class transformed with the default options with the serial form generated by
+ * {@code codegen=direct}. Both variants of the untransformed {@link Point} are transformed and loaded in own class
+ * loaders, a stream holds 256 instances to outweigh the class descriptors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectFormBenchmark {
+
+    @Param({"", "codegen=direct"})
+    public String options;
+
+    private ClassLoader loader;
+    private Object[] points;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException, ReflectiveOperationException {
+        ClassFileLocator locator = ClassFileLocator.ForClassLoader.of(Point.class.getClassLoader());
+        TypeDescription typeDescription = TypeDescription.ForLoadedType.of(Point.class);
+        Class<?> type;
+        try (AutoSerializablePlugin plugin = new AutoSerializablePlugin(new File[0], options)) {
+            plugin.onPreprocess(typeDescription, locator);
+            type = plugin.apply(new ByteBuddy().redefine(Point.class, locator), typeDescription, locator).make()
+                    .load(Point.class.getClassLoader(), ClassLoadingStrategy.Default.CHILD_FIRST).getLoaded();
+        }
+        loader = type.getClassLoader();
+        points = new Object[256];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = type.getDeclaredConstructor().newInstance();
+        }
+        encoded = write();
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(points);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Object read() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(encoded)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+                return Class.forName(desc.getName(), false, loader);
+            }
+        }) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * The fixture, not transformed by the build
+     */
+    @SuppressWarnings("unused")
+    public static class Point {
+        int x = 1;
+        int y = 2;
+        long id = 3L;
+        double weight = 4.5;
+        boolean visible = true;
+        String name = "point";
+        int[] values = {6, 7, 8};
+    }
+}
@@ -0,0 +1,20 @@
+package dev.bodewig.autoserializable.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SuppressWarnings("unused")
+class CopyBean {
+    int value;
+    String name;
+    int[] numbers;
+    CopyBean next;
+    List<CopyBean> children = new ArrayList<>();
+    transient Object cache = new Object();
+
+    CopyBean(int value) {
+        this.value = value;
+        this.name = "bean" + value;
+        this.numbers = new int[]{value, value + 1};
+    }
+}
@@ -0,0 +1,36 @@
+package dev.bodewig.autoserializable.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SuppressWarnings("unused")
+class DeltaBean {
+    private final long id;
+    int counter;
+    private String name;
+    List<String> tags = new ArrayList<>();
+
+    DeltaBean(long id) {
+        this.id = id;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    void increment() {
+        counter++;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+}
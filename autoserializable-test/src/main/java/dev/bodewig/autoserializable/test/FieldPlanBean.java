@@ -0,0 +1,39 @@
+package dev.bodewig.autoserializable.test;
+
+import java.util.Objects;
+
+public class FieldPlanBean {
+    boolean a = true;
+    byte b = 1;
+    char c = 'c';
+    short d = 2;
+    int e = 3;
+    float f = 4.5f;
+    long g = 6L;
+    double h = 7.5;
+    String i = "i";
+    Integer j = 8;
+    String k = "k";
+    private final long l = System.nanoTime();
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof FieldPlanBean that))
+            return false;
+        return a == that.a && b == that.b && c == that.c && d == that.d && e == that.e && f == that.f &&
+                g == that.g && h == that.h && Objects.equals(i, that.i) && Objects.equals(j, that.j) &&
+                Objects.equals(k, that.k) && l == that.l;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(a, b, c, d, e, f, g, h, i, j, k, l);
+    }
+
+    @Override
+    public String toString() {
+        return "FieldPlanBean{" + "a=" + a + ", b=" + b + ", c=" + c + ", d=" + d + ", e=" + e + ", f=" + f +
+                ", g=" + g + ", h=" + h + ", i='" + i + '\'' + ", j=" + j + ", k='" + k + '\'' + ", l=" + l +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.*;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+@SuppressWarnings("unused")
+@AutoSerializable(FieldPlanBean.class)
+public class FieldPlanBeanSerializer extends AutoSerializer<FieldPlanBean> {
+
+    private static final PutFieldPlan<FieldPlanBean> putPlan = PutFieldBuilder.forType(FieldPlanBean.class) //
+            .all() //
+            .without("k") //
+            .putTransformed("e", (int value) -> value * 2) //
+            .plan();
+
+    private static final GetFieldPlan<FieldPlanBean> getPlan = GetFieldBuilder.forType(FieldPlanBean.class) //
+            .all() //
+            .readTransformed("e", (int value) -> value / 2) //
+            .readComputed("k", () -> "k") //
+            .plan();
+
+    @Override
+    public void writeObject(ObjectOutputStream out, FieldPlanBean that) {
+        putPlan.writeFields(out, that);
+    }
+
+    @Override
+    public void readObject(ObjectInputStream in, FieldPlanBean that) {
+        getPlan.readFields(in, that);
+    }
+}
@@ -0,0 +1,25 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.LazyDeserialized;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SuppressWarnings("unused")
+class LazyBean {
+    String id;
+    @LazyDeserialized
+    private List<String> payload = new ArrayList<>();
+
+    LazyBean(String id) {
+        this.id = id;
+    }
+
+    List<String> getPayload() {
+        return payload;
+    }
+
+    void setPayload(List<String> payload) {
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,23 @@
+package dev.bodewig.autoserializable.test;
+
+import java.util.function.Supplier;
+
+@SuppressWarnings({"unused", "FieldMayBeFinal"})
+class ReachabilityBeans {
+    static class Root {
+        Supplier<String> supplier = new Constant();
+    }
+
+    static class Constant implements Supplier<String> {
+        private String value = "constant";
+
+        @Override
+        public String get() {
+            return value;
+        }
+    }
+
+    static class Unreachable {
+        int value = 1;
+    }
+}
@@ -0,0 +1,11 @@
+package dev.bodewig.autoserializable.test;
+
+class SharedSerializerBeans {
+    static class First {
+        String value = "first";
+    }
+
+    static class Second {
+        int value = 2;
+    }
+}
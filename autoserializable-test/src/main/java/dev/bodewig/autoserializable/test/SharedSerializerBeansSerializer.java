@@ -0,0 +1,9 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.AutoSerializable;
+import dev.bodewig.autoserializable.api.AutoSerializer;
+
+@AutoSerializable(SharedSerializerBeans.First.class)
+@AutoSerializable(SharedSerializerBeans.Second.class)
+public class SharedSerializerBeansSerializer extends AutoSerializer<Object> {
+}
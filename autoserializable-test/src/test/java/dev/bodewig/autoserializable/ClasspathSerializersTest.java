@@ -0,0 +1,31 @@
+package dev.bodewig.autoserializable;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClasspathSerializersTest {
+
+    @Test
+    void scanPackages() throws ReflectiveOperationException, URISyntaxException {
+        // the classes of the test module with its serializers
+        File[] classpath = {new File(Class.forName("dev.bodewig.autoserializable.test.NonSerializableBeanSerializer")
+                .getProtectionDomain().getCodeSource().getLocation().toURI())};
+        assertEquals(Set.of("dev.bodewig.autoserializable.test.NonSerializableBean",
+                        "dev.bodewig.autoserializable.test.FieldBuilderBean",
+                        "dev.bodewig.autoserializable.test.FieldPlanBean",
+                        "dev.bodewig.autoserializable.test.SharedSerializerBeans$First",
+                        "dev.bodewig.autoserializable.test.SharedSerializerBeans$Second"),
+                boundTypes(classpath, "scanPackages=dev.bodewig.autoserializable.test"));
+        assertEquals(boundTypes(classpath, ""), boundTypes(classpath, "scanPackages=dev.bodewig"));
+        assertTrue(boundTypes(classpath, "scanPackages=com.badlogic,dev.bodewig.autoserializable.api").isEmpty());
+    }
+
+    private static Set<String> boundTypes(File[] classpath, String options) {
+        return ClasspathSerializers.find(classpath, AutoSerializableOptions.parse(options)).keySet();
+    }
+}
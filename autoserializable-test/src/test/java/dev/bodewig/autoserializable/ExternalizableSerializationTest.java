@@ -0,0 +1,95 @@
+package dev.bodewig.autoserializable;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalizableSerializationTest {
+
+    @Test
+    void implementedSuperClass() throws IOException, ReflectiveOperationException {
+        ExternalizableSerialization externalizable = new ExternalizableSerialization(type -> false);
+        TypeDescription type = TypeDescription.ForLoadedType.of(Child.class);
+        externalizable.register(type);
+        Class<?> loaded = externalizable.apply(new ByteBuddy().redefine(Child.class), type).make()
+                .load(Child.class.getClassLoader(), ClassLoadingStrategy.Default.CHILD_FIRST).getLoaded();
+
+        Base child = (Base) loaded.getConstructor().newInstance();
+        child.base = 1;
+        loaded.getDeclaredField("value").setInt(child, 2);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(child);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws ClassNotFoundException {
+                return Class.forName(desc.getName(), false, loaded.getClassLoader());
+            }
+        }) {
+            Base copy = (Base) in.readObject();
+            assertEquals(1, copy.base);
+            assertEquals(2, loaded.getDeclaredField("value").getInt(copy));
+        }
+    }
+
+    @Test
+    void abstractSuperClass() {
+        ExternalizableSerialization externalizable = new ExternalizableSerialization(type -> false);
+        TypeDescription type = TypeDescription.ForLoadedType.of(AbstractChild.class);
+        externalizable.register(type);
+        assertThrows(IllegalStateException.class,
+                () -> externalizable.apply(new ByteBuddy().redefine(AbstractChild.class), type));
+    }
+
+    @Test
+    void superClassNotExternalizable() {
+        ExternalizableSerialization externalizable = new ExternalizableSerialization(type -> false);
+        TypeDescription parent = TypeDescription.ForLoadedType.of(FinalParent.class);
+        TypeDescription type = TypeDescription.ForLoadedType.of(FinalParent.Child.class);
+        externalizable.register(parent);
+        externalizable.register(type);
+        // the final field keeps the whole hierarchy Serializable
+        assertFalse(externalizable.isExternalizable(type));
+        assertThrows(IllegalStateException.class,
+                () -> externalizable.apply(new ByteBuddy().redefine(FinalParent.Child.class), type));
+    }
+
+    public static class Base implements Externalizable {
+        public int base;
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeInt(base);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException {
+            base = in.readInt();
+        }
+    }
+
+    public static class Child extends Base {
+        public int value;
+    }
+
+    public abstract static class AbstractBase implements Externalizable {
+    }
+
+    public abstract static class AbstractChild extends AbstractBase {
+        public int value;
+    }
+
+    public static class FinalParent {
+        final int value = 1;
+
+        public static class Child extends FinalParent {
+            int other;
+        }
+    }
+}
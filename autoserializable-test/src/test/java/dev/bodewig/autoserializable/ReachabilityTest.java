@@ -0,0 +1,72 @@
+package dev.bodewig.autoserializable;
+
+import net.bytebuddy.description.type.TypeDescription;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReachabilityTest {
+
+    @Test
+    void interfaceField() {
+        Reachability reachability = reachability(InterfaceRoot.class);
+        assertTrue(reachable(reachability, InterfaceRoot.class));
+        // implementations of the field type and their subclasses
+        assertTrue(reachable(reachability, Constant.class));
+        assertTrue(reachable(reachability, SubConstant.class));
+        assertTrue(reachable(reachability, Value.class));
+        assertFalse(reachable(reachability, Other.class));
+        assertFalse(reachable(reachability, ObjectRoot.class));
+    }
+
+    @Test
+    void objectField() {
+        Reachability reachability = reachability(ObjectRoot.class);
+        assertTrue(reachable(reachability, ObjectRoot.class));
+        assertTrue(reachable(reachability, Other.class));
+        assertTrue(reachable(reachability, SubConstant.class));
+        assertTrue(reachable(reachability, InterfaceRoot.class));
+    }
+
+    private static Reachability reachability(Class<?> root) {
+        Reachability reachability = new Reachability(List.of(root.getName()), type -> null);
+        for (Class<?> type : List.of(InterfaceRoot.class, ObjectRoot.class, Constant.class, SubConstant.class,
+                Value.class, Other.class)) {
+            reachability.register(TypeDescription.ForLoadedType.of(type));
+        }
+        return reachability;
+    }
+
+    private static boolean reachable(Reachability reachability, Class<?> type) {
+        return reachability.isReachable(TypeDescription.ForLoadedType.of(type));
+    }
+
+    static class InterfaceRoot {
+        Supplier<Value> supplier;
+    }
+
+    static class ObjectRoot {
+        Object value;
+    }
+
+    static class Constant implements Supplier<Value> {
+        Value value;
+
+        @Override
+        public Value get() {
+            return value;
+        }
+    }
+
+    static class SubConstant extends Constant {
+    }
+
+    static class Value {
+    }
+
+    static class Other {
+    }
+}
@@ -0,0 +1,120 @@
+package dev.bodewig.autoserializable;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.ObjectStreamClass;
+import java.io.Reader;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialVersionUidsTest {
+
+    private static final ClassFileLocator locator =
+            ClassFileLocator.ForClassLoader.of(SerialVersionUidsTest.class.getClassLoader());
+
+    @Test
+    void compute() throws IOException {
+        for (Class<?> type : List.of(Empty.class, Fields.class, Methods.class, AbstractBase.class, Inner.class,
+                new Serializable() {
+                }.getClass())) {
+            assertEquals(ObjectStreamClass.lookup(type).getSerialVersionUID(),
+                    SerialVersionUids.compute(locator.locate(type.getName()).resolve()), type.getName());
+        }
+    }
+
+    @Test
+    void pinAndMerge(@TempDir Path directory) throws IOException {
+        Path lockfile = directory.resolve("serialVersionUIDs.lock");
+        Files.writeString(lockfile, Fields.class.getName() + "=42\n");
+
+        SerialVersionUids uids = new SerialVersionUids(lockfile);
+        assertEquals(42L, uids.of(TypeDescription.ForLoadedType.of(Fields.class), locator));
+        long computed = uids.of(TypeDescription.ForLoadedType.of(Methods.class), locator);
+        assertEquals(ObjectStreamClass.lookup(Methods.class).getSerialVersionUID(), computed);
+
+        // entries written in the meantime, e.g. by a parallel build, are kept
+        Files.writeString(lockfile, Fields.class.getName() + "=42\n" + Empty.class.getName() + "=7\n");
+        uids.save();
+        Properties entries = new Properties();
+        try (Reader reader = Files.newBufferedReader(lockfile)) {
+            entries.load(reader);
+        }
+        assertEquals(3, entries.size());
+        assertEquals("42", entries.getProperty(Fields.class.getName()));
+        assertEquals("7", entries.getProperty(Empty.class.getName()));
+        assertEquals(Long.toString(computed), entries.getProperty(Methods.class.getName()));
+
+        // pinned values stay stable once the class changes
+        Files.writeString(lockfile, Methods.class.getName() + "=1\n");
+        assertEquals(1L, new SerialVersionUids(lockfile).of(TypeDescription.ForLoadedType.of(Methods.class), locator));
+    }
+
+    @Test
+    void invalidLockfile(@TempDir Path directory) throws IOException {
+        Path lockfile = directory.resolve("serialVersionUIDs.lock");
+        Files.writeString(lockfile, Fields.class.getName() + "=abc\n");
+        assertThrows(IllegalArgumentException.class, () -> new SerialVersionUids(lockfile));
+    }
+
+    static class Empty implements Serializable {
+    }
+
+    @SuppressWarnings("unused")
+    public static final class Fields implements Serializable, Comparable<Fields> {
+        private static final Object CONSTANT = new Object();
+        private static int counter;
+        protected transient volatile long cache;
+        public String name;
+        int[] values;
+        private transient Object local;
+
+        @Override
+        public int compareTo(Fields other) {
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Methods implements Serializable {
+        Methods() {
+        }
+
+        protected Methods(String name) {
+        }
+
+        private Methods(int value) {
+        }
+
+        public static synchronized void a() {
+        }
+
+        protected final String b(List<String> values, int[] more) {
+            return null;
+        }
+
+        private void c() {
+        }
+
+        native void d();
+    }
+
+    abstract static class AbstractBase implements Serializable {
+        abstract void run();
+    }
+
+    @SuppressWarnings("InnerClassMayBeStatic")
+    class Inner extends AbstractBase {
+        @Override
+        void run() {
+        }
+    }
+}
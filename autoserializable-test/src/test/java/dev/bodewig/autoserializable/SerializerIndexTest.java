@@ -0,0 +1,49 @@
+package dev.bodewig.autoserializable;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializerIndexTest {
+
+    @Test
+    void fingerprintFirst(@TempDir Path directory) throws IOException {
+        Path cache = directory.resolve("index");
+        File jar = directory.resolve("lib.jar").toFile();
+        Files.writeString(jar.toPath(), "first");
+        FileTime modified = Files.getLastModifiedTime(jar.toPath());
+
+        SerializerIndex index = new SerializerIndex(cache, List.of());
+        index.put(jar, ClasspathSerializers.fingerprint(jar), Set.of("a.Serializer"));
+        index.save();
+
+        // same size and modification time, the content is not read
+        Files.writeString(jar.toPath(), "other");
+        Files.setLastModifiedTime(jar.toPath(), modified);
+        assertEquals(Set.of("a.Serializer"),
+                new SerializerIndex(cache, List.of()).get(jar, ClasspathSerializers.fingerprint(jar)));
+
+        // touched without changes, the content is hashed
+        Files.writeString(jar.toPath(), "first");
+        Files.setLastModifiedTime(jar.toPath(), FileTime.fromMillis(modified.toMillis() + 2000));
+        index = new SerializerIndex(cache, List.of());
+        assertEquals(Set.of("a.Serializer"), index.get(jar, ClasspathSerializers.fingerprint(jar)));
+        index.save();
+        assertTrue(Files.readString(cache).contains(ClasspathSerializers.fingerprint(jar)));
+
+        // changed
+        Files.writeString(jar.toPath(), "third");
+        assertNull(new SerializerIndex(cache, List.of()).get(jar, ClasspathSerializers.fingerprint(jar)));
+        // other scanned packages
+        assertNull(new SerializerIndex(cache, List.of("a")).get(jar, ClasspathSerializers.fingerprint(jar)));
+    }
+}
@@ -0,0 +1,70 @@
+package dev.bodewig.autoserializable;
+
+import dev.bodewig.autoserializable.api.AutoSerialized;
+import net.bytebuddy.build.Plugin;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformationManifestTest {
+
+    @Test
+    void outputHashes(@TempDir Path directory) throws IOException {
+        Path classes = directory.resolve("classes");
+        Path manifest = directory.resolve("manifest");
+        Path classFile = classes.resolve(Bean.class.getName().replace('.', '/') + ".class");
+        byte[] input = ClassFileLocator.ForClassLoader.read(Bean.class);
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, input);
+
+        Plugin.Engine.Summary summary = transform(classes, manifest);
+        assertEquals(1, summary.getTransformed().size());
+        byte[] output = Files.readAllBytes(classFile);
+        assertEquals(entry(TransformationManifest.hash(input), TransformationManifest.hash(output)),
+                entry(manifest));
+
+        // the transformed class is retained and up-to-date
+        summary = transform(classes, manifest);
+        assertTrue(summary.getTransformed().isEmpty());
+        assertArrayEquals(output, Files.readAllBytes(classFile));
+        assertEquals(entry(TransformationManifest.hash(input), TransformationManifest.hash(output)),
+                entry(manifest));
+
+        // a transformed class that does not match its recorded output is out of date
+        Files.writeString(manifest, Files.readString(manifest).replace(TransformationManifest.hash(output), "0"));
+        transform(classes, manifest);
+        assertEquals(entry(TransformationManifest.hash(input), "stale"), entry(manifest));
+    }
+
+    private static Plugin.Engine.Summary transform(Path classes, Path manifest) throws IOException {
+        AutoSerializablePlugin plugin = new AutoSerializablePlugin(new File[0], "manifest=" + manifest);
+        return new Plugin.Engine.Default()
+                .with(ClassFileLocator.ForClassLoader.of(AutoSerialized.class.getClassLoader()))
+                .apply(new Plugin.Engine.Source.ForFolder(classes.toFile()),
+                        new Plugin.Engine.Target.ForFolder(classes.toFile()), new Plugin.Factory.Simple(plugin));
+    }
+
+    private static String entry(String inputHash, String outputHash) {
+        return Bean.class.getName() + '\t' + inputHash + "\t\t" + outputHash;
+    }
+
+    private static String entry(Path manifest) throws IOException {
+        List<String> lines = Files.readAllLines(manifest);
+        assertEquals(2, lines.size());
+        return lines.get(1);
+    }
+
+    public static class Bean implements Serializable {
+        private int value;
+        private String name;
+    }
+}
@@ -16,7 +16,7 @@ class AutoSerializableJUnitTest {
     Stream<DynamicTest> testAll() {
         List<URI> sources;
         try (ScanResult scanResult = new ClassGraph().ignoreClassVisibility().filterClasspathElements(
-                path -> path.endsWith("/autoserializable-test/target/classes") ||
+                path -> path.contains("/autoserializable-test/target/classes") ||
                         path.endsWith("/build/classes/java/main") || path.contains("/build/transformedJars")).scan()) {
             sources = scanResult.getClasspathURIs();
         }
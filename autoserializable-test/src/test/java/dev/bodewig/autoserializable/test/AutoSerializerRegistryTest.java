@@ -0,0 +1,36 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.AutoSerializer;
+import dev.bodewig.autoserializable.api.AutoSerializerRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutoSerializerRegistryTest {
+
+    @Test
+    void shared() {
+        AutoSerializer<?> serializer = AutoSerializerRegistry.get(MethodHandles.lookup(), Inner.class);
+        assertInstanceOf(Inner.class, serializer);
+        assertSame(serializer, AutoSerializerRegistry.get(MethodHandles.lookup(), Inner.class));
+    }
+
+    @Test
+    void nested() {
+        // a serializer requesting another serializer while it is created
+        Outer outer = (Outer) AutoSerializerRegistry.get(MethodHandles.lookup(), Outer.class);
+        assertSame(AutoSerializerRegistry.get(MethodHandles.lookup(), Requested.class), outer.requested);
+    }
+
+    static class Inner extends AutoSerializer<Object> {
+    }
+
+    static class Requested extends AutoSerializer<Object> {
+    }
+
+    static class Outer extends AutoSerializer<Object> {
+        final AutoSerializer<?> requested = AutoSerializerRegistry.get(MethodHandles.lookup(), Requested.class);
+    }
+}
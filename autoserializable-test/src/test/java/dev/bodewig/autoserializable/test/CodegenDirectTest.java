@@ -0,0 +1,121 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.DirectSerialForm;
+import dev.bodewig.autoserializable.api.FieldBuilderException;
+import dev.bodewig.autoserializable.api.GetFieldBuilder;
+import dev.bodewig.autoserializable.api.InPlaceDecoder;
+import dev.bodewig.autoserializable.api.ProjectionReader;
+import dev.bodewig.autoserializable.junit.AutoSerializableTestFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs against the classes transformed with codegen=direct by the direct-test execution
+class CodegenDirectTest {
+
+    @Test
+    void generated() throws ReflectiveOperationException {
+        assertNotNull(CopyBean.class.getDeclaredMethod("writeObject", ObjectOutputStream.class));
+        assertNotNull(CopyBean.class.getDeclaredMethod("readObject", ObjectInputStream.class));
+        assertNotNull(CopyBean.class.getDeclaredField(DirectSerialForm.FIELD_NAME));
+        // classes with a custom serializer keep it
+        assertThrows(NoSuchFieldException.class,
+                () -> NonSerializableBean.class.getDeclaredField(DirectSerialForm.FIELD_NAME));
+    }
+
+    @Test
+    void writeRead() {
+        CopyBean bean = new CopyBean(3);
+        bean.next = new CopyBean(4);
+        bean.children.add(bean.next);
+        CopyBean copy = AutoSerializableTestFactory.testSerialization(bean);
+        assertEquals(3, copy.value);
+        assertEquals("bean3", copy.name);
+        assertArrayEquals(new int[]{3, 4}, copy.numbers);
+        assertEquals(4, copy.next.value);
+        assertSame(copy.next, copy.children.get(0));
+        assertNull(copy.cache);
+    }
+
+    @Test
+    void changedLayout() throws IOException, ReflectiveOperationException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new CopyBean(1));
+        }
+        byte[] data = bytes.toByteArray();
+        Field field = CopyBean.class.getDeclaredField(DirectSerialForm.FIELD_NAME);
+        field.setAccessible(true);
+        byte[] version = ByteBuffer.allocate(Long.BYTES).putLong(field.getLong(null)).array();
+        int offset = indexOf(data, version);
+        assertTrue(offset >= 0);
+
+        // a stream of another field layout is rejected instead of misread
+        data[offset] ^= 1;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            assertThrows(InvalidClassException.class, in::readObject);
+        }
+    }
+
+    @Test
+    void streamParsers() throws IOException, ClassNotFoundException {
+        // the descriptor lists no fields, the values are block data
+        assertEquals(0, ObjectStreamClass.lookup(CopyBean.class).getFields().length);
+        CopyBean bean = new CopyBean(1);
+        bean.next = new CopyBean(2);
+        Holder holder = new Holder();
+        holder.bean = bean;
+
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive(holder, "end")),
+                GetFieldBuilder.forType(Holder.class).with("value").plan())) {
+            assertEquals(3, ((Holder) reader.readObject()).value);
+            assertEquals("end", reader.readObject());
+        }
+
+        // the fields of the class can not be projected, its values are skipped as block data
+        assertThrows(FieldBuilderException.class, () -> GetFieldBuilder.forType(CopyBean.class).with("value"));
+        byte[] data = archive(bean, "end");
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(data),
+                GetFieldBuilder.forType(CopyBean.class).all().plan())) {
+            assertEquals(0, ((CopyBean) reader.readObject()).value);
+            assertEquals("end", reader.readObject());
+        }
+
+        InPlaceDecoder decoder = new InPlaceDecoder();
+        CopyBean copy = (CopyBean) decoder.decodeInto(data, new CopyBean(0));
+        assertEquals(1, copy.value);
+        assertEquals(2, copy.next.value);
+        assertEquals(1, decoder.getFallbackCount());
+    }
+
+    private static byte[] archive(Object... objects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for (Object object : objects) {
+                out.writeObject(object);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int indexOf(byte[] data, byte[] value) {
+        for (int i = 0; i + value.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + value.length, value, 0, value.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static class Holder implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        int value = 3;
+        CopyBean bean;
+    }
+}
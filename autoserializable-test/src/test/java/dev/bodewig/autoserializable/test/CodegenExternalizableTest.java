@@ -0,0 +1,37 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.junit.AutoSerializableTestFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.Externalizable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs against the classes transformed with codegen=externalizable by the externalizable-test execution
+class CodegenExternalizableTest {
+
+    @Test
+    void externalizable() {
+        assertInstanceOf(Externalizable.class, new CopyBean(1));
+        CopyBean bean = new CopyBean(5);
+        bean.next = bean;
+        CopyBean copy = AutoSerializableTestFactory.testSerialization(bean);
+        assertEquals(5, copy.value);
+        assertArrayEquals(new int[]{5, 6}, copy.numbers);
+        assertSame(copy, copy.next);
+    }
+
+    @Test
+    void hierarchy() {
+        // the subclass calls the methods generated for its super class
+        assertInstanceOf(Externalizable.class, new BeanWithNoArgsConstructor.Inherited());
+        assertInstanceOf(BeanWithNoArgsConstructor.Inherited.class,
+                AutoSerializableTestFactory.testSerialization(new BeanWithNoArgsConstructor.Inherited()));
+    }
+
+    @Test
+    void customSerializer() {
+        assertFalse(Externalizable.class.isAssignableFrom(NonSerializableBean.class));
+        AutoSerializableTestFactory.testSerialization(new NonSerializableBean());
+    }
+}
@@ -0,0 +1,38 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.AutoSerializable;
+import dev.bodewig.autoserializable.junit.AutoSerializableTestFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs against the classes transformed with codegen=minimal and scanPackages by the minimal-test execution
+class CodegenMinimalTest {
+
+    @Test
+    void defaultSerialForm() {
+        assertInstanceOf(Serializable.class, new CopyBean(1));
+        assertThrows(NoSuchFieldException.class, () -> CopyBean.class.getDeclaredField(AutoSerializable.FIELD_NAME));
+        assertThrows(NoSuchMethodException.class,
+                () -> CopyBean.class.getDeclaredMethod("writeObject", ObjectOutputStream.class));
+
+        CopyBean bean = new CopyBean(2);
+        bean.next = bean;
+        CopyBean copy = AutoSerializableTestFactory.testSerialization(bean);
+        assertEquals("bean2", copy.name);
+        assertSame(copy, copy.next);
+    }
+
+    @Test
+    void customSerializer() throws ReflectiveOperationException {
+        // found in the only scanned package
+        Method method = NonSerializableBean.class.getDeclaredMethod(AutoSerializable.METHOD_NAME);
+        method.setAccessible(true);
+        assertInstanceOf(NonSerializableBeanSerializer.class, method.invoke(null));
+        AutoSerializableTestFactory.testSerialization(new NonSerializableBean());
+    }
+}
@@ -0,0 +1,27 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.junit.AutoSerializableTestFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs against the classes transformed with roots=ReachabilityBeans$Root by the roots-test execution
+class CodegenRootsTest {
+
+    @Test
+    void reachableTypes() {
+        assertInstanceOf(Serializable.class, new ReachabilityBeans.Root());
+        // reached through the field of the interface type
+        assertInstanceOf(Serializable.class, new ReachabilityBeans.Constant());
+        ReachabilityBeans.Root copy = AutoSerializableTestFactory.testSerialization(new ReachabilityBeans.Root());
+        assertEquals("constant", copy.supplier.get());
+    }
+
+    @Test
+    void unreachableTypes() {
+        assertFalse(Serializable.class.isAssignableFrom(ReachabilityBeans.Unreachable.class));
+        assertFalse(Serializable.class.isAssignableFrom(TestBean.class));
+    }
+}
@@ -0,0 +1,110 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.CompactObjectInputStream;
+import dev.bodewig.autoserializable.api.CompactObjectOutputStream;
+import dev.bodewig.autoserializable.api.TypeRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactStreamTest {
+
+    @Test
+    void registered() {
+        TypeRegistry.Entry entry = TypeRegistry.getDefault().get(TestBean.class.getName());
+        assertNotNull(entry);
+        assertEquals("abc:Ljava/lang/String;,zero:I", entry.layout());
+        assertSame(entry, TypeRegistry.getDefault().lookup(ObjectStreamClass.lookup(TestBean.class)));
+    }
+
+    @Test
+    void writeRead() throws IOException, ClassNotFoundException {
+        List<Object> list = new ArrayList<>();
+        list.add(new TestBean(1));
+        list.add(new NonSerializableBean());
+        list.add("text");
+
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new CompactObjectOutputStream(compact)) {
+            oos.writeObject(list);
+        }
+        ByteArrayOutputStream full = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(full)) {
+            oos.writeObject(list);
+        }
+        assertTrue(compact.size() < full.size());
+
+        try (ObjectInputStream ois = new CompactObjectInputStream(new ByteArrayInputStream(compact.toByteArray()))) {
+            List<?> read = assertInstanceOf(List.class, ois.readObject());
+            assertEquals(1, assertInstanceOf(TestBean.class, read.get(0)).zero);
+            assertInstanceOf(NonSerializableBean.class, read.get(1));
+            assertEquals("text", read.get(2));
+        }
+    }
+
+    @Test
+    void defaultPerClassLoader() throws IOException {
+        TypeRegistry registry = TypeRegistry.getDefault();
+        assertSame(registry, TypeRegistry.getDefault(Thread.currentThread().getContextClassLoader()));
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[0], contextClassLoader)) {
+            thread.setContextClassLoader(classLoader);
+            TypeRegistry other = TypeRegistry.getDefault();
+            assertNotSame(registry, other);
+            assertSame(classLoader, other.getClassLoader());
+            assertSame(other, TypeRegistry.getDefault());
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    @Test
+    void mismatchedDescriptor() throws IOException {
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new CompactObjectOutputStream(compact)) {
+            oos.writeObject(new TestBean(1));
+        }
+        TypeRegistry registry = TypeRegistry.getDefault();
+        long digest = registry.layoutDigest(registry.get(TestBean.class.getName()));
+        long serialVersionUid = ObjectStreamClass.lookup(TestBean.class).getSerialVersionUID();
+        for (long value : new long[]{digest, serialVersionUid}) {
+            byte[] bytes = replace(compact.toByteArray(), value, value + 1);
+            try (ObjectInputStream ois = new CompactObjectInputStream(new ByteArrayInputStream(bytes))) {
+                assertThrows(InvalidClassException.class, ois::readObject);
+            }
+        }
+    }
+
+    @Test
+    void unknownId() throws IOException {
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new CompactObjectOutputStream(compact)) {
+            oos.writeObject(new TestBean(1));
+        }
+        TypeRegistry empty = TypeRegistry.read(new ByteArrayInputStream(new byte[0]));
+        try (ObjectInputStream ois = new CompactObjectInputStream(new ByteArrayInputStream(compact.toByteArray()),
+                empty)) {
+            assertThrows(InvalidClassException.class, ois::readObject);
+        }
+    }
+
+    private static byte[] replace(byte[] bytes, long value, long replacement) {
+        byte[] search = ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+        for (int i = 0; i <= bytes.length - search.length; i++) {
+            if (ByteBuffer.wrap(bytes, i, search.length).equals(ByteBuffer.wrap(search))) {
+                byte[] result = bytes.clone();
+                ByteBuffer.wrap(result, i, search.length).putLong(replacement);
+                return result;
+            }
+        }
+        throw new AssertionError("Value not found");
+    }
+}
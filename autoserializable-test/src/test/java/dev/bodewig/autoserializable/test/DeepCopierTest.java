@@ -0,0 +1,72 @@
+package dev.bodewig.autoserializable.test;
+
+import com.badlogic.gdx.math.Vector2;
+import dev.bodewig.autoserializable.api.DeepCopier;
+import dev.bodewig.autoserializable.api.ObjectCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeepCopierTest {
+
+    @Test
+    void generated() throws NoSuchMethodException {
+        int modifiers = CopyBean.class.getDeclaredMethod(DeepCopier.METHOD_NAME, Object.class, Object.class,
+                DeepCopier.class).getModifiers();
+        assertTrue(Modifier.isPrivate(modifiers) && Modifier.isStatic(modifiers));
+        assertThrows(NoSuchMethodException.class, () -> TestBean.class.getDeclaredMethod(DeepCopier.METHOD_NAME,
+                Object.class, Object.class, DeepCopier.class));
+    }
+
+    @Test
+    void cycles() {
+        CopyBean a = new CopyBean(1);
+        CopyBean b = new CopyBean(2);
+        a.next = b;
+        b.next = a;
+        a.children.add(b);
+        a.children.add(a);
+
+        CopyBean copy = DeepCopier.deepCopy(a);
+        assertNotSame(a, copy);
+        assertEquals(1, copy.value);
+        assertSame(a.name, copy.name);
+        assertNotSame(a.numbers, copy.numbers);
+        assertArrayEquals(a.numbers, copy.numbers);
+        assertNull(copy.cache);
+        assertNotSame(b, copy.next);
+        assertEquals(2, copy.next.value);
+        assertSame(copy, copy.next.next);
+        assertNotSame(a.children, copy.children);
+        assertSame(copy.next, copy.children.get(0));
+        assertSame(copy, copy.children.get(1));
+    }
+
+    @Test
+    void sameAsSerialization() throws IOException, ClassNotFoundException {
+        // bound to a custom serializer
+        FieldBuilderBean bean = new FieldBuilderBean();
+        bean.d = "old";
+        bean.e = 7;
+        FieldBuilderBean copy = DeepCopier.deepCopy(bean);
+        assertNotSame(bean, copy);
+        assertEquals(ObjectCodec.getDefault().decode(ObjectCodec.getDefault().encode(bean)), copy);
+
+        // final field copied by reflection
+        assertEquals(3, DeepCopier.deepCopy(new TestBean(3)).zero);
+
+        Vector2 vector = new Vector2(1, 2);
+        Vector2 vectorCopy = DeepCopier.deepCopy(vector);
+        assertNotSame(vector, vectorCopy);
+        assertEquals(vector, vectorCopy);
+    }
+
+    @Test
+    void notSerializable() {
+        assertThrows(UncheckedIOException.class, () -> DeepCopier.deepCopy(new Thread()));
+    }
+}
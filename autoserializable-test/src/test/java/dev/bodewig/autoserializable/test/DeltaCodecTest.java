@@ -0,0 +1,73 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.DeltaCodec;
+import dev.bodewig.autoserializable.api.ObjectCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaCodecTest {
+
+    @Test
+    void tracking() {
+        assertTrue(DeltaCodec.isTracked(DeltaBean.class));
+        DeltaBean bean = new DeltaBean(7);
+        // fields assigned by the constructor
+        assertTrue(DeltaCodec.isDirty(bean));
+        DeltaCodec.markClean(bean);
+        assertFalse(DeltaCodec.isDirty(bean));
+        bean.increment();
+        assertTrue(DeltaCodec.isDirty(bean));
+    }
+
+    @Test
+    void applyChangedFields() throws IOException, ClassNotFoundException {
+        DeltaBean bean = new DeltaBean(7);
+        bean.setName("a");
+        DeltaBean replica = (DeltaBean) ObjectCodec.getDefault().decode(ObjectCodec.getDefault().encode(bean));
+        assertFalse(DeltaCodec.isDirty(replica));
+        DeltaCodec.markClean(bean);
+
+        bean.increment();
+        bean.increment();
+        bean.tags.add("x");
+        replica.setName("local");
+        byte[] delta = delta(bean);
+        assertFalse(DeltaCodec.isDirty(bean));
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(delta))) {
+            DeltaCodec.readDelta(in, replica);
+        }
+        assertEquals(2, replica.counter);
+        assertEquals(7, replica.getId());
+        // neither written nor changed in place
+        assertEquals("local", replica.getName());
+        assertTrue(replica.tags.isEmpty());
+
+        // only reassigned references are part of the delta
+        bean.setTags(bean.tags);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(delta(bean)))) {
+            DeltaCodec.readDelta(in, replica);
+        }
+        assertEquals(2, replica.counter);
+        assertEquals(bean.tags, replica.tags);
+    }
+
+    @Test
+    void wrongTarget() throws IOException {
+        byte[] delta = delta(new DeltaBean(1));
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(delta))) {
+            assertThrows(InvalidObjectException.class, () -> DeltaCodec.readDelta(in, new CopyBean(1)));
+        }
+    }
+
+    private static byte[] delta(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            DeltaCodec.writeDelta(out, object);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,5 +1,7 @@
 package dev.bodewig.autoserializable.test;
 
+import dev.bodewig.autoserializable.api.GetFieldBuilder;
+import dev.bodewig.autoserializable.api.PutFieldBuilder;
 import dev.bodewig.autoserializable.junit.AutoSerializableTestFactory;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -17,4 +19,28 @@ class FieldBuilderTest {
         FieldBuilderBean clone = AutoSerializableTestFactory.testSerialization(original);
         Assertions.assertEquals(original, clone);
     }
+
+    @Test
+    void plans() {
+        FieldPlanBean original = new FieldPlanBean();
+        original.e = 21;
+        original.k = "changed";
+        FieldPlanBean clone = AutoSerializableTestFactory.testSerialization(original);
+        original.k = "k";
+        Assertions.assertEquals(original, clone);
+        Assertions.assertEquals(clone, AutoSerializableTestFactory.testSerialization(clone));
+    }
+
+    @Test
+    void cachedPlans() {
+        GetFieldBuilder<CopyBean> getFields = GetFieldBuilder.forType(CopyBean.class).with("value");
+        Assertions.assertSame(getFields.plan(), getFields.plan());
+        Assertions.assertNotSame(getFields.plan(), getFields.with("name").plan());
+        // configuring a field again replaces its operation
+        Assertions.assertNotSame(getFields.plan(), getFields.with("name").plan());
+
+        PutFieldBuilder<CopyBean> putFields = PutFieldBuilder.forType(CopyBean.class).with("value");
+        Assertions.assertSame(putFields.plan(), putFields.plan());
+        Assertions.assertNotSame(putFields.plan(), putFields.without("value").plan());
+    }
 }
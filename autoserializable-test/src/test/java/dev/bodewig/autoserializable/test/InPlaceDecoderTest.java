@@ -0,0 +1,147 @@
+package dev.bodewig.autoserializable.test;
+
+import com.badlogic.gdx.math.Vector2;
+import dev.bodewig.autoserializable.api.InPlaceDecoder;
+import dev.bodewig.autoserializable.api.ObjectCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InPlaceDecoderTest {
+
+    @Test
+    void reuseGraph() throws IOException, ClassNotFoundException {
+        CopyBean message = new CopyBean(5);
+        message.next = new CopyBean(6);
+        message.next.next = message;
+        message.children = null;
+        message.next.children = null;
+        byte[] bytes = ObjectCodec.getDefault().encode(message);
+
+        CopyBean pooled = new CopyBean(1);
+        CopyBean pooledNext = new CopyBean(2);
+        pooled.next = pooledNext;
+        int[] pooledNumbers = pooled.numbers;
+        Object cache = pooled.cache;
+
+        InPlaceDecoder decoder = new InPlaceDecoder();
+        assertSame(pooled, decoder.decodeInto(bytes, pooled));
+        assertEquals(5, pooled.value);
+        assertEquals("bean5", pooled.name);
+        assertSame(pooledNumbers, pooled.numbers);
+        assertArrayEquals(new int[]{5, 6}, pooled.numbers);
+        assertSame(pooledNext, pooled.next);
+        assertEquals(6, pooledNext.value);
+        assertSame(pooled, pooledNext.next);
+        assertNull(pooled.children);
+        assertSame(cache, pooled.cache);
+
+        Vector2 vector = new Vector2();
+        assertSame(vector, decoder.decodeInto(ObjectCodec.getDefault().encode(new Vector2(3, 4)), vector));
+        assertEquals(new Vector2(3, 4), vector);
+        assertEquals(2, decoder.getInPlaceCount());
+        assertEquals(0, decoder.getFallbackCount());
+    }
+
+    @Test
+    void fallback() throws IOException, ClassNotFoundException {
+        CopyBean message = new CopyBean(5);
+        message.children.add(new CopyBean(6));
+
+        InPlaceDecoder decoder = new InPlaceDecoder();
+        CopyBean pooled = new CopyBean(1);
+        CopyBean decoded = (CopyBean) decoder.decodeInto(ObjectCodec.getDefault().encode(message), pooled);
+        assertNotSame(pooled, decoded);
+        assertEquals(5, decoded.value);
+        assertEquals(6, decoded.children.get(0).value);
+        assertEquals(1, decoder.getFallbackCount());
+        // the stream is checked before the first write
+        assertEquals(1, pooled.value);
+        assertEquals("bean1", pooled.name);
+        assertTrue(pooled.children.isEmpty());
+    }
+
+    @Test
+    void fallbackClassLoader() throws IOException {
+        // the loader can not resolve the classes of the stream
+        InPlaceDecoder decoder = new InPlaceDecoder(new ClassLoader(null) {
+        });
+        byte[] bytes = ObjectCodec.getDefault().encode(new CopyBean(5));
+        assertThrows(ClassNotFoundException.class, () -> decoder.decodeInto(bytes, new CopyBean(1)));
+    }
+
+    @Test
+    void filter() throws IOException, ClassNotFoundException {
+        CopyBean message = new CopyBean(5);
+        message.children = null;
+        byte[] bytes = ObjectCodec.getDefault().encode(message);
+        CopyBean pooled = new CopyBean(1);
+        InPlaceDecoder rejectArrays = new InPlaceDecoder(null,
+                info -> info.serialClass() == int[].class ? ObjectInputFilter.Status.REJECTED :
+                        ObjectInputFilter.Status.UNDECIDED);
+        assertThrows(InvalidClassException.class, () -> rejectArrays.decodeInto(bytes, pooled));
+        assertEquals(1, pooled.value);
+
+        InPlaceDecoder limitDepth = new InPlaceDecoder(null, ObjectInputFilter.Config.createFilter("maxdepth=1"));
+        assertThrows(InvalidClassException.class, () -> limitDepth.decodeInto(bytes, pooled));
+        assertEquals(1, pooled.value);
+
+        InPlaceDecoder allowAll = new InPlaceDecoder(null, info -> ObjectInputFilter.Status.ALLOWED);
+        assertSame(pooled, allowAll.decodeInto(bytes, pooled));
+        assertEquals(5, pooled.value);
+    }
+
+    @Test
+    void missingFields() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(out)) {
+            stream.writeObject(new OldBean());
+        }
+        byte[] bytes = replace(out.toByteArray(), OldBean.class.getName(), NewBean.class.getName());
+
+        NewBean pooled = new NewBean();
+        pooled.extra = "extra";
+        pooled.count = 3;
+        InPlaceDecoder decoder = new InPlaceDecoder();
+        assertSame(pooled, decoder.decodeInto(bytes, pooled));
+        assertEquals(5, pooled.value);
+        assertEquals("old", pooled.name);
+        // like a new object, the fields the writer did not know have their default values
+        assertNull(pooled.extra);
+        assertEquals(0, pooled.count);
+        assertEquals(0, decoder.getFallbackCount());
+    }
+
+    private static byte[] replace(byte[] bytes, String from, String to) {
+        byte[] source = from.getBytes(StandardCharsets.UTF_8);
+        byte[] replacement = to.getBytes(StandardCharsets.UTF_8);
+        assertEquals(source.length, replacement.length);
+        byte[] result = bytes.clone();
+        for (int i = 0; i <= result.length - source.length; i++) {
+            if (Arrays.equals(result, i, i + source.length, source, 0, source.length)) {
+                System.arraycopy(replacement, 0, result, i, replacement.length);
+            }
+        }
+        return result;
+    }
+
+    static class OldBean implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        int value = 5;
+        String name = "old";
+    }
+
+    static class NewBean implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        int value;
+        String name;
+        String extra;
+        int count;
+    }
+}
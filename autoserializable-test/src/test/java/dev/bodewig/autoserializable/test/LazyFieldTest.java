@@ -0,0 +1,70 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.LazyDeserialized;
+import dev.bodewig.autoserializable.api.LazyValue;
+import dev.bodewig.autoserializable.api.ObjectCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyFieldTest {
+
+    @Test
+    void generated() throws NoSuchFieldException {
+        assertTrue(Modifier.isTransient(LazyBean.class.getDeclaredField("payload").getModifiers()));
+        assertEquals(LazyValue.class,
+                LazyBean.class.getDeclaredField(LazyDeserialized.FIELD_PREFIX + "payload").getType());
+    }
+
+    @Test
+    void decodeOnFirstRead() throws IOException, ClassNotFoundException, ReflectiveOperationException {
+        LazyBean bean = new LazyBean("a");
+        bean.getPayload().add("x");
+        bean.getPayload().add("y");
+
+        LazyBean copy = (LazyBean) ObjectCodec.getDefault().decode(ObjectCodec.getDefault().encode(bean));
+        assertEquals("a", copy.id);
+        assertFalse(holder(copy).isDecoded());
+
+        // serialized again without decoding the payload
+        LazyBean copyOfCopy = (LazyBean) ObjectCodec.getDefault().decode(ObjectCodec.getDefault().encode(copy));
+        assertFalse(holder(copy).isDecoded());
+
+        assertEquals(List.of("x", "y"), copy.getPayload());
+        assertTrue(holder(copy).isDecoded());
+        assertSame(copy.getPayload(), copy.getPayload());
+        assertEquals(List.of("x", "y"), copyOfCopy.getPayload());
+
+        copy.setPayload(null);
+        assertNull(copy.getPayload());
+    }
+
+    @Test
+    void filterOfStream() throws IOException, ClassNotFoundException {
+        LazyBean bean = new LazyBean("a");
+        bean.getPayload().add("x");
+        byte[] bytes = ObjectCodec.getDefault().encode(bean);
+
+        LazyBean copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(info -> info.serialClass() == ArrayList.class ? ObjectInputFilter.Status.REJECTED :
+                    ObjectInputFilter.Status.UNDECIDED);
+            copy = (LazyBean) in.readObject();
+        }
+        // the payload is only checked when it is decoded
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, copy::getPayload);
+        assertInstanceOf(InvalidClassException.class, e.getCause());
+    }
+
+    private static LazyValue holder(LazyBean bean) throws ReflectiveOperationException {
+        Field field = LazyBean.class.getDeclaredField(LazyDeserialized.FIELD_PREFIX + "payload");
+        field.setAccessible(true);
+        return (LazyValue) field.get(bean);
+    }
+}
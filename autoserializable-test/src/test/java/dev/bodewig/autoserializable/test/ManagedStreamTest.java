@@ -0,0 +1,90 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.ManagedObjectOutputStream;
+import dev.bodewig.autoserializable.api.ResetPolicy;
+import dev.bodewig.autoserializable.api.SessionObjectInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManagedStreamTest {
+
+    private static final int COUNT = 10_000;
+
+    @Test
+    void everyObjects() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ManagedObjectOutputStream out = new ManagedObjectOutputStream(bytes, ResetPolicy.everyObjects(100))) {
+            write(out);
+            assertEquals(COUNT, out.getObjectCount());
+            assertEquals(COUNT / 100, out.getResetCount());
+            // the objects, their class descriptor and the shared string of each reset
+            assertEquals(102, out.getMaxHandleCount());
+            assertEquals(0, out.getHandleCount());
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read(in);
+        }
+    }
+
+    @Test
+    void everyBytes() throws IOException {
+        try (ManagedObjectOutputStream out = new ManagedObjectOutputStream(OutputStream.nullOutputStream(),
+                ResetPolicy.everyBytes(4096))) {
+            write(out);
+            out.flush();
+            assertTrue(out.getResetCount() > 0);
+            assertTrue(out.getBytesSinceReset() < 4096);
+            assertTrue(out.getByteCount() > out.getResetCount() * 4096);
+        }
+    }
+
+    @Test
+    void adaptive() throws IOException {
+        try (ManagedObjectOutputStream out = new ManagedObjectOutputStream(OutputStream.nullOutputStream(),
+                ResetPolicy.adaptive())) {
+            write(out);
+            assertTrue(out.getResetCount() > 0);
+            assertTrue(out.getMaxHandleCount() <= ResetPolicy.ADAPTIVE_MIN_HANDLES + 1);
+            assertEquals(COUNT + 2 * (out.getResetCount() + 1), out.getTotalHandleCount());
+        }
+        try (ManagedObjectOutputStream out = new ManagedObjectOutputStream(OutputStream.nullOutputStream(),
+                ResetPolicy.never())) {
+            write(out);
+            assertEquals(0, out.getResetCount());
+            assertEquals(COUNT + 2, out.getHandleCount());
+        }
+    }
+
+    @Test
+    void session() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (ManagedObjectOutputStream out = new ManagedObjectOutputStream(plain, ResetPolicy.everyObjects(1))) {
+            write(out);
+        }
+        ByteArrayOutputStream session = new ByteArrayOutputStream();
+        try (ManagedObjectOutputStream out = new ManagedObjectOutputStream(session, ResetPolicy.everyObjects(1),
+                true)) {
+            write(out);
+            assertEquals(COUNT, out.getResetCount());
+        }
+        assertTrue(session.size() < plain.size());
+        try (ObjectInputStream in = new SessionObjectInputStream(new ByteArrayInputStream(session.toByteArray()))) {
+            read(in);
+        }
+    }
+
+    private static void write(ObjectOutput out) throws IOException {
+        for (int i = 0; i < COUNT; i++) {
+            out.writeObject(new TestBean(i));
+        }
+    }
+
+    private static void read(ObjectInput in) throws IOException, ClassNotFoundException {
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(i, ((TestBean) in.readObject()).zero);
+        }
+    }
+}
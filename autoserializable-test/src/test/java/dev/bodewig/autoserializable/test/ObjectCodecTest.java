@@ -0,0 +1,82 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.ByteBufferInputStream;
+import dev.bodewig.autoserializable.api.ByteBufferOutputStream;
+import dev.bodewig.autoserializable.api.ObjectCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectCodecTest {
+
+    private final ObjectCodec codec = new ObjectCodec(2);
+
+    @Test
+    void encodeDecode() throws IOException, ClassNotFoundException {
+        for (int i = 0; i < 10; i++) {
+            byte[] bytes = codec.encode(new TestBean(i));
+            assertEquals(i, assertInstanceOf(TestBean.class, codec.decode(bytes)).zero);
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                assertEquals(i, assertInstanceOf(TestBean.class, in.readObject()).zero);
+            }
+        }
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(plain)) {
+            out.writeObject(new TestBean(42));
+        }
+        assertArrayEquals(plain.toByteArray(), codec.encode(new TestBean(42)));
+        assertEquals(42, assertInstanceOf(TestBean.class, codec.decode(plain.toByteArray())).zero);
+        assertThrows(StreamCorruptedException.class, () -> codec.decode(new byte[]{1, 2, 3, 4, 5}));
+    }
+
+    @Test
+    void byteBuffer() throws IOException, ClassNotFoundException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        int first = codec.encode(new TestBean(1), buffer);
+        int second = codec.encode(new NonSerializableBean(), buffer);
+        assertEquals(first + second, buffer.position());
+
+        buffer.flip();
+        assertEquals(1, assertInstanceOf(TestBean.class, codec.decode(buffer)).zero);
+        assertEquals(first, buffer.position());
+        assertInstanceOf(NonSerializableBean.class, codec.decode(buffer));
+        assertFalse(buffer.hasRemaining());
+
+        ByteBuffer stream = ByteBuffer.allocateDirect(1024);
+        try (ObjectOutputStream out = new ObjectOutputStream(new ByteBufferOutputStream(stream))) {
+            out.writeObject(new TestBean(2));
+        }
+        stream.flip();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteBufferInputStream(stream))) {
+            assertEquals(2, assertInstanceOf(TestBean.class, in.readObject()).zero);
+        }
+
+        ByteBuffer small = ByteBuffer.allocate(first - 1);
+        assertThrows(BufferOverflowException.class, () -> codec.encode(new TestBean(1), small));
+        assertEquals(0, small.position());
+    }
+
+    @Test
+    void virtualThreads() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                int value = i;
+                results.add(executor.submit(() -> ((TestBean) codec.decode(codec.encode(new TestBean(value)))).zero));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i, results.get(i).get());
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.GetFieldBuilder;
+import dev.bodewig.autoserializable.api.ProjectionReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectionReaderTest {
+
+    private static byte[] archive(Object... objects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for (Object object : objects) {
+                out.writeObject(object);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void selectedFields() throws IOException, ClassNotFoundException {
+        CopyBean a = new CopyBean(1);
+        a.children.add(new CopyBean(2));
+        CopyBean b = new CopyBean(3);
+        b.next = a;
+        byte[] archive = archive(a, b);
+
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive),
+                GetFieldBuilder.forType(CopyBean.class).with("value", "name").plan())) {
+            CopyBean first = (CopyBean) reader.readObject();
+            assertEquals(1, first.value);
+            assertEquals("bean1", first.name);
+            assertNull(first.numbers);
+            assertNull(first.children);
+            CopyBean second = (CopyBean) reader.readObject();
+            assertEquals(3, second.value);
+            assertNull(second.next);
+            assertThrows(EOFException.class, reader::readObject);
+            // the numbers and lists of all three beans and the element of the first list
+            assertEquals(7, reader.getSkippedObjects());
+        }
+
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive),
+                GetFieldBuilder.forType(CopyBean.class).all().without("children", "next").plan())) {
+            CopyBean first = (CopyBean) reader.readObject();
+            assertArrayEquals(new int[]{1, 2}, first.numbers);
+            assertNull(first.children);
+        }
+    }
+
+    @Test
+    void skippedReference() throws IOException {
+        CopyBean a = new CopyBean(1);
+        a.next = new CopyBean(2);
+        a.children.add(a.next);
+
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive(a)),
+                GetFieldBuilder.forType(CopyBean.class).with("next").plan())) {
+            assertThrows(InvalidObjectException.class, reader::readObject);
+        }
+    }
+
+    @Test
+    void serialVersionUID() throws IOException {
+        byte[] archive = replace(archive(new Version1()), Version1.class.getName(), Version2.class.getName());
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive),
+                GetFieldBuilder.forType(Version2.class).with("value").plan())) {
+            InvalidClassException e = assertThrows(InvalidClassException.class, reader::readObject);
+            assertTrue(e.getMessage().contains("serialVersionUID"));
+        }
+    }
+
+    @Test
+    void notSerializable() throws IOException {
+        byte[] archive = replace(archive(new Version1()), Version1.class.getName(), Unserial.class.getName());
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive))) {
+            assertThrows(InvalidClassException.class, reader::readObject);
+        }
+    }
+
+    @Test
+    void filter() throws IOException, ClassNotFoundException {
+        CopyBean a = new CopyBean(1);
+        a.children.add(new CopyBean(2));
+        byte[] archive = archive(new Version1(), a);
+
+        ObjectInputFilter rejectLists = info -> info.serialClass() == ArrayList.class ?
+                ObjectInputFilter.Status.REJECTED : ObjectInputFilter.Status.UNDECIDED;
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive), null, rejectLists,
+                GetFieldBuilder.forType(CopyBean.class).with("value").plan())) {
+            assertEquals(5, ((Version1) reader.readObject()).value);
+            // the skipped list is not checked
+            assertEquals(1, ((CopyBean) reader.readObject()).value);
+        }
+
+        ObjectInputFilter rejectVersions = info -> info.serialClass() == Version1.class ?
+                ObjectInputFilter.Status.REJECTED : ObjectInputFilter.Status.UNDECIDED;
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive), null, rejectVersions)) {
+            assertThrows(InvalidClassException.class, reader::readObject);
+        }
+    }
+
+    @Test
+    void writeObjectWithoutFieldData() throws IOException, ClassNotFoundException {
+        Holder holder = new Holder();
+        holder.custom = new Custom();
+        byte[] archive = archive(holder, new Version1());
+
+        // the block data of the skipped object is not read as its fields
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive),
+                GetFieldBuilder.forType(Holder.class).with("value").plan())) {
+            assertEquals(7, ((Holder) reader.readObject()).value);
+            assertEquals(5, ((Version1) reader.readObject()).value);
+        }
+
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive),
+                GetFieldBuilder.forType(Holder.class).all().plan(),
+                GetFieldBuilder.forType(Custom.class).with("text").plan())) {
+            InvalidClassException e = assertThrows(InvalidClassException.class, reader::readObject);
+            assertTrue(e.getMessage().contains("no field data"));
+        }
+    }
+
+    @Test
+    void duplicateFields() throws IOException {
+        byte[] archive = replace(archive(new Pair()), "upper", "lower");
+        try (ProjectionReader reader = new ProjectionReader(new ByteArrayInputStream(archive),
+                GetFieldBuilder.forType(Pair.class).with("lower").plan())) {
+            InvalidClassException e = assertThrows(InvalidClassException.class, reader::readObject);
+            assertTrue(e.getMessage().contains("duplicate"));
+        }
+    }
+
+    private static byte[] replace(byte[] bytes, String from, String to) {
+        byte[] source = from.getBytes(StandardCharsets.UTF_8);
+        byte[] replacement = to.getBytes(StandardCharsets.UTF_8);
+        assertEquals(source.length, replacement.length);
+        byte[] result = bytes.clone();
+        for (int i = 0; i <= result.length - source.length; i++) {
+            if (Arrays.equals(result, i, i + source.length, source, 0, source.length)) {
+                System.arraycopy(replacement, 0, result, i, replacement.length);
+            }
+        }
+        return result;
+    }
+
+    static class Version1 implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        int value = 5;
+    }
+
+    static class Version2 implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 2L;
+        int value;
+    }
+
+    @SuppressWarnings("unused")
+    static class Unserial {
+        int value;
+    }
+
+    static class Holder implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        int value = 7;
+        Custom custom;
+    }
+
+    static class Custom implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        String text = "text";
+
+        @Serial
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            // writes the field in its own form instead of calling defaultWriteObject
+            out.writeUTF(text);
+            out.writeObject(new int[]{1, 2});
+        }
+
+        @Serial
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            text = in.readUTF();
+            in.readObject();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    static class Pair implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        int lower = 1;
+        int upper = 2;
+    }
+}
@@ -0,0 +1,73 @@
+package dev.bodewig.autoserializable.test;
+
+import dev.bodewig.autoserializable.api.SessionObjectInputStream;
+import dev.bodewig.autoserializable.api.SessionObjectOutputStream;
+import dev.bodewig.autoserializable.api.TypeRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStreamTest {
+
+    @Test
+    void descriptorsOncePerSession() throws IOException, ClassNotFoundException {
+        // without registered ids, so the full class descriptors are written
+        TypeRegistry registry = TypeRegistry.read(new ByteArrayInputStream(new byte[0]));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SessionObjectOutputStream out = new SessionObjectOutputStream(bytes, registry)) {
+            out.writeObject(new TestBean(1));
+            out.reset();
+            out.flush();
+            int first = bytes.size();
+            out.writeObject(new TestBean(2));
+            out.reset();
+            out.flush();
+            assertTrue(bytes.size() - first < first / 2);
+            assertEquals(1, out.getDescriptorCount());
+        }
+
+        try (SessionObjectInputStream in = new SessionObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()), registry)) {
+            assertEquals(1, assertInstanceOf(TestBean.class, in.readObject()).zero);
+            assertEquals(2, assertInstanceOf(TestBean.class, in.readObject()).zero);
+            assertEquals(1, in.getDescriptorCount());
+        }
+    }
+
+    @Test
+    void pipe() throws Exception {
+        PipedInputStream pipeIn = new PipedInputStream(1024);
+        PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (SessionObjectOutputStream out = new SessionObjectOutputStream(pipeOut)) {
+            out.flush();
+            Future<Integer> read = executor.submit(() -> {
+                try (SessionObjectInputStream in = new SessionObjectInputStream(pipeIn)) {
+                    int sum = 0;
+                    Object message;
+                    while (!"end".equals(message = in.readObject())) {
+                        sum += ((TestBean) message).zero;
+                        assertInstanceOf(NonSerializableBean.class, in.readObject());
+                    }
+                    return sum;
+                }
+            });
+            for (int i = 0; i < 100; i++) {
+                out.writeObject(new TestBean(i));
+                out.writeObject(new NonSerializableBean());
+                out.reset();
+                out.flush();
+            }
+            out.writeObject("end");
+            out.flush();
+            assertEquals(4950, read.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
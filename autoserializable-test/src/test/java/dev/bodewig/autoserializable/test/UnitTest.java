@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.*;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -57,13 +58,19 @@ class UnitTest {
 
     @SuppressWarnings("JavaReflectionMemberAccess")
     @Test
-    void wasInitalized() throws IllegalAccessException, NoSuchFieldException {
+    void wasInitalized() throws ReflectiveOperationException {
+        Method m1 = NonSerializableBean.class.getDeclaredMethod("_serializer");
+        m1.setAccessible(true);
         Field f1 = NonSerializableBean.class.getDeclaredField("_serializer");
         f1.setAccessible(true);
-        assertNotNull(f1.get(null));
+        assertSame(m1.invoke(null), f1.get(null));
+        assertInstanceOf(NonSerializableBeanSerializer.class, f1.get(null));
 
+        Method m2 = TestInterface.Impl.class.getDeclaredMethod("_serializer");
+        m2.setAccessible(true);
         Field f2 = TestInterface.Impl.class.getDeclaredField("_serializer");
         f2.setAccessible(true);
+        assertSame(m2.invoke(null), f2.get(null));
         assertNotNull(f2.get(null));
     }
 
@@ -71,4 +78,18 @@ class UnitTest {
     void customSerializer() {
         AutoSerializableTestFactory.testSerialization(new NonSerializableBean());
     }
+
+    @Test
+    void sharedSerializer() throws ReflectiveOperationException {
+        Method m1 = SharedSerializerBeans.First.class.getDeclaredMethod("_serializer");
+        m1.setAccessible(true);
+        Method m2 = SharedSerializerBeans.Second.class.getDeclaredMethod("_serializer");
+        m2.setAccessible(true);
+        assertInstanceOf(SharedSerializerBeansSerializer.class, m1.invoke(null));
+        assertSame(m1.invoke(null), m2.invoke(null));
+
+        assertEquals("first",
+                AutoSerializableTestFactory.testSerialization(new SharedSerializerBeans.First()).value);
+        assertEquals(2, AutoSerializableTestFactory.testSerialization(new SharedSerializerBeans.Second()).value);
+    }
 }
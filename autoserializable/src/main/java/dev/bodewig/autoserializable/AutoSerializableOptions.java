@@ -0,0 +1,355 @@
+package dev.bodewig.autoserializable;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The options of the {@link AutoSerializablePlugin}.
+ * <p>
+ * Options are passed to the plugin as a single string argument of key-value pairs, e.g.
+ * {@code codegen=direct;otherKey=otherValue}. Keys are case-sensitive, values of enumerations are not.
+ */
+public final class AutoSerializableOptions {
+
+    /**
+     * The key of the {@link Codegen} option
+     */
+    public static final String CODEGEN = "codegen";
+
+    /**
+     * The key of the {@link SerialVersionUid} option
+     */
+    public static final String SERIAL_VERSION_UID = "serialVersionUID";
+
+    /**
+     * The key of the lockfile option, the path of a file to pin computed serialVersionUIDs in
+     */
+    public static final String LOCKFILE = "lockfile";
+
+    /**
+     * The key of the scanPackages option, a comma separated list of the packages to search for custom serializers
+     */
+    public static final String SCAN_PACKAGES = "scanPackages";
+
+    /**
+     * The key of the indexCache option, the path of a file to cache the custom serializers found on the classpath in
+     */
+    public static final String INDEX_CACHE = "indexCache";
+
+    /**
+     * The key of the manifest option, the path of a file to record the transformed classes in
+     */
+    public static final String MANIFEST = "manifest";
+
+    /**
+     * The key of the roots option, a comma separated list of the types to transform with all types reachable from them
+     */
+    public static final String ROOTS = "roots";
+
+    /**
+     * The key of the typeRegistry option, the path of a file to write the ids and field layouts of the transformed
+     * types to
+     */
+    public static final String TYPE_REGISTRY = "typeRegistry";
+
+    /**
+     * The key of the {@link DeepCopy} option
+     */
+    public static final String DEEP_COPY = "deepCopy";
+
+    /**
+     * The key of the {@link DirtyTracking} option
+     */
+    public static final String DIRTY_TRACKING = "dirtyTracking";
+
+    private static final AutoSerializableOptions DEFAULTS =
+            new AutoSerializableOptions(Codegen.DELEGATE, SerialVersionUid.RUNTIME, null, List.of(), null, null,
+                    List.of(), null, DeepCopy.RUNTIME, DirtyTracking.NONE);
+
+    private final Codegen codegen;
+    private final SerialVersionUid serialVersionUid;
+    private final Path lockfile;
+    private final List<String> scanPackages;
+    private final Path indexCache;
+    private final Path manifest;
+    private final List<String> roots;
+    private final Path typeRegistry;
+    private final DeepCopy deepCopy;
+    private final DirtyTracking dirtyTracking;
+
+    private AutoSerializableOptions(Codegen codegen, SerialVersionUid serialVersionUid, Path lockfile,
+                                    List<String> scanPackages, Path indexCache, Path manifest, List<String> roots,
+                                    Path typeRegistry, DeepCopy deepCopy, DirtyTracking dirtyTracking) {
+        this.codegen = codegen;
+        this.serialVersionUid = serialVersionUid;
+        this.lockfile = lockfile;
+        this.scanPackages = scanPackages;
+        this.indexCache = indexCache;
+        this.manifest = manifest;
+        this.roots = roots;
+        this.typeRegistry = typeRegistry;
+        this.deepCopy = deepCopy;
+        this.dirtyTracking = dirtyTracking;
+    }
+
+    /**
+     * Returns the options used if the plugin is configured without any
+     *
+     * @return the default options
+     */
+    public static AutoSerializableOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Parses the options from a string of key-value pairs separated by {@code ;}
+     *
+     * @param options the options, may be {@code null} or blank to use the defaults
+     * @return the parsed options
+     * @throws IllegalArgumentException if an option is unknown or has an invalid value
+     */
+    public static AutoSerializableOptions parse(String options) {
+        if (options == null || options.isBlank()) {
+            return defaults();
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String option : options.split(";")) {
+            if (option.isBlank()) {
+                continue;
+            }
+            int separator = option.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Option '" + option.trim() + "' is not of the form key=value");
+            }
+            values.put(option.substring(0, separator).trim(), option.substring(separator + 1).trim());
+        }
+        Codegen codegen = parseEnum(values.remove(CODEGEN), Codegen.class, DEFAULTS.codegen);
+        SerialVersionUid serialVersionUid =
+                parseEnum(values.remove(SERIAL_VERSION_UID), SerialVersionUid.class, DEFAULTS.serialVersionUid);
+        String lockfile = values.remove(LOCKFILE);
+        String scanPackages = values.remove(SCAN_PACKAGES);
+        String indexCache = values.remove(INDEX_CACHE);
+        String manifest = values.remove(MANIFEST);
+        String roots = values.remove(ROOTS);
+        String typeRegistry = values.remove(TYPE_REGISTRY);
+        DeepCopy deepCopy = parseEnum(values.remove(DEEP_COPY), DeepCopy.class, DEFAULTS.deepCopy);
+        DirtyTracking dirtyTracking =
+                parseEnum(values.remove(DIRTY_TRACKING), DirtyTracking.class, DEFAULTS.dirtyTracking);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+        if (lockfile != null && serialVersionUid != SerialVersionUid.COMPUTE) {
+            throw new IllegalArgumentException("Option " + LOCKFILE + " requires " + SERIAL_VERSION_UID + "=" +
+                    SerialVersionUid.COMPUTE.name().toLowerCase(Locale.ROOT));
+        }
+        return new AutoSerializableOptions(codegen, serialVersionUid, lockfile == null ? null : Path.of(lockfile),
+                parseList(scanPackages), indexCache == null ? null : Path.of(indexCache),
+                manifest == null ? null : Path.of(manifest), parseList(roots),
+                typeRegistry == null ? null : Path.of(typeRegistry), deepCopy, dirtyTracking);
+    }
+
+    private static List<String> parseList(String value) {
+        if (value == null) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(name -> !name.isEmpty()).toList();
+    }
+
+    private static <E extends Enum<E>> E parseEnum(String value, Class<E> type, E defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value '" + value + "' for " + type.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Getter for codegen
+     *
+     * @return codegen
+     */
+    public Codegen getCodegen() {
+        return codegen;
+    }
+
+    /**
+     * Getter for serialVersionUid
+     *
+     * @return serialVersionUid
+     */
+    public SerialVersionUid getSerialVersionUid() {
+        return serialVersionUid;
+    }
+
+    /**
+     * Getter for lockfile
+     *
+     * @return lockfile or {@code null} if computed serialVersionUIDs are not pinned
+     */
+    public Path getLockfile() {
+        return lockfile;
+    }
+
+    /**
+     * Getter for scanPackages
+     *
+     * @return scanPackages or an empty list if the whole classpath is searched for custom serializers
+     */
+    public List<String> getScanPackages() {
+        return scanPackages;
+    }
+
+    /**
+     * Getter for indexCache
+     *
+     * @return indexCache or {@code null} if the custom serializers found on the classpath are not cached
+     */
+    public Path getIndexCache() {
+        return indexCache;
+    }
+
+    /**
+     * Getter for manifest
+     *
+     * @return manifest or {@code null} if the transformed classes are not recorded
+     */
+    public Path getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Getter for roots
+     *
+     * @return roots or an empty list if all types are transformed
+     */
+    public List<String> getRoots() {
+        return roots;
+    }
+
+    /**
+     * Getter for typeRegistry
+     *
+     * @return typeRegistry or {@code null} if no type registry is written
+     */
+    public Path getTypeRegistry() {
+        return typeRegistry;
+    }
+
+    /**
+     * Getter for deepCopy
+     *
+     * @return deepCopy
+     */
+    public DeepCopy getDeepCopy() {
+        return deepCopy;
+    }
+
+    /**
+     * Getter for dirtyTracking
+     *
+     * @return dirtyTracking
+     */
+    public DirtyTracking getDirtyTracking() {
+        return dirtyTracking;
+    }
+
+    @Override
+    public String toString() {
+        return CODEGEN + "=" + codegen.name().toLowerCase(Locale.ROOT) + ";" + SERIAL_VERSION_UID + "=" +
+                serialVersionUid.name().toLowerCase(Locale.ROOT) + (lockfile == null ? "" : ";" + LOCKFILE + "=" +
+                lockfile) + (scanPackages.isEmpty() ? "" : ";" + SCAN_PACKAGES + "=" + String.join(",", scanPackages)) +
+                (indexCache == null ? "" : ";" + INDEX_CACHE + "=" + indexCache) +
+                (manifest == null ? "" : ";" + MANIFEST + "=" + manifest) +
+                (roots.isEmpty() ? "" : ";" + ROOTS + "=" + String.join(",", roots)) +
+                (typeRegistry == null ? "" : ";" + TYPE_REGISTRY + "=" + typeRegistry) +
+                (deepCopy == DeepCopy.RUNTIME ? "" : ";" + DEEP_COPY + "=" + deepCopy.name().toLowerCase(Locale.ROOT)) +
+                (dirtyTracking == DirtyTracking.NONE ? "" :
+                        ";" + DIRTY_TRACKING + "=" + dirtyTracking.name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Determines how the {@code writeObject} and {@code readObject} methods of transformed classes are generated
+     */
+    public enum Codegen {
+        /**
+         * Delegate to the injected {@link dev.bodewig.autoserializable.api.AutoSerializer}
+         */
+        DELEGATE,
+        /**
+         * Write and read the fields directly with the typed methods of {@link java.io.ObjectOutputStream} and
+         * {@link java.io.ObjectInputStream} without reflection, in the versioned
+         * {@link dev.bodewig.autoserializable.api.DirectSerialForm} instead of the default serial form. Classes with
+         * custom serializers, final fields or {@code serialPersistentFields} are still delegated.
+         */
+        DIRECT,
+        /**
+         * Implement {@link java.io.Externalizable} with generated {@code writeExternal} and {@code readExternal}
+         * methods and a public no-arg constructor. Only the field values are written, without a field descriptor.
+         * Class hierarchies are only made {@code Externalizable} as a whole, if none of their classes has a custom
+         * serializer, final fields, {@code serialPersistentFields} or own serialization methods, otherwise the
+         * hierarchy is delegated.
+         */
+        EXTERNALIZABLE,
+        /**
+         * Only implement {@link java.io.Serializable} and use the default serialization of the JDK. No serializer is
+         * injected into classes without a custom serializer.
+         */
+        MINIMAL
+    }
+
+    /**
+     * Determines how the {@code serialVersionUID} of transformed classes is determined
+     */
+    public enum SerialVersionUid {
+        /**
+         * Do not add a {@code serialVersionUID}, the JDK computes it from the transformed class on first use
+         */
+        RUNTIME,
+        /**
+         * Compute the {@code serialVersionUID} from the class before the transformation and add it as constant to
+         * classes that do not declare one. The value equals the one of classes that already implemented
+         * {@code Serializable} and can be pinned in a lockfile.
+         */
+        COMPUTE
+    }
+
+    /**
+     * Determines how the {@link dev.bodewig.autoserializable.api.DeepCopier} copies the fields of transformed classes
+     */
+    public enum DeepCopy {
+        /**
+         * Copy the fields by reflection
+         */
+        RUNTIME,
+        /**
+         * Generate a private static method per class that copies its fields without reflection. Classes with custom
+         * serializers, final fields, {@code serialPersistentFields} or own serialization methods are still copied by
+         * reflection or serialization.
+         */
+        GENERATE
+    }
+
+    /**
+     * Determines if transformed classes record which of their fields changed for the
+     * {@link dev.bodewig.autoserializable.api.DeltaCodec}
+     */
+    public enum DirtyTracking {
+        /**
+         * Do not track changes, deltas contain all fields
+         */
+        NONE,
+        /**
+         * Add a transient bitmap of the changed fields to each class and set the bit of a field on every write outside
+         * of deserialization. Classes with custom serializers, {@code serialPersistentFields}, own serialization
+         * methods, lazy fields or more than 64 serialized fields are not tracked.
+         */
+        FIELDS
+    }
+}
@@ -1,8 +1,6 @@
 package dev.bodewig.autoserializable;
 
 import dev.bodewig.autoserializable.api.*;
-import io.github.classgraph.ClassGraph;
-import io.github.classgraph.ScanResult;
 import net.bytebuddy.build.Plugin;
 import net.bytebuddy.description.annotation.AnnotationDescription;
 import net.bytebuddy.description.field.FieldDescription;
@@ -25,10 +23,12 @@ import net.bytebuddy.implementation.bytecode.member.FieldAccess;
 import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
 import net.bytebuddy.implementation.bytecode.member.MethodReturn;
 import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.pool.TypePool;
 
 import java.io.*;
-import java.nio.file.Path;
+import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -42,8 +42,19 @@ import static net.bytebuddy.matcher.ElementMatchers.*;
 public class AutoSerializablePlugin extends NonPrivatePlugin implements Plugin.WithPreprocessor {
 
     private static final Logger logger = Logger.getLogger(AutoSerializablePlugin.class.getCanonicalName());
-    private static final Map<TypeDescription, TypeDescription> typeToSerializer = new HashMap<>();
-    private static volatile boolean classpathSearched = false;
+    private final Map<TypeDescription, TypeDescription> typeToSerializer = new ConcurrentHashMap<>();
+    private final Map<String, String> classpathSerializers = new ConcurrentHashMap<>();
+    private final AutoSerializableOptions options;
+    private final ExternalizableSerialization externalizable =
+            new ExternalizableSerialization(type -> serializers().containsKey(type));
+    private final SerialVersionUids serialVersionUids;
+    private final TransformationManifest manifest;
+    private final Reachability reachability;
+    private final TypeRegistryFile typeRegistry;
+    private final LazyFieldGeneration lazyFields = new LazyFieldGeneration(type -> serializers().containsKey(type));
+    private final DirtyTrackingGeneration dirtyTracking;
+    private volatile Map<TypeDescription, TypeDescription> serializers;
+    private volatile ClassFileLocator classFileLocator;
 
     /**
      * Initializes the plugin by searching the classpath elements for custom serializers.
@@ -51,6 +62,41 @@ public class AutoSerializablePlugin extends NonPrivatePlugin implements Plugin.W
      * @param classpathElements The classpath configured in the byte-buddy plugin
      */
     public AutoSerializablePlugin(File[] classpathElements) {
+        this(classpathElements, AutoSerializableOptions.defaults());
+    }
+
+    /**
+     * Initializes the plugin with options by searching the classpath elements for custom serializers.
+     *
+     * @param classpathElements The classpath configured in the byte-buddy plugin
+     * @param options           The options configured as plugin argument with index 1, see
+     *                          {@link AutoSerializableOptions#parse(String)}
+     */
+    public AutoSerializablePlugin(File[] classpathElements, String options) {
+        this(classpathElements, AutoSerializableOptions.parse(options));
+    }
+
+    /**
+     * Initializes the plugin with options by searching the classpath elements for custom serializers.
+     *
+     * @param classpathElements The classpath configured in the byte-buddy plugin
+     * @param options           The options of the plugin
+     */
+    public AutoSerializablePlugin(File[] classpathElements, AutoSerializableOptions options) {
+        this.options = options;
+        logger.fine("Options: " + options);
+        this.serialVersionUids = options.getSerialVersionUid() == AutoSerializableOptions.SerialVersionUid.COMPUTE ?
+                new SerialVersionUids(options.getLockfile()) : null;
+        this.manifest = options.getManifest() == null ? null :
+                new TransformationManifest(options.getManifest(), fingerprint(), options);
+        this.reachability = options.getRoots().isEmpty() ? null :
+                new Reachability(options.getRoots(), type -> serializers().get(type));
+        this.typeRegistry = options.getTypeRegistry() == null ? null : new TypeRegistryFile(options.getTypeRegistry());
+        this.dirtyTracking = options.getDirtyTracking() == AutoSerializableOptions.DirtyTracking.NONE ? null :
+                new DirtyTrackingGeneration(type -> serializers().containsKey(type) ||
+                        (reachability != null && !reachability.isReachable(type)) ||
+                        (options.getCodegen() == AutoSerializableOptions.Codegen.EXTERNALIZABLE &&
+                                externalizable.isExternalizable(type)));
         initialize(classpathElements);
     }
 
@@ -59,51 +105,155 @@ public class AutoSerializablePlugin extends NonPrivatePlugin implements Plugin.W
      *
      * @param typeDescription The custom serializer
      */
-    protected static void addSerializer(TypeDescription typeDescription) {
+    protected void addSerializer(TypeDescription typeDescription) {
+        typeToSerializer.putAll(boundTypes(typeDescription));
+    }
+
+    /**
+     * Reads the types a custom serializer is bound to from its annotations.
+     *
+     * @param typeDescription The custom serializer
+     * @return The custom serializer by the types it is bound to
+     */
+    static Map<TypeDescription, TypeDescription> boundTypes(TypeDescription typeDescription) {
+        List<AnnotationDescription> annotations = new ArrayList<>();
         AnnotationDescription.Loadable<AutoSerializable> annotation =
                 typeDescription.getDeclaredAnnotations().ofType(AutoSerializable.class);
-        if (annotation == null) {
+        if (annotation != null) {
+            annotations.add(annotation);
+        }
+        AnnotationDescription.Loadable<AutoSerializableAll> container =
+                typeDescription.getDeclaredAnnotations().ofType(AutoSerializableAll.class);
+        if (container != null) {
+            annotations.addAll(Arrays.asList(container.getValue("value").resolve(AnnotationDescription[].class)));
+        }
+        if (annotations.isEmpty()) {
             throw new MissingAnnotationException(
                     "Type " + typeDescription.getName() + " implements " + AutoSerializer.class.getName() +
                             " but is missing an " + AutoSerializable.class.getName() + " annotation");
         }
-        TypeDescription value = annotation.getValue("value").resolve(TypeDescription.class);
-        logger.info("Registered custom serializer " + typeDescription.getName() + " for " + value.getName());
-        typeToSerializer.put(value, typeDescription);
+        Map<TypeDescription, TypeDescription> boundTypes = new HashMap<>();
+        for (AnnotationDescription bound : annotations) {
+            TypeDescription value = bound.getValue("value").resolve(TypeDescription.class);
+            logger.info("Registered custom serializer " + typeDescription.getName() + " for " + value.getName());
+            boundTypes.put(value, typeDescription);
+        }
+        return boundTypes;
     }
 
     /**
-     * Searches the classpath elements for custom serializers and registers them for use.
+     * Searches the classpath elements for custom serializers and registers them for use. The serializers of
+     * unchanged classpath elements are reused from earlier builds in the same JVM. Only their names are kept, they are
+     * described with the class files of the current build once all types were preprocessed.
      *
      * @param classpathElements The classpath configured in the byte-buddy plugin
      */
     public void initialize(File[] classpathElements) {
-        if (!classpathSearched) {
-            classpathSearched = true;
-            String classpath = Arrays.stream(classpathElements).map(File::toPath).map(Path::toString)
-                    .collect(Collectors.joining(File.pathSeparator));
-            logger.info("Scanning classpath for custom serializers");
-            logger.fine("Classpath elements: " + Arrays.toString(classpathElements));
-            try (ScanResult result = new ClassGraph().overrideClasspath(classpath).enableAnnotationInfo().scan()) {
-                @SuppressWarnings("unchecked") // unavoidable
-                List<TypeDescription> types =
-                        result.getClassesWithAnyAnnotation(AutoSerializableAll.class, AutoSerializable.class)
-                                .loadClasses().stream().map(TypeDescription.ForLoadedType::of).toList();
-                logger.info("Found " + types.size() + " custom serializers on classpath");
-                types.forEach(AutoSerializablePlugin::addSerializer);
+        classpathSerializers.putAll(ClasspathSerializers.find(classpathElements, options));
+    }
+
+    /**
+     * Returns the registered custom serializers by the types they are bound to. The registry is copied on the first
+     * call, after all types were preprocessed, so the transformation reads an immutable map from all threads.
+     * Serializers in the processed types take precedence over the ones found on the classpath.
+     *
+     * @return the custom serializers
+     */
+    private Map<TypeDescription, TypeDescription> serializers() {
+        Map<TypeDescription, TypeDescription> result = serializers;
+        if (result == null) {
+            synchronized (this) {
+                result = serializers;
+                if (result == null) {
+                    Map<TypeDescription, TypeDescription> resolved = new HashMap<>();
+                    if (!classpathSerializers.isEmpty()) {
+                        // the locator of the build, or the class loader of the plugin if nothing was preprocessed
+                        ClassFileLocator locator = classFileLocator == null ?
+                                ClassFileLocator.ForClassLoader.of(AutoSerializablePlugin.class.getClassLoader()) :
+                                new ClassFileLocator.Compound(classFileLocator,
+                                        ClassFileLocator.ForClassLoader.of(AutoSerializable.class.getClassLoader()));
+                        TypePool typePool = new TypePool.Default.WithLazyResolution(
+                                new TypePool.CacheProvider.Simple(), locator, TypePool.Default.ReaderMode.FAST);
+                        classpathSerializers.forEach((type, serializer) -> resolved.put(
+                                typePool.describe(type).resolve(), typePool.describe(serializer).resolve()));
+                    }
+                    resolved.putAll(typeToSerializer);
+                    result = Map.copyOf(resolved);
+                    serializers = result;
+                }
             }
         }
+        return result;
+    }
+
+    /**
+     * Returns the name of the custom serializer bound to a type.
+     *
+     * @param typeDescription The type
+     * @return The name of the custom serializer or an empty string
+     */
+    private String serializerName(TypeDescription typeDescription) {
+        TypeDescription serializer = serializers().get(typeDescription);
+        return serializer == null ? "" : serializer.getName();
+    }
+
+    /**
+     * Computes the fingerprint of the jar or directory the plugin is loaded from.
+     *
+     * @return The fingerprint
+     */
+    private static String fingerprint() {
+        try {
+            return ClasspathSerializers.fingerprint(new File(
+                    AutoSerializablePlugin.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        } catch (URISyntaxException | SecurityException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Override
     public boolean matches(TypeDescription typeDefinitions) {
-        return typeDefinitions != null;
+        if (typeDefinitions == null) {
+            return false;
+        }
+        // keep already processed classes byte-for-byte instead of rebuilding them
+        if (typeDefinitions.getDeclaredAnnotations().isAnnotationPresent(AutoSerialized.class)) {
+            if (manifest != null) {
+                manifest.onRetained(typeDefinitions.getName(), serializerName(typeDefinitions));
+            }
+            return false;
+        }
+        // only transform types reachable from the roots if configured
+        return reachability == null || reachability.isReachable(typeDefinitions);
     }
 
     @Override
     public void onPreprocess(TypeDescription typeDescription, ClassFileLocator classFileLocator) {
+        // the locator of the build, open until the transformation is complete
+        if (this.classFileLocator == null) {
+            this.classFileLocator = classFileLocator;
+        }
+        if (reachability != null) {
+            reachability.register(typeDescription);
+        }
+        if (manifest != null) {
+            try {
+                manifest.onInput(typeDescription.getName(),
+                        classFileLocator.locate(typeDescription.getName()).resolve());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
         if (typeDescription.isAssignableTo(AutoSerializer.class)) {
             addSerializer(typeDescription);
+            return;
+        }
+        lazyFields.register(typeDescription);
+        if (dirtyTracking != null) {
+            dirtyTracking.register(typeDescription);
+        }
+        if (options.getCodegen() == AutoSerializableOptions.Codegen.EXTERNALIZABLE) {
+            externalizable.register(typeDescription);
         }
     }
 
@@ -115,17 +265,60 @@ public class AutoSerializablePlugin extends NonPrivatePlugin implements Plugin.W
             return builder;
         }
 
+        // record the transformed class, registered first to see the final class file
+        if (manifest != null) {
+            builder = builder.visit(
+                    manifest.onTransformed(typeDescription.getName(), serializerName(typeDescription)));
+        }
+
         // mark type as AutoSerialized
         builder = builder.annotateType(AnnotationDescription.Builder.ofType(AutoSerialized.class).build());
 
         // make all private types and fields package-private
         builder = super.apply(builder, typeDescription, classFileLocator);
 
+        // read and write lazy fields through their accessors
+        if (!lazyFields.isEmpty()) {
+            builder = lazyFields.substitute(builder);
+        }
+
+        // write tracked fields through their setters to record the changes
+        if (dirtyTracking != null) {
+            builder = dirtyTracking.substitute(builder);
+        }
+
         // serializers should not be made serializable
         if (typeDescription.isAssignableTo(AutoSerializer.class)) {
             return builder;
         }
 
+        // private static final long serialVersionUID = <computed>L;
+        if (serialVersionUids != null && !typeDescription.isInterface() &&
+                !typeDescription.isAssignableTo(Enum.class) &&
+                typeDescription.getDeclaredFields().filter(named(SerialVersionUids.FIELD_NAME)).isEmpty()) {
+            long serialVersionUid = serialVersionUids.of(typeDescription, classFileLocator);
+            builder = builder.defineField(SerialVersionUids.FIELD_NAME, long.class, Visibility.PRIVATE,
+                    Ownership.STATIC, FieldManifestation.FINAL).value(serialVersionUid);
+            logger.fine("Added serialVersionUID " + serialVersionUid + " to " + typeDescription.getName());
+        }
+
+        boolean makeExternalizable = options.getCodegen() == AutoSerializableOptions.Codegen.EXTERNALIZABLE &&
+                externalizable.isExternalizable(typeDescription);
+
+        // record the id and field layout of the class for compact class descriptors
+        if (typeRegistry != null && !typeDescription.isInterface()) {
+            TypeDescription serializer = serializers().get(typeDescription);
+            typeRegistry.register(typeDescription, makeExternalizable, serializer != null &&
+                    serializer.getDeclaredAnnotations().isAnnotationPresent(SerialPersistentFields.class),
+                    lazyFields.fields(typeDescription).stream().map(FieldDescription::getName).toList());
+        }
+
+        // implement Externalizable if the whole hierarchy qualifies and there are no custom serializers
+        if (makeExternalizable) {
+            logger.fine("Generated Externalizable methods for " + typeDescription.getName());
+            return externalizable.apply(builder, typeDescription);
+        }
+
         boolean implementsSerializable = typeDescription.isEnum()// typeDescriptions of Enums don't declare implementing
                 // Serializable, but do after compilation leading to exceptions when trying to add it explicitly
                 || typeDescription.getInterfaces().stream().anyMatch(i -> i.represents(Serializable.class));
@@ -140,11 +333,39 @@ public class AutoSerializablePlugin extends NonPrivatePlugin implements Plugin.W
             return builder;
         }
 
+        // keep the serialized values of lazy fields until they are read
+        builder = lazyFields.apply(builder, typeDescription);
+
+        // record the written fields for deltas
+        if (dirtyTracking != null) {
+            builder = dirtyTracking.apply(builder, typeDescription);
+        }
+
+        // copy the fields for the DeepCopier without reflection if there is no custom serializer
+        if (options.getDeepCopy() == AutoSerializableOptions.DeepCopy.GENERATE &&
+                !serializers().containsKey(typeDescription) && DeepCopyGeneration.isApplicable(typeDescription)) {
+            logger.fine("Generated deep copy for " + typeDescription.getName());
+            builder = DeepCopyGeneration.apply(builder, typeDescription);
+        }
+
+        // write and read fields directly if there is no custom serializer
+        if (options.getCodegen() == AutoSerializableOptions.Codegen.DIRECT &&
+                !serializers().containsKey(typeDescription) && DirectSerialization.isApplicable(typeDescription)) {
+            logger.fine("Generated direct field access for " + typeDescription.getName());
+            return DirectSerialization.apply(builder, typeDescription);
+        }
+
+        // keep the default serialization if there is no custom serializer
+        if (options.getCodegen() == AutoSerializableOptions.Codegen.MINIMAL &&
+                !serializers().containsKey(typeDescription)) {
+            return builder;
+        }
+
         // find annotated AutoSerializer or use DefaultSerializer
         TypeDescription serializer = TypeDescription.ForLoadedType.of(AutoSerializer.class);
         List<StackManipulation> initializer = new ArrayList<>();
-        if (typeToSerializer.containsKey(typeDescription)) {
-            serializer = typeToSerializer.get(typeDescription);
+        if (serializers().containsKey(typeDescription)) {
+            serializer = serializers().get(typeDescription);
             logger.info("Injected custom serializer " + serializer.getName() + " into " + typeDescription.getName());
 
             if (serializer.getDeclaredAnnotations().isAnnotationPresent(SerialPersistentFields.class)) {
@@ -182,25 +403,29 @@ public class AutoSerializablePlugin extends NonPrivatePlugin implements Plugin.W
             }
         }
 
-        // private static final AutoSerializer _serializer;
-        builder =
-                builder.defineField(AutoSerializable.FIELD_NAME, TypeDescription.ForLoadedType.of(AutoSerializer.class),
-                        Visibility.PRIVATE, Ownership.STATIC, FieldManifestation.FINAL);
-
-        // _serializer = new <serializer>();
-        StackManipulation serializerInit =
-                new StackManipulation.Compound(TypeCreation.of(serializer), Duplication.SINGLE, MethodInvocation.invoke(
-                        serializer.getDeclaredMethods().filter(isConstructor().and(takesArguments(0))).getOnly()),
-                        FieldAccess.forField(builder.toTypeDescription().getDeclaredFields()
-                                .filter(named(AutoSerializable.FIELD_NAME)).getOnly()).write());
-        initializer.add(serializerInit);
+        // the type initializer is kept even without serialPersistentFields, as it is part of the default
+        // serialVersionUID of transformed classes
         initializer.add(MethodReturn.VOID);
-
         builder = builder.invokable(isTypeInitializer())
                 .intercept(new Implementation.Simple(new StackManipulation.Compound(initializer)));
 
+        // private static volatile AutoSerializer _serializer;
+        builder =
+                builder.defineField(AutoSerializable.FIELD_NAME, TypeDescription.ForLoadedType.of(AutoSerializer.class),
+                        Visibility.PRIVATE, Ownership.STATIC, FieldManifestation.VOLATILE);
+
+        // private static AutoSerializer _serializer() {
+        //     return _serializer != null ? _serializer : (_serializer = new <serializer>());
+        // }
+        builder = builder.defineMethod(AutoSerializable.METHOD_NAME, AutoSerializer.class, Visibility.PRIVATE,
+                Ownership.STATIC).intercept(new Implementation.Simple(new LazySerializer(
+                builder.toTypeDescription().getDeclaredFields().filter(named(AutoSerializable.FIELD_NAME)).getOnly(),
+                serializer)));
+        MethodCall serializerCall = MethodCall.invoke(
+                builder.toTypeDescription().getDeclaredMethods().filter(named(AutoSerializable.METHOD_NAME)).getOnly());
+
         // private void writeObject(java.io.ObjectOutputStream out) throws IOException {
-        //     _serializer.writeObject(out, this);
+        //     _serializer().writeObject(out, this);
         // }
         try {
             builder = builder.defineMethod("writeObject", void.class, Opcodes.ACC_PRIVATE)
@@ -208,14 +433,14 @@ public class AutoSerializablePlugin extends NonPrivatePlugin implements Plugin.W
                             MethodCall.invoke(
                                             AutoSerializer.class.getDeclaredMethod("writeObject",
                                                     ObjectOutputStream.class,
-                                                    Object.class)).onField(AutoSerializable.FIELD_NAME).withArgument(0)
+                                                    Object.class)).onMethodCall(serializerCall).withArgument(0)
                                     .withThis());
         } catch (NoSuchMethodException e) {
             throw new RuntimeException(e);
         }
 
         // private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
-        //     _serializer.readObject(in, this);
+        //     _serializer().readObject(in, this);
         // }
         try {
             builder = builder.defineMethod("readObject", void.class, Opcodes.ACC_PRIVATE)
@@ -223,11 +448,24 @@ public class AutoSerializablePlugin extends NonPrivatePlugin implements Plugin.W
                     .throwing(IOException.class, ClassNotFoundException.class).intercept(MethodCall.invoke(
                                     AutoSerializer.class.getDeclaredMethod("readObject", ObjectInputStream.class,
                                             Object.class))
-                            .onField(AutoSerializable.FIELD_NAME).withArgument(0).withThis());
+                            .onMethodCall(serializerCall).withArgument(0).withThis());
         } catch (NoSuchMethodException e) {
             throw new RuntimeException(e);
         }
 
         return builder;
     }
+
+    @Override
+    public void close() {
+        if (serialVersionUids != null) {
+            serialVersionUids.save();
+        }
+        if (manifest != null) {
+            manifest.save();
+        }
+        if (typeRegistry != null) {
+            typeRegistry.save();
+        }
+    }
 }
@@ -0,0 +1,228 @@
+package dev.bodewig.autoserializable;
+
+import dev.bodewig.autoserializable.api.AutoSerializable;
+import dev.bodewig.autoserializable.api.AutoSerializableAll;
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.pool.TypePool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Finds the custom serializers on the classpath and keeps them for later builds in the same JVM.
+ * <p>
+ * Long-lived build JVMs like the gradle daemon create a new plugin for every build. The names of the serializers of a
+ * classpath are reused as long as the fingerprints of all its elements stay the same, each build resolves them
+ * against its own types. If an element changes, only this element
+ * is searched again. Jars are identified by their path, size and modification time, directories by the paths, sizes
+ * and modification times of their class files.
+ */
+class ClasspathSerializers {
+
+    private static final Logger logger = Logger.getLogger(ClasspathSerializers.class.getCanonicalName());
+    private static final int MAX_CLASSPATHS = 16;
+    private static final Map<String, Element> elements = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, String>> classpaths = // guarded by class
+            new LinkedHashMap<>(MAX_CLASSPATHS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, String>> eldest) {
+                    return size() > MAX_CLASSPATHS;
+                }
+            };
+
+    private ClasspathSerializers() {
+    }
+
+    /**
+     * Returns the names of the custom serializers on the classpath by the names of the types they are bound to.
+     * Serializers are only searched in classpath elements that changed since the last call.
+     *
+     * @param classpathElements the classpath configured in the byte-buddy plugin
+     * @param options           the options of the plugin
+     * @return the names of the custom serializers
+     */
+    static synchronized Map<String, String> find(File[] classpathElements, AutoSerializableOptions options) {
+        logger.fine("Classpath elements: " + Arrays.toString(classpathElements));
+        String scanPackages = String.join(",", options.getScanPackages());
+        Map<File, String> fingerprints = new LinkedHashMap<>();
+        StringBuilder classpathKey = new StringBuilder(scanPackages);
+        for (File element : classpathElements) {
+            String fingerprint = fingerprint(element);
+            fingerprints.put(element, fingerprint);
+            classpathKey.append(File.pathSeparatorChar).append(key(element)).append('@').append(fingerprint);
+        }
+        Map<String, String> serializers = classpaths.get(classpathKey.toString());
+        if (serializers != null) {
+            logger.info("Reusing custom serializers of unchanged classpath for " + serializers.size() + " types");
+            return serializers;
+        }
+
+        SerializerIndex index = options.getIndexCache() == null ? null :
+                new SerializerIndex(options.getIndexCache(), options.getScanPackages());
+        Set<String> names = new LinkedHashSet<>();
+        List<File> changed = new ArrayList<>();
+        for (File element : classpathElements) {
+            Element cached = elements.get(key(element));
+            Set<String> found = cached != null && cached.scanPackages().equals(scanPackages) &&
+                    cached.fingerprint().equals(fingerprints.get(element)) ? cached.serializers() :
+                    index == null ? null : index.get(element, fingerprints.get(element));
+            if (found == null) {
+                changed.add(element);
+            } else {
+                names.addAll(found);
+                elements.put(key(element), new Element(scanPackages, fingerprints.get(element), found));
+            }
+        }
+        if (changed.size() < classpathElements.length) {
+            logger.info("Using cached custom serializers of " + (classpathElements.length - changed.size()) +
+                    " classpath elements");
+        }
+        // read the class files of the serializers without loading them into the build
+        Map<String, byte[]> classFiles = new LinkedHashMap<>();
+        if (!changed.isEmpty()) {
+            logger.info("Scanning " + changed.size() + " classpath elements for custom serializers");
+            Map<File, Set<String>> found = scan(changed, options.getScanPackages(), classFiles);
+            found.forEach((element, serializerNames) -> {
+                names.addAll(serializerNames);
+                elements.put(key(element), new Element(scanPackages,
+                        fingerprints.getOrDefault(element, fingerprint(element)), Set.copyOf(serializerNames)));
+            });
+            if (index != null) {
+                found.forEach((element, serializerNames) -> index.put(element,
+                        fingerprints.getOrDefault(element, fingerprint(element)), serializerNames));
+            }
+        }
+        if (index != null) {
+            index.save();
+        }
+        logger.info("Found " + names.size() + " custom serializers on classpath");
+
+        Map<String, String> boundTypes = new HashMap<>();
+        if (!names.isEmpty()) {
+            // read the bound types with a type pool that is closed afterward, so only their names are kept
+            List<ClassFileLocator> locators = new ArrayList<>();
+            locators.add(new ClassFileLocator.Simple(classFiles));
+            try {
+                for (File element : classpathElements) {
+                    if (element.isDirectory()) {
+                        locators.add(new ClassFileLocator.ForFolder(element));
+                    } else if (element.isFile()) {
+                        locators.add(ClassFileLocator.ForJarFile.of(element));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            locators.add(ClassFileLocator.ForClassLoader.of(AutoSerializable.class.getClassLoader()));
+            try (ClassFileLocator classFileLocator = new ClassFileLocator.Compound(locators)) {
+                TypePool typePool = new TypePool.Default.WithLazyResolution(new TypePool.CacheProvider.Simple(),
+                        classFileLocator, TypePool.Default.ReaderMode.FAST);
+                for (String name : names) {
+                    AutoSerializablePlugin.boundTypes(typePool.describe(name).resolve())
+                            .forEach((type, serializer) -> boundTypes.put(type.getName(), serializer.getName()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        serializers = Map.copyOf(boundTypes);
+        classpaths.put(classpathKey.toString(), serializers);
+        return serializers;
+    }
+
+    /**
+     * Searches classpath elements for custom serializers without loading them.
+     *
+     * @param elements     the classpath elements to search
+     * @param scanPackages the packages to search or an empty list to search all packages
+     * @param classFiles   the map to add the class files of the found serializers to
+     * @return the names of the serializers found in each element
+     */
+    private static Map<File, Set<String>> scan(List<File> elements, List<String> scanPackages,
+                                               Map<String, byte[]> classFiles) {
+        Map<File, Set<String>> found = new LinkedHashMap<>();
+        Map<File, File> canonicalElements = new HashMap<>();
+        try {
+            for (File element : elements) {
+                found.put(element, new TreeSet<>());
+                canonicalElements.put(element.getCanonicalFile(), element);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ClassGraph classGraph = new ClassGraph().overrideClasspath(elements).enableAnnotationInfo();
+        if (!scanPackages.isEmpty()) {
+            logger.fine("Scanned packages: " + scanPackages);
+            classGraph.acceptPackages(scanPackages.toArray(new String[0]));
+        }
+        @SuppressWarnings("unchecked") // unavoidable
+        Class<? extends Annotation>[] annotations = new Class[]{AutoSerializableAll.class, AutoSerializable.class};
+        try (ScanResult result = classGraph.scan(Runtime.getRuntime().availableProcessors())) {
+            for (ClassInfo classInfo : result.getClassesWithAnyAnnotation(annotations)) {
+                classFiles.put(classInfo.getName(), classInfo.getResource().load());
+                File element = classInfo.getClasspathElementFile().getCanonicalFile();
+                found.computeIfAbsent(canonicalElements.getOrDefault(element, element), key -> new TreeSet<>())
+                        .add(classInfo.getName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return found;
+    }
+
+    /**
+     * Computes a fingerprint of a classpath element that changes if the element is modified
+     *
+     * @param element the classpath element
+     * @return the fingerprint
+     */
+    static String fingerprint(File element) {
+        if (element.isFile()) {
+            return element.length() + ":" + element.lastModified();
+        } else if (!element.isDirectory()) {
+            return "missing";
+        }
+        Path root = element.toPath();
+        try (Stream<Path> files = Files.walk(root)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Path file : files.filter(file -> file.toString().endsWith(".class")).sorted().toList()) {
+                digest.update(root.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((":" + Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis() + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String key(File element) {
+        return element.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * The serializers found in a classpath element
+     *
+     * @param scanPackages the packages that were searched
+     * @param fingerprint  the fingerprint of the element when it was searched
+     * @param serializers  the names of the serializers
+     */
+    private record Element(String scanPackages, String fingerprint, Set<String> serializers) {
+    }
+}
@@ -0,0 +1,99 @@
+package dev.bodewig.autoserializable;
+
+import dev.bodewig.autoserializable.api.DeepCopier;
+import dev.bodewig.autoserializable.api.SerialPersistentFields;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.field.FieldList;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.TypeCasting;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+import net.bytebuddy.jar.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+/**
+ * Generates a static method that copies the serialized fields declared by a class from one instance to another for
+ * the {@link DeepCopier}.
+ * <p>
+ * Primitive fields are assigned directly, references are copied by the {@code DeepCopier}. The method only copies the
+ * fields of its own class, the {@code DeepCopier} calls it for every class of the hierarchy. It is private, so it does
+ * not change the default {@code serialVersionUID}.
+ */
+class DeepCopyGeneration {
+
+    private static final MethodDescription COPY = TypeDescription.ForLoadedType.of(DeepCopier.class)
+            .getDeclaredMethods().filter(named("copy").and(takesArguments(Object.class))).getOnly();
+
+    private DeepCopyGeneration() {
+    }
+
+    /**
+     * Checks if the fields of the type can be copied by generated code. Enums are not copied, records are created by
+     * their canonical constructor, final fields can not be assigned outside a constructor and
+     * {@code serialPersistentFields} or own serialization methods may not serialize the declared fields. Lazy fields
+     * are copied with their holders by the {@code DeepCopier}.
+     *
+     * @param typeDescription the type to check
+     * @return {@code true} if the method can be generated
+     */
+    static boolean isApplicable(TypeDescription typeDescription) {
+        return !typeDescription.isInterface() && !typeDescription.isEnum() && !typeDescription.isRecord() &&
+                typeDescription.getDeclaredFields().filter(named(SerialPersistentFields.FIELD_NAME)).isEmpty() &&
+                typeDescription.getDeclaredMethods().filter(named("writeObject").or(named("readObject"))
+                        .or(named("writeReplace")).or(named("readResolve"))).isEmpty() &&
+                serialFields(typeDescription).filter(isFinal()).isEmpty() &&
+                LazyFieldGeneration.lazyFields(typeDescription).isEmpty();
+    }
+
+    /**
+     * Defines the copy method on the builder
+     *
+     * @param builder         the builder of the type
+     * @param typeDescription the type to transform
+     * @return the builder
+     */
+    static DynamicType.Builder<?> apply(DynamicType.Builder<?> builder, TypeDescription typeDescription) {
+        // private static void _deepCopy(Object from, Object to, DeepCopier copier) {
+        //     ((<type>) to).<name> = ((<type>) from).<name>; ...
+        //     ((<type>) to).<name> = (<field type>) copier.copy(((<type>) from).<name>); ...
+        // }
+        List<StackManipulation> copy = new ArrayList<>();
+        for (FieldDescription.InDefinedShape field : serialFields(typeDescription)) {
+            TypeDescription type = field.getType().asErasure();
+            copy.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+            copy.add(TypeCasting.to(typeDescription));
+            if (!type.isPrimitive()) {
+                copy.add(MethodVariableAccess.REFERENCE.loadFrom(2));
+            }
+            copy.add(MethodVariableAccess.REFERENCE.loadFrom(0));
+            copy.add(TypeCasting.to(typeDescription));
+            copy.add(FieldAccess.forField(field).read());
+            if (!type.isPrimitive()) {
+                copy.add(MethodInvocation.invoke(COPY));
+                if (!type.represents(Object.class)) {
+                    copy.add(TypeCasting.to(type));
+                }
+            }
+            copy.add(FieldAccess.forField(field).write());
+        }
+        copy.add(MethodReturn.VOID);
+        return builder.defineMethod(DeepCopier.METHOD_NAME, void.class,
+                        Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC)
+                .withParameters(Object.class, Object.class, DeepCopier.class)
+                .intercept(new Implementation.Simple(copy.toArray(new StackManipulation[0])));
+    }
+
+    private static FieldList<FieldDescription.InDefinedShape> serialFields(TypeDescription typeDescription) {
+        return typeDescription.getDeclaredFields().filter(not(isStatic()).and(not(isTransient())));
+    }
+}
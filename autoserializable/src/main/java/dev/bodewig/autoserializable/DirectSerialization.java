@@ -0,0 +1,190 @@
+package dev.bodewig.autoserializable;
+
+import dev.bodewig.autoserializable.api.DirectSerialForm;
+import dev.bodewig.autoserializable.api.SerialPersistentFields;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.field.FieldList;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.modifier.FieldManifestation;
+import net.bytebuddy.description.modifier.Ownership;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.TypeCasting;
+import net.bytebuddy.implementation.bytecode.collection.ArrayFactory;
+import net.bytebuddy.implementation.bytecode.constant.ClassConstant;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+import net.bytebuddy.jar.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+/**
+ * Generates {@code writeObject} and {@code readObject} methods that write and read the fields of a class directly
+ * with the typed methods of {@link ObjectOutputStream} and {@link ObjectInputStream}.
+ * <p>
+ * The generated methods read and write the fields with {@code getfield} and {@code putfield} instead of reflection and
+ * write the values in the {@link DirectSerialForm}, prefixed by the version of the field layout of the class. An empty
+ * {@code serialPersistentFields} array declares that the stream contains no default field data of the class.
+ */
+class DirectSerialization {
+
+    private static final Map<String, String> PRIMITIVE_SUFFIXES =
+            Map.of("boolean", "Boolean", "byte", "Byte", "char", "Char", "short", "Short", "int", "Int", "float",
+                    "Float", "long", "Long", "double", "Double");
+    private static final MethodDescription READ_VERSION = TypeDescription.ForLoadedType.of(DirectSerialForm.class)
+            .getDeclaredMethods().filter(named("readVersion")).getOnly();
+
+    private DirectSerialization() {
+    }
+
+    /**
+     * Checks if the fields of the type can be written and read by generated code. Enums and records ignore
+     * {@code writeObject} and {@code readObject}, final fields can not be assigned outside a constructor,
+     * {@code serialPersistentFields} may describe fields that are not declared, existing {@code writeObject} or
+     * {@code readObject} methods must not be replaced and lazy fields are serialized by their holders.
+     *
+     * @param typeDescription the type to check
+     * @return {@code true} if the methods can be generated
+     */
+    static boolean isApplicable(TypeDescription typeDescription) {
+        return !typeDescription.isEnum() && !typeDescription.isRecord() &&
+                typeDescription.getDeclaredFields().filter(named(SerialPersistentFields.FIELD_NAME)).isEmpty() &&
+                typeDescription.getDeclaredMethods().filter(named("writeObject").or(named("readObject"))).isEmpty() &&
+                serialFields(typeDescription).stream().noneMatch(FieldDescription::isFinal) &&
+                LazyFieldGeneration.lazyFields(typeDescription).isEmpty();
+    }
+
+    /**
+     * Defines the version constant and the {@code writeObject} and {@code readObject} methods on the builder
+     *
+     * @param builder         the builder of the type
+     * @param typeDescription the type to transform
+     * @return the builder
+     */
+    static DynamicType.Builder<?> apply(DynamicType.Builder<?> builder, TypeDescription typeDescription) {
+        List<FieldDescription.InDefinedShape> fields = serialFields(typeDescription);
+
+        // private static final long _directForm = <version>L;
+        builder = builder.defineField(DirectSerialForm.FIELD_NAME, long.class, Visibility.PRIVATE, Ownership.STATIC,
+                FieldManifestation.FINAL).value(version(fields));
+        FieldDescription version = builder.toTypeDescription().getDeclaredFields()
+                .filter(named(DirectSerialForm.FIELD_NAME)).getOnly();
+
+        // private static final ObjectStreamField[] serialPersistentFields = new ObjectStreamField[0];
+        builder = builder.defineField(SerialPersistentFields.FIELD_NAME,
+                TypeDescription.ForLoadedType.of(ObjectStreamField[].class), Visibility.PRIVATE, Ownership.STATIC,
+                FieldManifestation.FINAL);
+        FieldDescription persistentFields = builder.toTypeDescription().getDeclaredFields()
+                .filter(named(SerialPersistentFields.FIELD_NAME)).getOnly();
+        builder = builder.invokable(isTypeInitializer()).intercept(new Implementation.Simple(
+                ArrayFactory.forType(TypeDescription.ForLoadedType.of(ObjectStreamField.class).asGenericType())
+                        .withValues(List.of()), FieldAccess.forField(persistentFields).write(), MethodReturn.VOID));
+
+        // private void writeObject(java.io.ObjectOutputStream out) throws IOException {
+        //     out.writeLong(_directForm);
+        //     out.write<Type>(this.<name>); ...
+        //     out.writeObject(this.<name>); ...
+        // }
+        List<StackManipulation> write = new ArrayList<>();
+        write.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+        write.add(FieldAccess.forField(version).read());
+        write.add(MethodInvocation.invoke(method(ObjectOutputStream.class, "writeLong", 1)));
+        for (FieldDescription.InDefinedShape field : fields) {
+            write.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+            write.add(MethodVariableAccess.loadThis());
+            write.add(FieldAccess.forField(field).read());
+            write.add(MethodInvocation.invoke(method(ObjectOutputStream.class, "write" + suffix(field), 1)));
+        }
+        write.add(MethodReturn.VOID);
+        builder = builder.defineMethod("writeObject", void.class, Opcodes.ACC_PRIVATE)
+                .withParameter(ObjectOutputStream.class, "out").throwing(IOException.class)
+                .intercept(new Implementation.Simple(write.toArray(new StackManipulation[0])));
+
+        // private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
+        //     DirectSerialForm.readVersion(in, _directForm, <type>.class);
+        //     this.<name> = in.read<Type>(); ...
+        //     this.<name> = (<type>) in.readObject(); ...
+        // }
+        List<StackManipulation> read = new ArrayList<>();
+        read.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+        read.add(FieldAccess.forField(version).read());
+        read.add(ClassConstant.of(typeDescription));
+        read.add(MethodInvocation.invoke(READ_VERSION));
+        for (FieldDescription.InDefinedShape field : fields) {
+            TypeDescription type = field.getType().asErasure();
+            read.add(MethodVariableAccess.loadThis());
+            read.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+            read.add(MethodInvocation.invoke(method(ObjectInputStream.class, "read" + suffix(field), 0)));
+            if (!type.isPrimitive() && !type.represents(Object.class)) {
+                read.add(TypeCasting.to(type));
+            }
+            read.add(FieldAccess.forField(field).write());
+        }
+        read.add(MethodReturn.VOID);
+        builder = builder.defineMethod("readObject", void.class, Opcodes.ACC_PRIVATE)
+                .withParameter(ObjectInputStream.class, "in").throwing(IOException.class, ClassNotFoundException.class)
+                .intercept(new Implementation.Simple(read.toArray(new StackManipulation[0])));
+
+        return builder;
+    }
+
+    /**
+     * Returns the serialized fields in the order of the serialization descriptor
+     *
+     * @param typeDescription the type
+     * @return the non-static, non-transient fields with primitive fields first, then ordered by name
+     */
+    private static List<FieldDescription.InDefinedShape> serialFields(TypeDescription typeDescription) {
+        FieldList<FieldDescription.InDefinedShape> fields =
+                typeDescription.getDeclaredFields().filter(not(isStatic()).and(not(isTransient())));
+        return fields.stream()
+                .sorted(Comparator.comparing((FieldDescription.InDefinedShape field) -> !field.getType().isPrimitive())
+                        .thenComparing(FieldDescription.InDefinedShape::getName)).toList();
+    }
+
+    /**
+     * Computes the version of the field layout from the names and descriptors of the fields
+     *
+     * @param fields the serialized fields in the order they are written
+     * @return the first 8 bytes of the SHA-256 digest of the layout
+     */
+    private static long version(List<FieldDescription.InDefinedShape> fields) {
+        String layout = fields.stream().map(field -> field.getName() + ":" + field.getDescriptor())
+                .collect(Collectors.joining(","));
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(layout.getBytes(StandardCharsets.UTF_8))).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String suffix(FieldDescription.InDefinedShape field) {
+        TypeDescription type = field.getType().asErasure();
+        return type.isPrimitive() ? PRIMITIVE_SUFFIXES.get(type.getName()) : "Object";
+    }
+
+    private static MethodDescription method(Class<?> type, String name, int arguments) {
+        return TypeDescription.ForLoadedType.of(type).getDeclaredMethods()
+                .filter(named(name).and(takesArguments(arguments)).and(isPublic())).getOnly();
+    }
+}
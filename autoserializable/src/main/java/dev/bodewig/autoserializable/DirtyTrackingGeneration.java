@@ -0,0 +1,207 @@
+package dev.bodewig.autoserializable;
+
+import dev.bodewig.autoserializable.api.AutoSerialized;
+import dev.bodewig.autoserializable.api.DeepCopier;
+import dev.bodewig.autoserializable.api.DeltaCodec;
+import dev.bodewig.autoserializable.api.SerialPersistentFields;
+import net.bytebuddy.asm.MemberSubstitution;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.Duplication;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.constant.LongConstant;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+import net.bytebuddy.jar.asm.Opcodes;
+
+import java.io.Externalizable;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+/**
+ * Tracks the writes of the serialized fields of a class in a transient bitmap for the {@link DeltaCodec}.
+ * <p>
+ * Each serialized field gets a bit, ordered like the fields of a serialization descriptor: primitive fields first,
+ * then by name. The writes of non-final fields are replaced by calls to a generated setter that also sets the bit in
+ * every class processed by the plugin, so all types have to be registered before the first class is transformed.
+ * Writes during deserialization and deep copies are kept, so deserialized and copied objects start clean.
+ */
+class DirtyTrackingGeneration {
+
+    private static final Logger logger = Logger.getLogger(DirtyTrackingGeneration.class.getCanonicalName());
+    private static final StackManipulation LONG_OR = new StackManipulation.Simple((methodVisitor, context) -> {
+        methodVisitor.visitInsn(Opcodes.LOR);
+        return new StackManipulation.Size(-2, 0);
+    });
+
+    private final Map<TypeDescription, List<FieldDescription.InDefinedShape>> types = new ConcurrentHashMap<>();
+    private final Predicate<TypeDescription> isExcluded;
+    private volatile MemberSubstitution substitution;
+
+    /**
+     * Creates a new instance
+     *
+     * @param isExcluded checks if a type is not tracked, e.g. because it is serialized by a custom serializer
+     */
+    DirtyTrackingGeneration(Predicate<TypeDescription> isExcluded) {
+        this.isExcluded = isExcluded;
+    }
+
+    /**
+     * Checks if the writes of the fields of the type can be tracked. Enums and records can not be changed, the
+     * serial form of custom serialization methods, {@code Externalizable} and {@code serialPersistentFields} is not
+     * made of the fields and lazy fields are written through their holders. At least one field has to be non-final
+     * and the fields have to fit into the bitmap.
+     *
+     * @param typeDescription the type to check
+     * @return {@code true} if the bitmap can be generated
+     */
+    static boolean isApplicable(TypeDescription typeDescription) {
+        List<FieldDescription.InDefinedShape> fields = serialFields(typeDescription);
+        return !typeDescription.isInterface() && !typeDescription.isEnum() && !typeDescription.isRecord() &&
+                !typeDescription.isAssignableTo(Externalizable.class) &&
+                typeDescription.getDeclaredFields().filter(named(SerialPersistentFields.FIELD_NAME)).isEmpty() &&
+                typeDescription.getDeclaredMethods().filter(named("writeObject").or(named("readObject"))
+                        .or(named("writeReplace")).or(named("readResolve"))).isEmpty() &&
+                LazyFieldGeneration.lazyFields(typeDescription).isEmpty() &&
+                fields.size() <= DeltaCodec.MAX_FIELDS && fields.stream().anyMatch(field -> !field.isFinal());
+    }
+
+    /**
+     * Registers a type processed by the plugin. Already transformed types are registered if they have a bitmap.
+     *
+     * @param typeDescription the processed type
+     */
+    void register(TypeDescription typeDescription) {
+        boolean tracked = typeDescription.getDeclaredAnnotations().isAnnotationPresent(AutoSerialized.class) ?
+                !typeDescription.getDeclaredFields().filter(named(DeltaCodec.FIELD_NAME)).isEmpty() :
+                isApplicable(typeDescription);
+        if (tracked) {
+            types.put(typeDescription, serialFields(typeDescription));
+        } else if (!typeDescription.isInterface() && serialFields(typeDescription).size() > DeltaCodec.MAX_FIELDS) {
+            logger.fine("Not tracking " + typeDescription.getName() + ", it has more than " + DeltaCodec.MAX_FIELDS +
+                    " serialized fields");
+        }
+    }
+
+    /**
+     * Returns the tracked fields of a processed type
+     *
+     * @param typeDescription the processed type
+     * @return the fields in the order of their bits or an empty list if the type is not tracked
+     */
+    List<FieldDescription.InDefinedShape> fields(TypeDescription typeDescription) {
+        List<FieldDescription.InDefinedShape> fields = types.get(typeDescription);
+        return fields == null || isExcluded.test(typeDescription) ? List.of() : fields;
+    }
+
+    /**
+     * Replaces the writes of all tracked fields in the methods of a class with setter calls, except in the methods
+     * that deserialize or copy an object
+     *
+     * @param builder the builder of the class
+     * @return the builder
+     */
+    DynamicType.Builder<?> substitute(DynamicType.Builder<?> builder) {
+        MemberSubstitution result = substitution;
+        if (result == null) {
+            synchronized (this) {
+                result = substitution;
+                if (result == null) {
+                    Map<String, FieldDescription.InDefinedShape> writes = new HashMap<>();
+                    for (TypeDescription type : types.keySet()) {
+                        for (FieldDescription.InDefinedShape field : fields(type)) {
+                            if (!field.isFinal()) {
+                                writes.put(key(field), field);
+                            }
+                        }
+                    }
+                    result = MemberSubstitution.relaxed()
+                            .field(field -> writes.containsKey(key(field.asDefined()))).onWrite()
+                            .replaceWith((instrumentedType, instrumentedMethod, typePool) ->
+                                    (targetType, target, parameters, type, methodHandle, stackManipulation,
+                                     freeOffset) -> MethodInvocation.invoke(
+                                            setter(writes.get(key(((FieldDescription) target).asDefined())))));
+                    substitution = result;
+                }
+            }
+        }
+        return builder.visit(result.on(isMethod().or(isConstructor()).and(not(
+                nameStartsWith(DeltaCodec.METHOD_PREFIX).or(named("readObject")).or(named("readExternal"))
+                        .or(named(DeepCopier.METHOD_NAME))))));
+    }
+
+    /**
+     * Defines the bitmap and the setters of the tracked fields of a type on the builder
+     *
+     * @param builder         the builder of the type
+     * @param typeDescription the type to transform
+     * @return the builder
+     */
+    DynamicType.Builder<?> apply(DynamicType.Builder<?> builder, TypeDescription typeDescription) {
+        List<FieldDescription.InDefinedShape> fields = fields(typeDescription);
+        if (fields.isEmpty()) {
+            return builder;
+        }
+
+        // private transient long _dirty;
+        builder = builder.defineField(DeltaCodec.FIELD_NAME, long.class,
+                Opcodes.ACC_PRIVATE | Opcodes.ACC_TRANSIENT | Opcodes.ACC_SYNTHETIC);
+        FieldDescription dirty = builder.toTypeDescription().getDeclaredFields()
+                .filter(named(DeltaCodec.FIELD_NAME)).getOnly();
+
+        for (int i = 0; i < fields.size(); i++) {
+            FieldDescription.InDefinedShape field = fields.get(i);
+            if (field.isFinal()) {
+                continue;
+            }
+
+            // void _write$<name>(<type> value) {
+            //     this.<name> = value;
+            //     this._dirty |= 1L << <bit>;
+            // }
+            builder = builder.define(setter(field)).intercept(new Implementation.Simple(
+                    MethodVariableAccess.loadThis(), MethodVariableAccess.of(field.getType()).loadFrom(1),
+                    FieldAccess.forField(field).write(), MethodVariableAccess.loadThis(), Duplication.SINGLE,
+                    FieldAccess.forField(dirty).read(), LongConstant.forValue(1L << i), LONG_OR,
+                    FieldAccess.forField(dirty).write(), MethodReturn.VOID));
+        }
+        logger.fine("Tracking " + fields.size() + " fields of " + typeDescription.getName());
+        return builder;
+    }
+
+    /**
+     * Returns the serialized fields of a type in the order of their bits, which is also the order of the
+     * {@link DeltaCodec}
+     *
+     * @param typeDescription the type
+     * @return the non-static, non-transient fields with primitive fields first, then ordered by name
+     */
+    private static List<FieldDescription.InDefinedShape> serialFields(TypeDescription typeDescription) {
+        return typeDescription.getDeclaredFields().filter(not(isStatic()).and(not(isTransient()))).stream()
+                .sorted(Comparator.comparing((FieldDescription.InDefinedShape field) -> !field.getType().isPrimitive())
+                        .thenComparing(FieldDescription.InDefinedShape::getName)).toList();
+    }
+
+    private static String key(FieldDescription.InDefinedShape field) {
+        return field.getDeclaringType().getName() + "#" + field.getName();
+    }
+
+    private static MethodDescription setter(FieldDescription.InDefinedShape field) {
+        return new MethodDescription.Latent(field.getDeclaringType(), new MethodDescription.Token(
+                DeltaCodec.METHOD_PREFIX + field.getName(), LazyFieldGeneration.accessorModifiers(field),
+                TypeDescription.Generic.VOID, List.of(field.getType().asErasure().asGenericType())));
+    }
+}
@@ -0,0 +1,304 @@
+package dev.bodewig.autoserializable;
+
+import dev.bodewig.autoserializable.api.SerialPersistentFields;
+import net.bytebuddy.asm.ModifierAdjustment;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.field.FieldList;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.method.MethodList;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.description.type.TypeDefinition;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.TypeCasting;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+import net.bytebuddy.jar.asm.Opcodes;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+/**
+ * Makes classes implement {@link Externalizable} with generated {@code writeExternal} and {@code readExternal}
+ * methods.
+ * <p>
+ * {@code Externalizable} is only invoked on the most derived class of an object, so all classes of a hierarchy have to
+ * be transformed together. A hierarchy below {@code Object} (or below a class that is already
+ * {@code Externalizable}) is only made {@code Externalizable} if every class of it that is processed by the plugin
+ * qualifies. Otherwise, the whole hierarchy stays {@link Serializable}. The generated methods call the methods of the
+ * super class directly, the transformation fails if they do not exist.
+ */
+class ExternalizableSerialization {
+
+    private static final Logger logger = Logger.getLogger(ExternalizableSerialization.class.getCanonicalName());
+    private static final TypeDescription DATA_OUTPUT = TypeDescription.ForLoadedType.of(DataOutput.class);
+    private static final TypeDescription DATA_INPUT = TypeDescription.ForLoadedType.of(DataInput.class);
+    private static final TypeDescription OBJECT_OUTPUT = TypeDescription.ForLoadedType.of(ObjectOutput.class);
+    private static final TypeDescription OBJECT_INPUT = TypeDescription.ForLoadedType.of(ObjectInput.class);
+    private static final Map<String, String> PRIMITIVE_SUFFIXES =
+            Map.of("boolean", "Boolean", "byte", "Byte", "char", "Char", "short", "Short", "int", "Int", "float",
+                    "Float", "long", "Long", "double", "Double");
+
+    private final Map<String, TypeDescription> types = new ConcurrentHashMap<>();
+    private final Predicate<TypeDescription> hasCustomSerializer;
+    private Map<String, Boolean> hierarchies;
+
+    /**
+     * Creates a new instance
+     *
+     * @param hasCustomSerializer checks if a type is serialized by a custom serializer
+     */
+    ExternalizableSerialization(Predicate<TypeDescription> hasCustomSerializer) {
+        this.hasCustomSerializer = hasCustomSerializer;
+    }
+
+    /**
+     * Registers a type processed by the plugin. All types have to be registered before the first call to
+     * {@link #isExternalizable(TypeDescription)}.
+     *
+     * @param typeDescription the processed type
+     */
+    void register(TypeDescription typeDescription) {
+        if (!typeDescription.isInterface()) {
+            types.put(typeDescription.getName(), typeDescription);
+        }
+    }
+
+    /**
+     * Checks if the type and all processed classes of its hierarchy can be made {@code Externalizable}
+     *
+     * @param typeDescription the type to check
+     * @return {@code true} if the type should implement {@code Externalizable}
+     */
+    synchronized boolean isExternalizable(TypeDescription typeDescription) {
+        if (hierarchies == null) {
+            hierarchies = resolveHierarchies();
+        }
+        TypeDescription root = root(typeDescription);
+        return root != null && hierarchies.getOrDefault(root.getName(), false);
+    }
+
+    private Map<String, Boolean> resolveHierarchies() {
+        Map<String, Boolean> result = new HashMap<>();
+        for (TypeDescription type : types.values()) {
+            TypeDescription root = root(type);
+            if (root != null) {
+                boolean applicable = isApplicable(type) && !hasCustomSerializer.test(type);
+                result.merge(root.getName(), applicable, Boolean::logicalAnd);
+            }
+        }
+        result.replaceAll((name, applicable) -> {
+            TypeDescription base = types.get(name).getSuperClass().asErasure();
+            if (base.represents(Object.class)) {
+                return applicable;
+            } else if (base.isAssignableTo(Externalizable.class)) {
+                if (!applicable) {
+                    logger.warning("Subclasses of " + base.getName() + " starting at " + name +
+                            " can not be made Externalizable, their fields are not serialized");
+                }
+                return applicable;
+            }
+            return false;
+        });
+        return result;
+    }
+
+    /**
+     * Finds the top-most processed class in the hierarchy of the type
+     *
+     * @param typeDescription the type
+     * @return the root of the hierarchy or {@code null} if the type is no class
+     */
+    private TypeDescription root(TypeDescription typeDescription) {
+        TypeDescription current = typeDescription;
+        while (current.getSuperClass() != null) {
+            TypeDescription superType = types.get(current.getSuperClass().asErasure().getName());
+            if (superType == null) {
+                return current;
+            }
+            current = superType;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if a single class can implement {@code Externalizable}. Classes must not be serializable on their own,
+     * have final fields that can not be assigned outside a constructor, declare custom serialization methods or lazy
+     * fields.
+     *
+     * @param typeDescription the type to check
+     * @return {@code true} if the methods can be generated
+     */
+    static boolean isApplicable(TypeDescription typeDescription) {
+        return !typeDescription.isInterface() && !typeDescription.isEnum() && !typeDescription.isRecord() &&
+                !typeDescription.isAssignableTo(Serializable.class) &&
+                typeDescription.getDeclaredFields().filter(named(SerialPersistentFields.FIELD_NAME)).isEmpty() &&
+                typeDescription.getDeclaredMethods().filter(named("writeObject").or(named("readObject"))
+                        .or(named("writeExternal")).or(named("readExternal"))).isEmpty() &&
+                serialFields(typeDescription).filter(isFinal()).isEmpty() &&
+                LazyFieldGeneration.lazyFields(typeDescription).isEmpty();
+    }
+
+    /**
+     * Implements {@code Externalizable} and defines the {@code writeExternal} and {@code readExternal} methods and
+     * a public no-arg constructor on the builder
+     *
+     * @param builder         the builder of the type
+     * @param typeDescription the type to transform
+     * @return the builder
+     * @throws IllegalStateException if the super class is neither made {@code Externalizable} by this transformation
+     *                               nor implements the methods called by the generated code
+     */
+    DynamicType.Builder<?> apply(DynamicType.Builder<?> builder, TypeDescription typeDescription) {
+        FieldList<FieldDescription.InDefinedShape> fields = serialFields(typeDescription);
+        TypeDescription superType = typeDescription.getSuperClass().asErasure();
+        boolean extendsExternalizable = !superType.represents(Object.class);
+        MethodList<MethodDescription.InDefinedShape> constructors =
+                typeDescription.getDeclaredMethods().filter(isConstructor().and(takesArguments(0)));
+        if (extendsExternalizable) {
+            verifySuperType(typeDescription, superType, constructors.isEmpty());
+        }
+
+        builder = builder.implement(Externalizable.class);
+
+        // public <init>() { super(); }
+        if (constructors.isEmpty()) {
+            builder = builder.defineConstructor(Visibility.PUBLIC).intercept(new Implementation.Simple(
+                    MethodVariableAccess.loadThis(), invokeSuper(superType, MethodDescription.CONSTRUCTOR_INTERNAL_NAME,
+                    "()V", 1), MethodReturn.VOID));
+        } else if (!constructors.getOnly().isPublic()) {
+            builder = builder.visit(
+                    new ModifierAdjustment().withConstructorModifiers(takesArguments(0), Visibility.PUBLIC));
+        }
+
+        // public void writeExternal(java.io.ObjectOutput out) throws IOException {
+        //     super.writeExternal(out);
+        //     out.write<Type>(this.<name>); ...
+        // }
+        List<StackManipulation> write = new ArrayList<>();
+        if (extendsExternalizable) {
+            write.add(MethodVariableAccess.loadThis());
+            write.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+            write.add(invokeSuper(superType, "writeExternal", "(Ljava/io/ObjectOutput;)V", 2));
+        }
+        for (FieldDescription.InDefinedShape field : fields) {
+            TypeDescription type = field.getType().asErasure();
+            write.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+            write.add(MethodVariableAccess.loadThis());
+            write.add(FieldAccess.forField(field).read());
+            if (type.isPrimitive()) {
+                TypeDescription parameter = type.represents(byte.class) || type.represents(char.class) ||
+                        type.represents(short.class) ? TypeDescription.ForLoadedType.of(int.class) : type;
+                write.add(MethodInvocation.invoke(DATA_OUTPUT.getDeclaredMethods()
+                        .filter(named("write" + PRIMITIVE_SUFFIXES.get(type.getName())).and(takesArguments(parameter)))
+                        .getOnly()));
+            } else {
+                write.add(MethodInvocation.invoke(
+                        OBJECT_OUTPUT.getDeclaredMethods().filter(named("writeObject")).getOnly()));
+            }
+        }
+        write.add(MethodReturn.VOID);
+        builder = builder.defineMethod("writeExternal", void.class, Visibility.PUBLIC)
+                .withParameter(ObjectOutput.class, "out").throwing(IOException.class)
+                .intercept(new Implementation.Simple(write.toArray(new StackManipulation[0])));
+
+        // public void readExternal(java.io.ObjectInput in) throws IOException, ClassNotFoundException {
+        //     super.readExternal(in);
+        //     this.<name> = (<type>) in.read<Type>(); ...
+        // }
+        List<StackManipulation> read = new ArrayList<>();
+        if (extendsExternalizable) {
+            read.add(MethodVariableAccess.loadThis());
+            read.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+            read.add(invokeSuper(superType, "readExternal", "(Ljava/io/ObjectInput;)V", 2));
+        }
+        for (FieldDescription.InDefinedShape field : fields) {
+            TypeDescription type = field.getType().asErasure();
+            read.add(MethodVariableAccess.loadThis());
+            read.add(MethodVariableAccess.REFERENCE.loadFrom(1));
+            if (type.isPrimitive()) {
+                read.add(MethodInvocation.invoke(DATA_INPUT.getDeclaredMethods()
+                        .filter(named("read" + PRIMITIVE_SUFFIXES.get(type.getName())).and(takesArguments(0)))
+                        .getOnly()));
+            } else {
+                read.add(MethodInvocation.invoke(
+                        OBJECT_INPUT.getDeclaredMethods().filter(named("readObject")).getOnly()));
+                if (!type.represents(Object.class)) {
+                    read.add(TypeCasting.to(type));
+                }
+            }
+            read.add(FieldAccess.forField(field).write());
+        }
+        read.add(MethodReturn.VOID);
+        builder = builder.defineMethod("readExternal", void.class, Visibility.PUBLIC)
+                .withParameter(ObjectInput.class, "in").throwing(IOException.class, ClassNotFoundException.class)
+                .intercept(new Implementation.Simple(read.toArray(new StackManipulation[0])));
+
+        return builder;
+    }
+
+    /**
+     * Verifies that the methods of the super class called by the generated code exist, because they are invoked
+     * without resolving them. A processed super class has to be made {@code Externalizable} by this transformation,
+     * any other super class has to implement {@code writeExternal} and {@code readExternal} and, if the constructor is
+     * generated, declare a no-arg constructor visible to the type.
+     *
+     * @param typeDescription      the type to transform
+     * @param superType            the super class of the type
+     * @param generatesConstructor {@code true} if the no-arg constructor of the type is generated
+     * @throws IllegalStateException if a called method does not exist
+     */
+    private void verifySuperType(TypeDescription typeDescription, TypeDescription superType,
+                                 boolean generatesConstructor) {
+        String problem;
+        if (types.containsKey(superType.getName())) {
+            problem = isExternalizable(superType) ? null : "is not made Externalizable";
+        } else if (!superType.isAssignableTo(Externalizable.class)) {
+            problem = "is not Externalizable";
+        } else if (!implementsMethod(superType, "writeExternal", OBJECT_OUTPUT) ||
+                !implementsMethod(superType, "readExternal", OBJECT_INPUT)) {
+            problem = "does not implement writeExternal and readExternal";
+        } else if (generatesConstructor && superType.getDeclaredMethods()
+                .filter(isConstructor().and(takesArguments(0)).and(isVisibleTo(typeDescription))).isEmpty()) {
+            problem = "has no visible no-arg constructor";
+        } else {
+            problem = null;
+        }
+        if (problem != null) {
+            throw new IllegalStateException("Can not make " + typeDescription.getName() + " Externalizable, its " +
+                    "super class " + superType.getName() + " " + problem);
+        }
+    }
+
+    private static boolean implementsMethod(TypeDescription type, String name, TypeDescription parameter) {
+        for (TypeDefinition current = type; current != null; current = current.getSuperClass()) {
+            if (!current.getDeclaredMethods().filter(named(name).and(takesArguments(parameter))
+                    .and(not(isAbstract()))).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static FieldList<FieldDescription.InDefinedShape> serialFields(TypeDefinition typeDefinition) {
+        return typeDefinition.getDeclaredFields().asDefined().filter(not(isStatic()).and(not(isTransient())));
+    }
+
+    private static StackManipulation invokeSuper(TypeDescription superType, String name, String descriptor,
+                                                 int arguments) {
+        // the methods of the super class are generated during the same transformation and not part of its description
+        return new StackManipulation.Simple((methodVisitor, context) -> {
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, superType.getInternalName(), name, descriptor, false);
+            return new StackManipulation.Size(-arguments, 0);
+        });
+    }
+}
@@ -0,0 +1,212 @@
+package dev.bodewig.autoserializable;
+
+import dev.bodewig.autoserializable.api.LazyDeserialized;
+import dev.bodewig.autoserializable.api.LazyValue;
+import net.bytebuddy.asm.MemberSubstitution;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.field.FieldList;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.modifier.FieldPersistence;
+import net.bytebuddy.description.modifier.ModifierContributor;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.Transformer;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.assign.TypeCasting;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.implementation.bytecode.member.MethodVariableAccess;
+import net.bytebuddy.jar.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import static net.bytebuddy.matcher.ElementMatchers.*;
+
+/**
+ * Defers the deserialization of fields annotated with {@link LazyDeserialized}.
+ * <p>
+ * Each annotated field is made transient and gets a serialized {@link LazyValue} field and a generated getter and
+ * setter. Reads and writes of the annotated fields are replaced by calls to the accessors in every class processed by
+ * the plugin, so the fields of all types have to be registered before the first class is transformed. Fields of
+ * types bound to a custom serializer stay as they are, as the serializer accesses them by name.
+ */
+class LazyFieldGeneration {
+
+    private static final TypeDescription LAZY_VALUE = TypeDescription.ForLoadedType.of(LazyValue.class);
+    private static final MethodDescription GET = LAZY_VALUE.getDeclaredMethods()
+            .filter(named("get").and(isStatic())).getOnly();
+    private static final MethodDescription SET = LAZY_VALUE.getDeclaredMethods()
+            .filter(named("set").and(isStatic())).getOnly();
+
+    private final Map<TypeDescription, FieldList<FieldDescription.InDefinedShape>> types = new ConcurrentHashMap<>();
+    private final Predicate<TypeDescription> hasCustomSerializer;
+    private volatile MemberSubstitution substitution;
+
+    /**
+     * Creates a new instance
+     *
+     * @param hasCustomSerializer checks if a type is serialized by a custom serializer
+     */
+    LazyFieldGeneration(Predicate<TypeDescription> hasCustomSerializer) {
+        this.hasCustomSerializer = hasCustomSerializer;
+    }
+
+    /**
+     * Returns the fields of the type annotated with {@link LazyDeserialized}
+     *
+     * @param typeDescription the type
+     * @return the annotated fields
+     * @throws IllegalStateException if an annotated field is static, final or primitive
+     */
+    static FieldList<FieldDescription.InDefinedShape> lazyFields(TypeDescription typeDescription) {
+        FieldList<FieldDescription.InDefinedShape> fields =
+                typeDescription.getDeclaredFields().filter(isAnnotatedWith(LazyDeserialized.class));
+        for (FieldDescription.InDefinedShape field : fields) {
+            if (field.isStatic() || field.isFinal() || field.getType().isPrimitive() || field.isTransient()) {
+                throw new IllegalStateException("Lazy field " + field.getName() + " of " + typeDescription.getName() +
+                        " must be a non-static, non-final, non-transient reference field");
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Registers the lazy fields of a type processed by the plugin
+     *
+     * @param typeDescription the processed type
+     */
+    void register(TypeDescription typeDescription) {
+        FieldList<FieldDescription.InDefinedShape> fields = lazyFields(typeDescription);
+        if (!fields.isEmpty()) {
+            types.put(typeDescription, fields);
+        }
+    }
+
+    /**
+     * Returns the lazy fields of a processed type that are transformed
+     *
+     * @param typeDescription the processed type
+     * @return the lazy fields or an empty list if there are none or the type has a custom serializer
+     */
+    FieldList<FieldDescription.InDefinedShape> fields(TypeDescription typeDescription) {
+        FieldList<FieldDescription.InDefinedShape> fields = types.get(typeDescription);
+        return fields == null || hasCustomSerializer.test(typeDescription) ? new FieldList.Empty<>() : fields;
+    }
+
+    /**
+     * Checks if any processed type declares lazy fields
+     *
+     * @return {@code true} if field accesses have to be replaced
+     */
+    boolean isEmpty() {
+        return types.isEmpty();
+    }
+
+    /**
+     * Replaces the reads and writes of all registered lazy fields in the methods of a class with accessor calls
+     *
+     * @param builder the builder of the class
+     * @return the builder
+     */
+    DynamicType.Builder<?> substitute(DynamicType.Builder<?> builder) {
+        MemberSubstitution result = substitution;
+        if (result == null) {
+            synchronized (this) {
+                result = substitution;
+                if (result == null) {
+                    result = MemberSubstitution.relaxed();
+                    for (TypeDescription type : types.keySet()) {
+                        for (FieldDescription.InDefinedShape field : fields(type)) {
+                            result = result.field(named(field.getName()).and(isDeclaredBy(
+                                            named(field.getDeclaringType().getName())))).onRead()
+                                    .replaceWith(getter(field));
+                            result = result.field(named(field.getName()).and(isDeclaredBy(
+                                            named(field.getDeclaringType().getName())))).onWrite()
+                                    .replaceWith(setter(field));
+                        }
+                    }
+                    substitution = result;
+                }
+            }
+        }
+        return builder.visit(result.on(isMethod().or(isConstructor())));
+    }
+
+    /**
+     * Makes the lazy fields of a type transient and defines their holders and accessors on the builder
+     *
+     * @param builder         the builder of the type
+     * @param typeDescription the type to transform
+     * @return the builder
+     */
+    DynamicType.Builder<?> apply(DynamicType.Builder<?> builder, TypeDescription typeDescription) {
+        for (FieldDescription.InDefinedShape field : fields(typeDescription)) {
+            List<ModifierContributor.ForField> modifiers = new ArrayList<>();
+            modifiers.add(FieldPersistence.TRANSIENT);
+            if (field.isPrivate()) {
+                modifiers.add(Visibility.PACKAGE_PRIVATE);
+            }
+            builder = builder.field(named(field.getName())).transform(Transformer.ForField.withModifiers(modifiers));
+
+            // private LazyValue _lazy$<name>;
+            builder = builder.defineField(LazyDeserialized.FIELD_PREFIX + field.getName(), LazyValue.class,
+                    Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC);
+            FieldDescription holder = builder.toTypeDescription().getDeclaredFields()
+                    .filter(named(LazyDeserialized.FIELD_PREFIX + field.getName())).getOnly();
+            TypeDescription type = field.getType().asErasure();
+
+            // <type> _get$<name>() {
+            //     return (<type>) LazyValue.get(this._lazy$<name>);
+            // }
+            List<StackManipulation> get = new ArrayList<>();
+            get.add(MethodVariableAccess.loadThis());
+            get.add(FieldAccess.forField(holder).read());
+            get.add(MethodInvocation.invoke(GET));
+            if (!type.represents(Object.class)) {
+                get.add(TypeCasting.to(type));
+            }
+            get.add(MethodReturn.REFERENCE);
+            builder = builder.define(getter(field))
+                    .intercept(new Implementation.Simple(get.toArray(new StackManipulation[0])));
+
+            // void _set$<name>(<type> value) {
+            //     this._lazy$<name> = LazyValue.set(this._lazy$<name>, value);
+            // }
+            builder = builder.define(setter(field)).intercept(new Implementation.Simple(
+                    MethodVariableAccess.loadThis(), MethodVariableAccess.loadThis(),
+                    FieldAccess.forField(holder).read(), MethodVariableAccess.REFERENCE.loadFrom(1),
+                    MethodInvocation.invoke(SET), FieldAccess.forField(holder).write(), MethodReturn.VOID));
+        }
+        return builder;
+    }
+
+    private static MethodDescription getter(FieldDescription.InDefinedShape field) {
+        return new MethodDescription.Latent(field.getDeclaringType(), new MethodDescription.Token(
+                LazyDeserialized.GETTER_PREFIX + field.getName(), accessorModifiers(field),
+                field.getType().asErasure().asGenericType()));
+    }
+
+    private static MethodDescription setter(FieldDescription.InDefinedShape field) {
+        return new MethodDescription.Latent(field.getDeclaringType(), new MethodDescription.Token(
+                LazyDeserialized.SETTER_PREFIX + field.getName(), accessorModifiers(field),
+                TypeDescription.Generic.VOID, List.of(field.getType().asErasure().asGenericType())));
+    }
+
+    /**
+     * The accessors are as visible as the field after the transformation, private fields become package-private
+     *
+     * @param field the lazy field
+     * @return the modifiers of the accessors
+     */
+    static int accessorModifiers(FieldDescription.InDefinedShape field) {
+        int visibility = field.isPublic() ? Opcodes.ACC_PUBLIC : field.isProtected() ? Opcodes.ACC_PROTECTED : 0;
+        return visibility | Opcodes.ACC_SYNTHETIC;
+    }
+}
@@ -0,0 +1,79 @@
+package dev.bodewig.autoserializable;
+
+import dev.bodewig.autoserializable.api.AutoSerializerRegistry;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.Duplication;
+import net.bytebuddy.implementation.bytecode.Removal;
+import net.bytebuddy.implementation.bytecode.StackManipulation;
+import net.bytebuddy.implementation.bytecode.constant.ClassConstant;
+import net.bytebuddy.implementation.bytecode.member.FieldAccess;
+import net.bytebuddy.implementation.bytecode.member.MethodInvocation;
+import net.bytebuddy.implementation.bytecode.member.MethodReturn;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
+
+/**
+ * Returns the serializer stored in a static field and requests it from the {@link AutoSerializerRegistry} on first
+ * use.
+ * <p>
+ * The serializer is only requested once an instance of the class is serialized or deserialized instead of during
+ * class initialization. All classes bound to the same serializer type share the instance held by the registry.
+ */
+class LazySerializer implements StackManipulation {
+
+    private static final MethodDescription LOOKUP =
+            TypeDescription.ForLoadedType.of(MethodHandles.class).getDeclaredMethods()
+                    .filter(named("lookup").and(takesArguments(0))).getOnly();
+    private static final MethodDescription REGISTRY_GET =
+            TypeDescription.ForLoadedType.of(AutoSerializerRegistry.class).getDeclaredMethods()
+                    .filter(named("get").and(takesArguments(MethodHandles.Lookup.class, Class.class))).getOnly();
+
+    private final FieldDescription field;
+    private final TypeDescription serializer;
+
+    /**
+     * Creates a new instance
+     *
+     * @param field      the static field to store the serializer in
+     * @param serializer the serializer type to request
+     */
+    LazySerializer(FieldDescription field, TypeDescription serializer) {
+        this.field = field;
+        this.serializer = serializer;
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+
+    // AutoSerializer serializer = _serializer;
+    // if (serializer == null) {
+    //     serializer = _serializer = AutoSerializerRegistry.get(MethodHandles.lookup(), <serializer>.class);
+    // }
+    // return serializer;
+    @Override
+    public Size apply(MethodVisitor methodVisitor, Implementation.Context context) {
+        Label initialized = new Label();
+        Size size = new Compound(FieldAccess.forField(field).read(), Duplication.SINGLE).apply(methodVisitor, context);
+        methodVisitor.visitJumpInsn(Opcodes.IFNONNULL, initialized);
+        size = size.aggregate(new Size(-1, 0));
+        size = size.aggregate(
+                new Compound(Removal.SINGLE, MethodInvocation.invoke(LOOKUP), ClassConstant.of(serializer),
+                        MethodInvocation.invoke(REGISTRY_GET), Duplication.SINGLE, FieldAccess.forField(field).write())
+                        .apply(methodVisitor, context));
+        methodVisitor.visitLabel(initialized);
+        context.getFrameGeneration().same1(methodVisitor, field.getType().asErasure(), List.of());
+        return size.aggregate(MethodReturn.REFERENCE.apply(methodVisitor, context));
+    }
+}
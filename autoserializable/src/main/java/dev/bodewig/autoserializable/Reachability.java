@@ -0,0 +1,178 @@
+package dev.bodewig.autoserializable;
+
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.type.TypeDescription;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Selects the types to transform by their reachability from root types.
+ * <p>
+ * A type is reachable if it is a root or a subtype of a root, if it is the type of an instance field of a reachable type
+ * or a subtype of it, or if it is a supertype or the bound custom serializer of a reachable type. Type arguments of
+ * generic field types are followed as well. Transient fields are only followed if the type has a custom serializer, as
+ * the default serialization does not write them. Only the types processed by the plugin are transformed, but the
+ * subtypes of other types are followed as well, so a field of type {@code Object} or of an interface of another
+ * library reaches all processed types that implement it.
+ */
+class Reachability {
+
+    private static final Logger logger = Logger.getLogger(Reachability.class.getCanonicalName());
+
+    private final List<String> roots;
+    private final Map<String, TypeDescription> types = new ConcurrentHashMap<>();
+    private final Function<TypeDescription, TypeDescription> serializerOf;
+    private Set<String> reachable;
+
+    /**
+     * Creates a new instance
+     *
+     * @param roots        the names of the root types
+     * @param serializerOf returns the custom serializer bound to a type or {@code null}
+     */
+    Reachability(List<String> roots, Function<TypeDescription, TypeDescription> serializerOf) {
+        this.roots = roots;
+        this.serializerOf = serializerOf;
+    }
+
+    /**
+     * Registers a type processed by the plugin. All types have to be registered before the first call to
+     * {@link #isReachable(TypeDescription)}.
+     *
+     * @param typeDescription the processed type
+     */
+    void register(TypeDescription typeDescription) {
+        types.put(typeDescription.getName(), typeDescription);
+    }
+
+    /**
+     * Checks if the type is reachable from the root types
+     *
+     * @param typeDescription the type to check
+     * @return {@code true} if the type should be transformed
+     */
+    synchronized boolean isReachable(TypeDescription typeDescription) {
+        if (reachable == null) {
+            reachable = resolve();
+        }
+        return reachable.contains(typeDescription.getName());
+    }
+
+    private Set<String> resolve() {
+        // all supertypes, so the subtypes of types that are not processed are found as well
+        Map<String, List<String>> subtypes = new HashMap<>();
+        for (TypeDescription type : types.values()) {
+            for (String superType : allSupertypes(type)) {
+                subtypes.computeIfAbsent(superType, key -> new ArrayList<>()).add(type.getName());
+            }
+        }
+        for (String root : roots) {
+            if (!types.containsKey(root)) {
+                logger.info("Root type " + root + " is not processed by this transformation");
+            }
+        }
+
+        Set<String> expanded = new HashSet<>();
+        Set<String> result = new HashSet<>();
+        Deque<Visit> queue = new ArrayDeque<>();
+        roots.forEach(root -> queue.add(new Visit(root, true)));
+        while (!queue.isEmpty()) {
+            Visit visit = queue.poll();
+            // a field holds values of any subtype of its type, but a supertype does not reach its other subtypes
+            if (visit.subtypes() && expanded.add(visit.name())) {
+                subtypes.getOrDefault(visit.name(), List.of()).forEach(name -> queue.add(new Visit(name, false)));
+            }
+            TypeDescription type = types.get(visit.name());
+            if (type == null || !result.add(visit.name())) {
+                continue;
+            }
+            for (TypeDescription.Generic superType : supertypes(type)) {
+                addTypes(superType, queue, false);
+            }
+            TypeDescription serializer = serializerOf.apply(type);
+            if (serializer != null) {
+                queue.add(new Visit(serializer.getName(), false));
+            }
+            for (FieldDescription.InDefinedShape field : type.getDeclaredFields()) {
+                if (!field.isStatic() && (!field.isTransient() || serializer != null)) {
+                    addTypes(field.getType(), queue, true);
+                }
+            }
+        }
+        logger.info(result.size() + " of " + types.size() + " types are reachable from " + roots);
+        return result;
+    }
+
+    /**
+     * Collects the names of the super classes and of all interfaces a type implements, directly or indirectly
+     *
+     * @param typeDescription the type
+     * @return the names of all supertypes
+     */
+    private static Set<String> allSupertypes(TypeDescription typeDescription) {
+        Set<String> result = new HashSet<>();
+        Deque<TypeDescription> queue = new ArrayDeque<>(List.of(typeDescription));
+        while (!queue.isEmpty()) {
+            for (TypeDescription.Generic superType : supertypes(queue.poll())) {
+                TypeDescription erasure = superType.asErasure();
+                if (result.add(erasure.getName())) {
+                    queue.add(erasure);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<TypeDescription.Generic> supertypes(TypeDescription typeDescription) {
+        List<TypeDescription.Generic> supertypes = new ArrayList<>(typeDescription.getInterfaces());
+        if (typeDescription.getSuperClass() != null) {
+            supertypes.add(typeDescription.getSuperClass());
+        }
+        return supertypes;
+    }
+
+    /**
+     * Adds the erasure of a generic type and of all its type arguments to the queue. The subtypes of type arguments
+     * are always followed.
+     *
+     * @param type     the generic type
+     * @param queue    the types to visit
+     * @param subtypes {@code true} if the subtypes of the erasure are followed
+     */
+    private static void addTypes(TypeDescription.Generic type, Deque<Visit> queue, boolean subtypes) {
+        switch (type.getSort()) {
+            case PARAMETERIZED -> {
+                queue.add(new Visit(type.asErasure().getName(), subtypes));
+                if (type.getOwnerType() != null) {
+                    addTypes(type.getOwnerType(), queue, subtypes);
+                }
+                type.getTypeArguments().forEach(argument -> addTypes(argument, queue, true));
+            }
+            case GENERIC_ARRAY -> addTypes(type.getComponentType(), queue, subtypes);
+            case WILDCARD -> {
+                type.getUpperBounds().forEach(bound -> addTypes(bound, queue, subtypes));
+                type.getLowerBounds().forEach(bound -> addTypes(bound, queue, subtypes));
+            }
+            // the bounds of type variables may refer to the variable itself, so only the erasure is followed
+            default -> {
+                TypeDescription erasure = type.asErasure();
+                while (erasure.isArray()) {
+                    erasure = erasure.getComponentType();
+                }
+                queue.add(new Visit(erasure.getName(), subtypes));
+            }
+        }
+    }
+
+    /**
+     * A type to visit
+     *
+     * @param name     the name of the type
+     * @param subtypes {@code true} if the subtypes of the type are reachable as well
+     */
+    private record Visit(String name, boolean subtypes) {
+    }
+}
@@ -0,0 +1,281 @@
+package dev.bodewig.autoserializable;
+
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.FieldVisitor;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.utility.OpenedClassReader;
+
+import java.io.*;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Computes the {@code serialVersionUID} of classes during the transformation and optionally pins them in a lockfile.
+ * <p>
+ * The value is computed from the class file before the transformation with the algorithm of
+ * {@link ObjectStreamClass#getSerialVersionUID()}. It does not change if the plugin changes the shape of the class and
+ * equals the value the JDK computes for classes that already implement {@code Serializable}.
+ * <p>
+ * The lockfile contains one {@code className=serialVersionUID} entry per line. Pinned values are used instead of
+ * computed ones, so they stay stable if a class changes, and values of new classes are added to the lockfile once
+ * the plugin is closed.
+ */
+class SerialVersionUids {
+
+    /**
+     * The name of the serialVersionUID field
+     */
+    static final String FIELD_NAME = "serialVersionUID";
+
+    private static final Logger logger = Logger.getLogger(SerialVersionUids.class.getCanonicalName());
+    private static final int CLASS_MODIFIERS =
+            Modifier.PUBLIC | Modifier.FINAL | Modifier.INTERFACE | Modifier.ABSTRACT;
+    private static final int FIELD_MODIFIERS =
+            Modifier.PUBLIC | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC | Modifier.FINAL |
+                    Modifier.VOLATILE | Modifier.TRANSIENT;
+    private static final int METHOD_MODIFIERS =
+            Modifier.PUBLIC | Modifier.PRIVATE | Modifier.PROTECTED | Modifier.STATIC | Modifier.FINAL |
+                    Modifier.SYNCHRONIZED | Modifier.NATIVE | Modifier.ABSTRACT | Modifier.STRICT;
+
+    private final Path lockfile;
+    private final Map<String, Long> pinned = new ConcurrentHashMap<>();
+    private final Map<String, Long> added = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance and reads the pinned values from the lockfile if it exists
+     *
+     * @param lockfile the lockfile or {@code null} to compute all values
+     */
+    SerialVersionUids(Path lockfile) {
+        this.lockfile = lockfile;
+        if (lockfile != null) {
+            pinned.putAll(read(lockfile));
+            logger.info("Read " + pinned.size() + " serialVersionUIDs from " + lockfile);
+        }
+    }
+
+    /**
+     * Returns the pinned or computed serialVersionUID of the type
+     *
+     * @param typeDescription  the type
+     * @param classFileLocator the locator of the untransformed class file
+     * @return the serialVersionUID
+     */
+    long of(TypeDescription typeDescription, ClassFileLocator classFileLocator) {
+        String name = typeDescription.getName();
+        Long value = pinned.get(name);
+        if (value == null) {
+            try {
+                value = compute(classFileLocator.locate(name).resolve());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (lockfile != null) {
+                added.put(name, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Adds the values of new classes to the lockfile. Entries that were written to the lockfile in the meantime are
+     * kept.
+     */
+    synchronized void save() {
+        if (lockfile == null || added.isEmpty()) {
+            return;
+        }
+        Map<String, Long> entries = new TreeMap<>(added);
+        if (Files.exists(lockfile)) {
+            entries.putAll(read(lockfile));
+        }
+        try {
+            if (lockfile.getParent() != null) {
+                Files.createDirectories(lockfile.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(lockfile, StandardCharsets.UTF_8)) {
+                writer.write("# serialVersionUIDs pinned by the AutoSerializablePlugin");
+                writer.newLine();
+                for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                    writer.write(entry.getKey() + "=" + entry.getValue());
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Added " + added.size() + " serialVersionUIDs to " + lockfile);
+        pinned.putAll(added);
+        added.clear();
+    }
+
+    private static Map<String, Long> read(Path lockfile) {
+        Map<String, Long> entries = new HashMap<>();
+        if (!Files.exists(lockfile)) {
+            return entries;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(lockfile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (String name : properties.stringPropertyNames()) {
+            String value = properties.getProperty(name).trim();
+            try {
+                entries.put(name, Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(
+                        "Invalid serialVersionUID '" + value + "' for " + name + " in " + lockfile, e);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Computes the default serialVersionUID of a class file as specified by the Java Object Serialization
+     * Specification
+     *
+     * @param classFile the binary representation of the class
+     * @return the serialVersionUID
+     */
+    static long compute(byte[] classFile) {
+        ClassShape shape = new ClassShape();
+        OpenedClassReader.of(classFile)
+                .accept(shape, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeUTF(shape.name);
+            int classModifiers = shape.modifiers & CLASS_MODIFIERS;
+            if ((classModifiers & Modifier.INTERFACE) != 0) {
+                classModifiers = shape.methods.isEmpty() ? classModifiers & ~Modifier.ABSTRACT :
+                        classModifiers | Modifier.ABSTRACT;
+            }
+            out.writeInt(classModifiers);
+
+            for (String interfaceName : shape.interfaces) {
+                out.writeUTF(interfaceName);
+            }
+
+            shape.fields.sort(Comparator.comparing(Member::name));
+            for (Member field : shape.fields) {
+                int modifiers = field.modifiers() & FIELD_MODIFIERS;
+                if ((modifiers & Modifier.PRIVATE) == 0 || (modifiers & (Modifier.STATIC | Modifier.TRANSIENT)) == 0) {
+                    out.writeUTF(field.name());
+                    out.writeInt(modifiers);
+                    out.writeUTF(field.descriptor());
+                }
+            }
+
+            if (shape.hasStaticInitializer) {
+                out.writeUTF(MethodDescription.TYPE_INITIALIZER_INTERNAL_NAME);
+                out.writeInt(Modifier.STATIC);
+                out.writeUTF("()V");
+            }
+
+            shape.constructors.sort(Comparator.comparing(Member::descriptor));
+            shape.methods.sort(Comparator.comparing(Member::name).thenComparing(Member::descriptor));
+            List<Member> methods = new ArrayList<>(shape.constructors);
+            methods.addAll(shape.methods);
+            for (Member method : methods) {
+                int modifiers = method.modifiers() & METHOD_MODIFIERS;
+                if ((modifiers & Modifier.PRIVATE) == 0) {
+                    out.writeUTF(method.name());
+                    out.writeInt(modifiers);
+                    out.writeUTF(method.descriptor().replace('/', '.'));
+                }
+            }
+
+            out.flush();
+            byte[] hash = MessageDigest.getInstance("SHA").digest(bytes.toByteArray());
+            long value = 0;
+            for (int i = Math.min(hash.length, 8) - 1; i >= 0; i--) {
+                value = (value << 8) | (hash[i] & 0xFF);
+            }
+            return value;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A field, constructor or method of a class file
+     *
+     * @param name       the name
+     * @param modifiers  the access flags
+     * @param descriptor the descriptor
+     */
+    private record Member(String name, int modifiers, String descriptor) {
+    }
+
+    /**
+     * Collects the members of a class file that are part of the default serialVersionUID
+     */
+    private static class ClassShape extends ClassVisitor {
+
+        private final List<String> interfaces = new ArrayList<>();
+        private final List<Member> fields = new ArrayList<>();
+        private final List<Member> constructors = new ArrayList<>();
+        private final List<Member> methods = new ArrayList<>();
+        private String internalName;
+        private String name;
+        private int modifiers;
+        private boolean hasStaticInitializer;
+
+        ClassShape() {
+            super(OpenedClassReader.ASM_API);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName,
+                          String[] interfaces) {
+            this.internalName = name;
+            this.name = name.replace('/', '.');
+            this.modifiers = access;
+            for (String interfaceName : interfaces) {
+                this.interfaces.add(interfaceName.replace('/', '.'));
+            }
+            Collections.sort(this.interfaces);
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            // nested classes use the modifiers of their declaration
+            if (name.equals(internalName)) {
+                modifiers = access;
+            }
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            fields.add(new Member(name, access, descriptor));
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                         String[] exceptions) {
+            if (name.equals(MethodDescription.TYPE_INITIALIZER_INTERNAL_NAME)) {
+                hasStaticInitializer = true;
+            } else if (name.equals(MethodDescription.CONSTRUCTOR_INTERNAL_NAME)) {
+                constructors.add(new Member(name, access, descriptor));
+            } else {
+                methods.add(new Member(name, access, descriptor));
+            }
+            return null;
+        }
+    }
+}
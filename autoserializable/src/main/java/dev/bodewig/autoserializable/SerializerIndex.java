@@ -0,0 +1,170 @@
+package dev.bodewig.autoserializable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Caches the names of the custom serializers found in the classpath elements in a file between builds.
+ * <p>
+ * Jar files are identified by their path and the fingerprint of {@link ClasspathSerializers#fingerprint(File)}. Only if
+ * the fingerprint changed, e.g. because the jar was downloaded again, the hash of its content decides whether it is
+ * searched again, so unchanged jars are not read. Directories are searched on every build, as they usually contain the
+ * classes of the build itself. The cache is discarded if the scanned packages change.
+ */
+class SerializerIndex {
+
+    private static final Logger logger = Logger.getLogger(SerializerIndex.class.getCanonicalName());
+    private static final String HEADER = "# custom serializers found by the AutoSerializablePlugin, scanPackages=";
+
+    private final Path file;
+    private final String scanPackages;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean changed;
+
+    /**
+     * Creates a new instance and reads the cached entries from the file if it exists
+     *
+     * @param file         the cache file
+     * @param scanPackages the packages searched for custom serializers
+     */
+    SerializerIndex(Path file, List<String> scanPackages) {
+        this.file = file;
+        this.scanPackages = String.join(",", scanPackages);
+        read();
+    }
+
+    /**
+     * Returns the cached serializers of a classpath element if it did not change since it was searched. The content
+     * is only hashed if the fingerprint changed.
+     *
+     * @param element     the classpath element
+     * @param fingerprint the current fingerprint of the element
+     * @return the names of the serializers or {@code null} if the element has to be searched
+     */
+    Set<String> get(File element, String fingerprint) {
+        if (!element.isFile()) {
+            return null;
+        }
+        Entry entry = entries.get(key(element));
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.fingerprint().equals(fingerprint)) {
+            String hash = hash(element);
+            if (!entry.hash().equals(hash)) {
+                return null;
+            }
+            entries.put(key(element), new Entry(fingerprint, hash, entry.serializers()));
+            changed = true;
+        }
+        return entry.serializers();
+    }
+
+    /**
+     * Caches the serializers found in a classpath element. Directories are not cached.
+     *
+     * @param element     the searched classpath element
+     * @param fingerprint the fingerprint of the element when it was searched
+     * @param serializers the names of the serializers
+     */
+    void put(File element, String fingerprint, Set<String> serializers) {
+        if (!element.isFile()) {
+            return;
+        }
+        entries.put(key(element), new Entry(fingerprint, hash(element), new TreeSet<>(serializers)));
+        changed = true;
+    }
+
+    /**
+     * Writes the cached entries to the file if they changed
+     */
+    synchronized void save() {
+        if (!changed) {
+            return;
+        }
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(HEADER + scanPackages);
+                writer.newLine();
+                for (Map.Entry<String, Entry> entry : new TreeMap<>(entries).entrySet()) {
+                    writer.write(entry.getKey() + '\t' + entry.getValue().fingerprint() + '\t' + entry.getValue().hash() +
+                            '\t' + String.join(",", entry.getValue().serializers()));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.fine("Wrote " + entries.size() + " classpath elements to " + file);
+        changed = false;
+    }
+
+    private void read() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!(HEADER + scanPackages).equals(reader.readLine())) {
+                logger.info("Discarded " + file + " as the scanned packages changed");
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split("\t", -1);
+                if (values.length != 4) {
+                    throw new IllegalArgumentException("Invalid entry '" + line + "' in " + file);
+                }
+                Set<String> serializers = values[3].isEmpty() ? Set.of() : Set.of(values[3].split(","));
+                entries.put(values[0], new Entry(values[1], values[2], serializers));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.fine("Read " + entries.size() + " classpath elements from " + file);
+    }
+
+    private static String key(File element) {
+        return element.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * Computes the SHA-256 hash of a file
+     *
+     * @param file the file
+     * @return the hash as hex string
+     */
+    static String hash(File file) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The cached state of a classpath element
+     *
+     * @param fingerprint the fingerprint of the file
+     * @param hash        the hash of the file content
+     * @param serializers the names of the serializers found in the element
+     */
+    private record Entry(String fingerprint, String hash, Set<String> serializers) {
+    }
+}
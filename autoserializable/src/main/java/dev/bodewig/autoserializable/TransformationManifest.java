@@ -0,0 +1,215 @@
+package dev.bodewig.autoserializable;
+
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.description.field.FieldDescription;
+import net.bytebuddy.description.field.FieldList;
+import net.bytebuddy.description.method.MethodList;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.jar.asm.ClassReader;
+import net.bytebuddy.jar.asm.ClassVisitor;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.pool.TypePool;
+import net.bytebuddy.utility.OpenedClassReader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Records the transformation of each class in a file to report transformed classes that are out of date in later
+ * builds.
+ * <p>
+ * The manifest is a report only, classes are not skipped by the hash of their input. A plugin can not hand a recorded
+ * output back to the build, so every recompiled class is transformed again. Classes that were not recompiled still
+ * carry {@link dev.bodewig.autoserializable.api.AutoSerialized} and are kept as they are without the manifest.
+ * <p>
+ * Each entry maps the hash of the class file before the transformation and the bound custom serializer to the hash of
+ * the transformed class file. The header contains the fingerprint of the plugin and its options. A class that was
+ * already transformed is up-to-date if its hash equals the recorded output hash and neither its serializer, the plugin
+ * nor the options changed. Otherwise, it has to be recompiled to be transformed again.
+ * <p>
+ * The hashes are computed over the class file as it is written by ASM without stack map frames and with computed
+ * maximum stack sizes, so they do not depend on the order of the constant pool of the original class file.
+ */
+class TransformationManifest {
+
+    private static final Logger logger = Logger.getLogger(TransformationManifest.class.getCanonicalName());
+    private static final String HEADER = "# classes transformed by the AutoSerializablePlugin, ";
+    private static final String STALE = "stale";
+
+    private final Path file;
+    private final String header;
+    private final Map<String, Entry> previous = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> inputHashes = new ConcurrentHashMap<>();
+    private final AtomicInteger stale = new AtomicInteger();
+    private boolean sameHeader = true;
+
+    /**
+     * Creates a new instance and reads the entries of the last build from the file if it exists
+     *
+     * @param file    the manifest file
+     * @param plugin  the fingerprint of the plugin
+     * @param options the options of the plugin
+     */
+    TransformationManifest(Path file, String plugin, AutoSerializableOptions options) {
+        this.file = file;
+        this.header = HEADER + "plugin=" + plugin + ";options=" + options;
+        read();
+    }
+
+    /**
+     * Records the hash of a class file before the transformation
+     *
+     * @param name      the name of the class
+     * @param classFile the class file
+     */
+    void onInput(String name, byte[] classFile) {
+        inputHashes.put(name, hash(classFile));
+    }
+
+    /**
+     * Records a class that is transformed in this build. The returned wrapper records the hash of the transformed class
+     * file, it has to be the first visitor registered on the builder to see the final class.
+     *
+     * @param name       the name of the class
+     * @param serializer the name of the bound custom serializer or an empty string
+     * @return the visitor wrapper to register on the builder of the class
+     */
+    AsmVisitorWrapper onTransformed(String name, String serializer) {
+        return new AsmVisitorWrapper.AbstractBase() {
+            @Override
+            public ClassVisitor wrap(TypeDescription instrumentedType, ClassVisitor classVisitor,
+                                     Implementation.Context implementationContext, TypePool typePool,
+                                     FieldList<FieldDescription.InDefinedShape> fields, MethodList<?> methods,
+                                     int writerFlags, int readerFlags) {
+                // buffers the transformed class and passes it on once it is complete
+                ClassWriter buffer = new ClassWriter(0);
+                return new ClassVisitor(OpenedClassReader.ASM_API, buffer) {
+                    @Override
+                    public void visitEnd() {
+                        super.visitEnd();
+                        byte[] classFile = buffer.toByteArray();
+                        entries.put(name, new Entry(inputHashes.getOrDefault(name, ""), serializer, hash(classFile)));
+                        new ClassReader(classFile).accept(classVisitor, 0);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Records a class that was already transformed and is kept as it is. Checks if it is up-to-date with its recorded
+     * transformation.
+     *
+     * @param name       the name of the class
+     * @param serializer the name of the bound custom serializer or an empty string
+     */
+    void onRetained(String name, String serializer) {
+        String outputHash = inputHashes.getOrDefault(name, "");
+        Entry entry = previous.get(name);
+        if (entry == null) {
+            // transformed before the manifest was used
+            entries.put(name, new Entry("", serializer, outputHash));
+            return;
+        }
+        if (sameHeader && entry.serializer().equals(serializer) && entry.outputHash().equals(outputHash)) {
+            entries.put(name, new Entry(entry.inputHash(), serializer, outputHash));
+            return;
+        }
+        // stays out of date until the class is transformed again
+        entries.put(name, new Entry(entry.inputHash(), serializer, STALE));
+        logger.fine("Transformed class " + name + " is out of date");
+        stale.incrementAndGet();
+    }
+
+    /**
+     * Writes the entries of this build to the file. Entries of classes that were not processed in this build are kept,
+     * so multiple transformations can share a manifest.
+     */
+    synchronized void save() {
+        if (stale.get() > 0) {
+            logger.warning(stale.get() + " transformed classes are out of date with their custom serializer, the " +
+                    "plugin or its options, recompile them to transform them again");
+        }
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(header);
+                writer.newLine();
+                Map<String, Entry> merged = new TreeMap<>();
+                if (sameHeader) {
+                    merged.putAll(previous);
+                }
+                merged.putAll(entries);
+                for (Map.Entry<String, Entry> entry : merged.entrySet()) {
+                    writer.write(entry.getKey() + '\t' + entry.getValue().inputHash() + '\t' +
+                            entry.getValue().serializer() + '\t' + entry.getValue().outputHash());
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.fine("Wrote " + entries.size() + " processed classes to " + file);
+    }
+
+    private void read() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            // a changed plugin or changed options make all transformed classes out of date
+            sameHeader = header.equals(reader.readLine());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split("\t", -1);
+                if (values.length != 4) {
+                    throw new IllegalArgumentException("Invalid entry '" + line + "' in " + file);
+                }
+                previous.put(values[0], new Entry(values[1], values[2], values[3]));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.fine("Read " + previous.size() + " transformed classes from " + file);
+    }
+
+    /**
+     * Hashes a class file as it is written by ASM without stack map frames and with computed maximum stack sizes
+     *
+     * @param classFile the class file
+     * @return the hex encoded SHA-256 hash
+     */
+    static String hash(byte[] classFile) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        new ClassReader(classFile).accept(writer, ClassReader.SKIP_FRAMES);
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(writer.toByteArray()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * The recorded transformation of a class
+     *
+     * @param inputHash  the hash of the class file before the transformation
+     * @param serializer the name of the bound custom serializer or an empty string
+     * @param outputHash the hash of the transformed class file or {@code stale} if the class is out of date
+     */
+    private record Entry(String inputHash, String serializer, String outputHash) {
+    }
+}
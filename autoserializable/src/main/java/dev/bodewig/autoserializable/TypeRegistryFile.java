@@ -0,0 +1,114 @@
+package dev.bodewig.autoserializable;
+
+import dev.bodewig.autoserializable.api.LazyDeserialized;
+import dev.bodewig.autoserializable.api.LazyValue;
+import dev.bodewig.autoserializable.api.SerialPersistentFields;
+import dev.bodewig.autoserializable.api.TypeRegistry;
+import net.bytebuddy.description.type.TypeDescription;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+/**
+ * Writes the {@link TypeRegistry} of the transformed types.
+ * <p>
+ * Ids of types already contained in an existing registry file are kept, so they stay stable across builds. New types
+ * get the hash code of their name as id, or the next free id if it is already used.
+ */
+class TypeRegistryFile {
+
+    private static final Logger logger = Logger.getLogger(TypeRegistryFile.class.getCanonicalName());
+    private static final String LAZY_DESCRIPTOR = TypeDescription.ForLoadedType.of(LazyValue.class).getDescriptor();
+
+    private final Path file;
+    private final Map<String, String> layouts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance
+     *
+     * @param file the registry file
+     */
+    TypeRegistryFile(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Registers a transformed class
+     *
+     * @param typeDescription  the transformed class
+     * @param externalizable   {@code true} if the class is {@code Externalizable} after the transformation
+     * @param persistentFields {@code true} if the serialized fields are declared by {@code serialPersistentFields}
+     * @param lazyFields       the names of the fields that are serialized as {@link LazyValue}
+     */
+    void register(TypeDescription typeDescription, boolean externalizable, boolean persistentFields,
+                  List<String> lazyFields) {
+        String layout;
+        if (typeDescription.isEnum() || externalizable || typeDescription.isAssignableTo(Externalizable.class)) {
+            layout = "";
+        } else if (persistentFields ||
+                !typeDescription.getDeclaredFields().filter(named(SerialPersistentFields.FIELD_NAME)).isEmpty()) {
+            layout = TypeRegistry.ANY_LAYOUT;
+        } else {
+            layout = typeDescription.getDeclaredFields().stream().filter(field -> !field.isStatic() &&
+                            !field.isTransient()).map(field -> lazyFields.contains(field.getName()) ?
+                            LazyDeserialized.FIELD_PREFIX + field.getName() + ":" + LAZY_DESCRIPTOR :
+                            field.getName() + ":" + field.getDescriptor()).sorted().collect(Collectors.joining(","));
+        }
+        layouts.put(typeDescription.getName(), layout);
+    }
+
+    /**
+     * Assigns ids to the registered types and writes the registry. Types of an existing registry file are kept.
+     */
+    synchronized void save() {
+        if (layouts.isEmpty()) {
+            return;
+        }
+        Map<String, TypeRegistry.Entry> entries = new TreeMap<>();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                TypeRegistry.read(in).entries().forEach(entry -> entries.put(entry.name(), entry));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        Set<Integer> ids = entries.values().stream().map(TypeRegistry.Entry::id).collect(Collectors.toSet());
+        for (Map.Entry<String, String> layout : new TreeMap<>(layouts).entrySet()) {
+            TypeRegistry.Entry existing = entries.get(layout.getKey());
+            int id;
+            if (existing != null) {
+                id = existing.id();
+            } else {
+                id = layout.getKey().hashCode();
+                while (!ids.add(id)) {
+                    id++;
+                }
+            }
+            entries.put(layout.getKey(), new TypeRegistry.Entry(id, layout.getKey(), layout.getValue()));
+        }
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write("# types registered by the AutoSerializablePlugin");
+                writer.newLine();
+                for (TypeRegistry.Entry entry : entries.values()) {
+                    writer.write(entry.id() + "\t" + entry.name() + "\t" + entry.layout());
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Registered " + layouts.size() + " types in " + file);
+    }
+}